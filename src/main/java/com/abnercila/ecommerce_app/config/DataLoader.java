@@ -13,6 +13,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -69,9 +70,10 @@ public class DataLoader implements CommandLineRunner {
     private void loadProducts() {
         if (productRepository.count() == 0) {
             log.info("Cargando productos de ejemplo...");
+            List<Product> products = new ArrayList<>();
 
             // LAPTOPS
-            productRepository.save(new Product(
+            products.add(new Product(
                 "MacBook Pro M3 14\"",
                 "Laptop profesional con chip M3, 16GB RAM, 512GB SSD y pantalla Retina de 14 pulgadas",
                 new BigDecimal("1999.99"),
@@ -80,7 +82,7 @@ public class DataLoader implements CommandLineRunner {
                 "laptops"
             ));
 
-            productRepository.save(new Product(
+            products.add(new Product(
                 "Dell XPS 13 Plus",
                 "Ultrabook premium con Intel Core i7, 16GB RAM, 1TB SSD y pantalla InfinityEdge",
                 new BigDecimal("1599.99"),
@@ -89,7 +91,7 @@ public class DataLoader implements CommandLineRunner {
                 "laptops"
             ));
 
-            productRepository.save(new Product(
+            products.add(new Product(
                 "ASUS ROG Strix G15",
                 "Laptop gaming con AMD Ryzen 9, NVIDIA RTX 4070, 32GB RAM ideal para juegos",
                 new BigDecimal("1899.99"),
@@ -99,7 +101,7 @@ public class DataLoader implements CommandLineRunner {
             ));
 
             // MONITORES
-            productRepository.save(new Product(
+            products.add(new Product(
                 "Samsung Odyssey G7 32\"",
                 "Monitor gaming curvo 4K 144Hz con HDR1000 y tecnología QLED",
                 new BigDecimal("799.99"),
@@ -108,7 +110,7 @@ public class DataLoader implements CommandLineRunner {
                 "monitores"
             ));
 
-            productRepository.save(new Product(
+            products.add(new Product(
                 "LG UltraWide 34\" 5K",
                 "Monitor ultrawide para productividad con USB-C y calibración de color profesional",
                 new BigDecimal("1299.99"),
@@ -118,7 +120,7 @@ public class DataLoader implements CommandLineRunner {
             ));
 
             // AUDÍFONOS
-            productRepository.save(new Product(
+            products.add(new Product(
                 "AirPods Pro 2da Gen",
                 "Audífonos inalámbricos con cancelación activa de ruido mejorada y audio espacial",
                 new BigDecimal("249.99"),
@@ -127,7 +129,7 @@ public class DataLoader implements CommandLineRunner {
                 "audifonos"
             ));
 
-            productRepository.save(new Product(
+            products.add(new Product(
                 "Sony WH-1000XM5",
                 "Audífonos over-ear premium con la mejor cancelación de ruido y 30h de batería",
                 new BigDecimal("349.99"),
@@ -136,7 +138,7 @@ public class DataLoader implements CommandLineRunner {
                 "audifonos"
             ));
 
-            productRepository.save(new Product(
+            products.add(new Product(
                 "Bose QuietComfort Ultra",
                 "Audífonos de diadema con cancelación de ruido inmersiva y sonido espacial",
                 new BigDecimal("429.99"),
@@ -146,7 +148,7 @@ public class DataLoader implements CommandLineRunner {
             ));
 
             // TELÉFONOS
-            productRepository.save(new Product(
+            products.add(new Product(
                 "iPhone 15 Pro Max",
                 "El iPhone más avanzado con chip A17 Pro, cámara de 48MP y titanio",
                 new BigDecimal("1199.99"),
@@ -155,7 +157,7 @@ public class DataLoader implements CommandLineRunner {
                 "telefonos"
             ));
 
-            productRepository.save(new Product(
+            products.add(new Product(
                 "Samsung Galaxy S24 Ultra",
                 "Smartphone premium con S Pen, cámara de 200MP y pantalla Dynamic AMOLED 2X",
                 new BigDecimal("1299.99"),
@@ -165,7 +167,7 @@ public class DataLoader implements CommandLineRunner {
             ));
 
             // TABLETS
-            productRepository.save(new Product(
+            products.add(new Product(
                 "iPad Pro 12.9\" M2",
                 "Tablet profesional con chip M2, pantalla Liquid Retina XDR y soporte para Apple Pencil",
                 new BigDecimal("1099.99"),
@@ -175,7 +177,7 @@ public class DataLoader implements CommandLineRunner {
             ));
 
             // ACCESORIOS
-            productRepository.save(new Product(
+            products.add(new Product(
                 "Logitech MX Master 3S",
                 "Mouse inalámbrico ergonómico para productividad con scroll electromagnético",
                 new BigDecimal("99.99"),
@@ -184,7 +186,7 @@ public class DataLoader implements CommandLineRunner {
                 "accesorios"
             ));
 
-            productRepository.save(new Product(
+            products.add(new Product(
                 "Razer BlackWidow V4 Pro",
                 "Teclado mecánico gaming con switches Green, RGB Chroma y control de comandos",
                 new BigDecimal("229.99"),
@@ -193,6 +195,9 @@ public class DataLoader implements CommandLineRunner {
                 "accesorios"
             ));
 
+            // Un solo saveAll para que Hibernate agrupe los INSERT en batches JDBC
+            productRepository.saveAll(products);
+
             log.info("Productos cargados exitosamente");
         }
     }
@@ -272,6 +277,7 @@ public class DataLoader implements CommandLineRunner {
                 }
             }
             
+            productRepository.refreshAllRatings();
             log.info("Reseñas cargadas exitosamente");
         }
     }
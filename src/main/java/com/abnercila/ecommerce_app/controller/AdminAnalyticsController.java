@@ -0,0 +1,40 @@
+package com.abnercila.ecommerce_app.controller;
+
+import com.abnercila.ecommerce_app.dto.SalesReportResponse;
+import com.abnercila.ecommerce_app.model.SalesRollup;
+import com.abnercila.ecommerce_app.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminAnalyticsController {
+    
+    private final SalesRollupService salesRollupService;
+    
+    /**
+     * Ventas confirmadas en el rango [from, to), por total, categoría o producto
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<?> getSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "TOTAL") SalesRollup.Dimension dimension) {
+        try {
+            SalesReportResponse report = salesRollupService.getReport(from, to, dimension);
+            return ResponseEntity.ok(report);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.abnercila.ecommerce_app.controller;
+
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.service.HotSkuStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/inventory")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminInventoryController {
+    
+    private final HotSkuStockService hotSkuStockService;
+    
+    /**
+     * Activa el modo hot SKU (stock repartido en sub-contadores) para un producto en promoción
+     */
+    @PostMapping("/hot-skus/{productId}")
+    public ResponseEntity<Map<String, Object>> enableHotSku(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "8") int shards) {
+        try {
+            Product product = hotSkuStockService.enableHotMode(productId, shards);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "productId", product.getId(),
+                "shards", shards,
+                "stock", hotSkuStockService.getStock(productId)
+            ));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo activar el modo hot SKU: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Desactiva el modo hot SKU y consolida el stock en la fila del producto
+     */
+    @DeleteMapping("/hot-skus/{productId}")
+    public ResponseEntity<Map<String, Object>> disableHotSku(@PathVariable Long productId) {
+        try {
+            Product product = hotSkuStockService.disableHotMode(productId);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "productId", product.getId(),
+                "stock", product.getStock()
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.abnercila.ecommerce_app.controller;
+
+import com.abnercila.ecommerce_app.service.OptimisticRetryExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminMetricsController {
+    
+    private final OptimisticRetryExecutor retryExecutor;
+    
+    /**
+     * Conflictos y reintentos de bloqueo optimista por operación
+     */
+    @GetMapping("/optimistic-locking")
+    public ResponseEntity<Map<String, Map<String, Long>>> getOptimisticLockingMetrics() {
+        return ResponseEntity.ok(retryExecutor.getMetrics());
+    }
+}
@@ -0,0 +1,191 @@
+package com.abnercila.ecommerce_app.controller;
+
+import com.abnercila.ecommerce_app.dto.BulkStatusRequest;
+import com.abnercila.ecommerce_app.dto.BulkStatusResponse;
+import com.abnercila.ecommerce_app.dto.OrderPageResponse;
+import com.abnercila.ecommerce_app.dto.OrderResponse;
+import com.abnercila.ecommerce_app.dto.OrderSearchCriteria;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.service.OrderArchiveService;
+import com.abnercila.ecommerce_app.service.OrderBulkStatusService;
+import com.abnercila.ecommerce_app.service.OrderExportService;
+import com.abnercila.ecommerce_app.service.OrderService;
+import com.abnercila.ecommerce_app.service.UserOrderStatsService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/orders")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminOrderController {
+    
+    private final OrderService orderService;
+    private final UserOrderStatsService userOrderStatsService;
+    private final OrderExportService orderExportService;
+    private final OrderBulkStatusService orderBulkStatusService;
+    private final OrderArchiveService orderArchiveService;
+    
+    /**
+     * Buscar órdenes por email de envío, estado, estado de pago, fechas e importe
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            OrderSearchCriteria criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            OrderPageResponse page = orderService.searchOrders(criteria, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Cambiar el estado de una orden
+     */
+    @PutMapping("/{orderId}/status")
+    public ResponseEntity<?> updateStatus(
+            @PathVariable Long orderId,
+            @RequestParam Order.OrderStatus status) {
+        try {
+            OrderResponse order = orderService.updateOrderStatus(orderId, status);
+            return ResponseEntity.ok(order);
+        } catch (OptimisticLockingFailureException e) {
+            return conflict();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Reembolsar una orden entregada; su stock se devuelve de forma asíncrona
+     */
+    @PostMapping("/{orderId}/refund")
+    public ResponseEntity<?> refund(@PathVariable Long orderId) {
+        try {
+            OrderResponse order = orderService.refundOrder(orderId);
+            return ResponseEntity.ok(order);
+        } catch (OptimisticLockingFailureException e) {
+            return conflict();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Cambiar el estado de muchas órdenes a la vez, con resultado por orden
+     */
+    @PostMapping("/status/bulk")
+    public ResponseEntity<?> bulkUpdateStatus(@Valid @RequestBody BulkStatusRequest request) {
+        try {
+            BulkStatusResponse response = orderBulkStatusService.apply(request);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Cambiar el estado de pago de una orden
+     */
+    @PutMapping("/{orderId}/payment-status")
+    public ResponseEntity<?> updatePaymentStatus(
+            @PathVariable Long orderId,
+            @RequestParam Order.PaymentStatus status) {
+        try {
+            OrderResponse order = orderService.updatePaymentStatus(orderId, status);
+            return ResponseEntity.ok(order);
+        } catch (OptimisticLockingFailureException e) {
+            return conflict();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Reconstruir las estadísticas por usuario desde la tabla de órdenes
+     */
+    @PostMapping("/stats/reconcile")
+    public ResponseEntity<?> reconcileStats() {
+        int users = userOrderStatsService.reconcile();
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "message", "Estadísticas reconstruidas",
+            "users", users
+        ));
+    }
+    
+    /**
+     * Mover al archivo las órdenes terminadas antiguas sin esperar al job nocturno
+     */
+    @PostMapping("/archive")
+    public ResponseEntity<?> archiveOrders() {
+        int archived = orderArchiveService.archive();
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "message", "Órdenes archivadas",
+            "archived", archived
+        ));
+    }
+    
+    /**
+     * Exportar órdenes e items (una fila por item) en CSV o NDJSON, opcionalmente comprimido
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "CSV") OrderExportService.Format format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Order.OrderStatus status) {
+        
+        String filename = "orders." + format.name().toLowerCase() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : format == OrderExportService.Format.CSV ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+        
+        StreamingResponseBody body = out -> orderExportService.export(out, format, gzip, from, to, status);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+    
+    private ResponseEntity<Map<String, Object>> conflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+            "success", false,
+            "message", "La orden fue modificada por otro proceso, intenta de nuevo"
+        ));
+    }
+}
@@ -0,0 +1,70 @@
+package com.abnercila.ecommerce_app.controller;
+
+import com.abnercila.ecommerce_app.model.ShippingTaxRule;
+import com.abnercila.ecommerce_app.service.PricingRuleService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/pricing/rules")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminPricingController {
+    
+    private final PricingRuleService pricingRuleService;
+    
+    /**
+     * Reglas de envío e impuestos vigentes
+     */
+    @GetMapping
+    public ResponseEntity<List<ShippingTaxRule>> getRules() {
+        return ResponseEntity.ok(pricingRuleService.getRules());
+    }
+    
+    /**
+     * Crear una regla; el checkout la aplica en cuanto se confirma
+     */
+    @PostMapping
+    public ResponseEntity<?> createRule(@Valid @RequestBody ShippingTaxRule rule) {
+        try {
+            return ResponseEntity.ok(pricingRuleService.createRule(rule));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateRule(@PathVariable Long id, @Valid @RequestBody ShippingTaxRule rule) {
+        try {
+            return ResponseEntity.ok(pricingRuleService.updateRule(id, rule));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteRule(@PathVariable Long id) {
+        try {
+            pricingRuleService.deleteRule(id);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Regla eliminada"
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
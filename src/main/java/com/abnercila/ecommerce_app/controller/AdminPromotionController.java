@@ -0,0 +1,73 @@
+package com.abnercila.ecommerce_app.controller;
+
+import com.abnercila.ecommerce_app.model.Promotion;
+import com.abnercila.ecommerce_app.service.PromotionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/promotions")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminPromotionController {
+    
+    private final PromotionService promotionService;
+    
+    /**
+     * Todas las promociones, activas o no, con sus usos
+     */
+    @GetMapping
+    public ResponseEntity<List<Promotion>> getPromotions() {
+        return ResponseEntity.ok(promotionService.getPromotions());
+    }
+    
+    /**
+     * Crear una promoción automática o un cupón (si se indica código)
+     */
+    @PostMapping
+    public ResponseEntity<?> createPromotion(@Valid @RequestBody Promotion promotion) {
+        try {
+            return ResponseEntity.ok(promotionService.createPromotion(promotion));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updatePromotion(@PathVariable Long id, @Valid @RequestBody Promotion promotion) {
+        try {
+            return ResponseEntity.ok(promotionService.updatePromotion(id, promotion));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Desactivar una promoción; deja de aplicarse en cuanto se confirma
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deactivatePromotion(@PathVariable Long id) {
+        try {
+            promotionService.deactivatePromotion(id);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Promoción desactivada"
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.abnercila.ecommerce_app.controller;
 
 import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.OrderPageResponse;
 import com.abnercila.ecommerce_app.dto.OrderResponse;
+import com.abnercila.ecommerce_app.dto.OrderStatusResponse;
+import com.abnercila.ecommerce_app.dto.OrderSummaryResponse;
 import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.service.IdempotencyService;
 import com.abnercila.ecommerce_app.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -25,20 +30,22 @@ import java.util.Map;
 public class OrderController {
     
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
     
     @PostMapping("/checkout")
     public ResponseEntity<?> checkout(
             @Valid @RequestBody CheckoutRequest checkoutRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @AuthenticationPrincipal User user) {
         
         try {
             log.info("Procesando checkout para usuario: {}", user.getEmail());
             
-            OrderResponse order = orderService.createOrder(checkoutRequest, user);
+            OrderResponse order = idempotencyService.checkout(checkoutRequest, user, idempotencyKey);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
-                "message", "Orden creada exitosamente",
+                "message", "Orden creada, procesando pago",
                 "order", order
             ));
             
@@ -58,10 +65,18 @@ public class OrderController {
     }
     
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getUserOrders(@AuthenticationPrincipal User user) {
+    public ResponseEntity<?> getUserOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal User user) {
         try {
-            List<OrderResponse> orders = orderService.getUserOrders(user);
-            return ResponseEntity.ok(orders);
+            OrderPageResponse page = orderService.getUserOrdersPage(user, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
         } catch (Exception e) {
             log.error("Error al obtener órdenes del usuario", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -85,6 +100,33 @@ public class OrderController {
         }
     }
     
+    @GetMapping("/summary")
+    public ResponseEntity<?> getUserOrderSummaries(@AuthenticationPrincipal User user) {
+        try {
+            List<OrderSummaryResponse> summaries = orderService.getUserOrderSummaries(user);
+            return ResponseEntity.ok(summaries);
+        } catch (Exception e) {
+            log.error("Error al obtener el resumen de órdenes", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                "success", false,
+                "message", "Error al obtener las órdenes"
+            ));
+        }
+    }
+    
+    @GetMapping("/stats")
+    public ResponseEntity<?> getUserOrderStats(@AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.ok(orderService.getUserOrderStats(user));
+        } catch (Exception e) {
+            log.error("Error al obtener estadísticas de órdenes", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                "success", false,
+                "message", "Error al obtener las estadísticas"
+            ));
+        }
+    }
+    
     @GetMapping("/{orderId}")
     public ResponseEntity<?> getOrder(
             @PathVariable Long orderId,
@@ -101,17 +143,43 @@ public class OrderController {
         }
     }
     
+    @GetMapping("/{orderId}/status")
+    public ResponseEntity<?> getOrderStatus(
+            @PathVariable Long orderId,
+            @AuthenticationPrincipal User user) {
+        
+        try {
+            OrderStatusResponse status = orderService.getOrderStatus(orderId, user);
+            return ResponseEntity.ok(status);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @PostMapping("/{orderId}/cancel")
     public ResponseEntity<?> cancelOrder(
             @PathVariable Long orderId,
             @AuthenticationPrincipal User user) {
         
         try {
-            // TODO: Implementar cancelación de orden
+            OrderResponse order = orderService.cancelOrder(orderId, user);
             return ResponseEntity.ok(Map.of(
                 "success", true,
-                "message", "Orden cancelada exitosamente"
+                "message", "Orden cancelada exitosamente",
+                "order", order
+            ));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "message", "La orden fue modificada por otro proceso, intenta de nuevo"
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
             ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             log.error("Error al cancelar orden", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
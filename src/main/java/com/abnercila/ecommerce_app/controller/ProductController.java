@@ -1,7 +1,13 @@
 package com.abnercila.ecommerce_app.controller;
 
-import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.dto.ProductCard;
+import com.abnercila.ecommerce_app.dto.ProductDetail;
+import com.abnercila.ecommerce_app.dto.ProductListCriteria;
+import com.abnercila.ecommerce_app.dto.ProductSearchResponse;
+import com.abnercila.ecommerce_app.dto.ProductStockView;
+import com.abnercila.ecommerce_app.dto.ProductSuggestion;
 import com.abnercila.ecommerce_app.service.ProductService;
+import com.abnercila.ecommerce_app.service.ProductSuggestService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,27 +22,61 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ProductController {
 
+    public static final String SEARCH_SUGGESTION_HEADER = "X-Search-Suggestion";
+
     private final ProductService productService;
+    private final ProductSuggestService productSuggestService;
 
     @GetMapping
-    public List<Product> getAllProducts() {
+    public List<ProductCard> getAllProducts() {
         return productService.getAllProducts();
     }
 
+    /**
+     * Catálogo paginado por cursor, con filtros de categoría, precio y existencias
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> listProducts(
+            ProductListCriteria criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(productService.listProducts(criteria, cursor, size));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        Optional<Product> product = productService.getProductById(id);
+    public ResponseEntity<ProductDetail> getProductById(@PathVariable Long id) {
+        Optional<ProductDetail> product = productService.getProductDetail(id);
         return product.map(ResponseEntity::ok)
                       .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
-    public List<Product> searchProducts(@RequestParam String query) {
-        return productService.searchProducts(query);
+    public ResponseEntity<List<ProductCard>> searchProducts(@RequestParam String query,
+                                                            @RequestParam(defaultValue = "50") int limit) {
+        ProductSearchResponse result = productService.searchProducts(query, Math.min(limit, 200));
+        // El cuerpo sigue siendo la lista; la consulta corregida, si la hubo, viaja en un header
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.getSuggestion() != null) {
+            response.header(SEARCH_SUGGESTION_HEADER, result.getSuggestion());
+        }
+        return response.body(result.getProducts());
+    }
+
+    @GetMapping("/suggest")
+    public List<ProductSuggestion> suggest(@RequestParam String prefix,
+                                           @RequestParam(defaultValue = "10") int limit) {
+        return productSuggestService.suggest(prefix, limit);
     }
 
     @GetMapping("/category/{category}")
-    public List<Product> getProductsByCategory(@PathVariable String category) {
+    public List<ProductCard> getProductsByCategory(@PathVariable String category) {
         return productService.getProductsByCategory(category);
     }
 
@@ -48,7 +88,7 @@ public class ProductController {
     // Endpoints de inventario
     @GetMapping("/low-stock")
     public ResponseEntity<Map<String, Object>> getLowStockProducts() {
-        List<Product> lowStockProducts = productService.getLowStockProducts();
+        List<ProductCard> lowStockProducts = productService.getLowStockProducts();
         return ResponseEntity.ok(Map.of(
             "success", true,
             "products", lowStockProducts,
@@ -58,7 +98,7 @@ public class ProductController {
 
     @GetMapping("/out-of-stock")
     public ResponseEntity<Map<String, Object>> getOutOfStockProducts() {
-        List<Product> outOfStockProducts = productService.getOutOfStockProducts();
+        List<ProductCard> outOfStockProducts = productService.getOutOfStockProducts();
         return ResponseEntity.ok(Map.of(
             "success", true,
             "products", outOfStockProducts,
@@ -67,21 +107,10 @@ public class ProductController {
     }
 
     @GetMapping("/{id}/stock")
-    public ResponseEntity<Map<String, Object>> getProductStock(@PathVariable Long id) {
-        Optional<Product> product = productService.getProductById(id);
-        
-        if (product.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        Product p = product.get();
-        return ResponseEntity.ok(Map.of(
-            "productId", p.getId(),
-            "productName", p.getName(),
-            "stock", p.getStock(),
-            "isAvailable", p.getStock() > 0,
-            "isLowStock", p.getStock() < 10
-        ));
+    public ResponseEntity<ProductStockView> getProductStock(@PathVariable Long id) {
+        return productService.getProductStock(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/{id}/check-stock")
@@ -89,18 +118,17 @@ public class ProductController {
             @PathVariable Long id, 
             @RequestParam int quantity) {
         
-        boolean hasStock = productService.hasEnoughStock(id, quantity);
-        Optional<Product> product = productService.getProductById(id);
+        Optional<Integer> availableToPromise = productService.getAvailableToPromise(id);
         
-        if (product.isEmpty()) {
+        if (availableToPromise.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         
-        Product p = product.get();
+        boolean hasStock = availableToPromise.get() >= quantity;
         return ResponseEntity.ok(Map.of(
             "productId", id,
             "requestedQuantity", quantity,
-            "availableStock", p.getStock(),
+            "availableStock", availableToPromise.get(),
             "hasEnoughStock", hasStock,
             "message", hasStock ? "Stock disponible" : "Stock insuficiente"
         ));
@@ -0,0 +1,71 @@
+package com.abnercila.ecommerce_app.controller;
+
+import com.abnercila.ecommerce_app.dto.ReservationRequest;
+import com.abnercila.ecommerce_app.dto.ReservationResponse;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.service.ReservationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reservations")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "http://localhost:5173")
+public class ReservationController {
+    
+    private final ReservationService reservationService;
+    
+    /**
+     * Apartar unidades de un producto durante un tiempo limitado
+     */
+    @PostMapping
+    public ResponseEntity<?> reserve(
+            @Valid @RequestBody ReservationRequest request,
+            @AuthenticationPrincipal User user) {
+        try {
+            ReservationResponse reservation = reservationService.reserve(user, request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo crear la reserva: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Reservas activas del usuario
+     */
+    @GetMapping
+    public ResponseEntity<List<ReservationResponse>> getReservations(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(reservationService.getActiveReservations(user));
+    }
+    
+    /**
+     * Liberar una reserva antes de que expire
+     */
+    @DeleteMapping("/{reservationId}")
+    public ResponseEntity<?> release(
+            @PathVariable Long reservationId,
+            @AuthenticationPrincipal User user) {
+        try {
+            reservationService.release(user, reservationId);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.abnercila.ecommerce_app.dto;
+
+import com.abnercila.ecommerce_app.model.Order;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Transición masiva de estado. Se indica una lista de órdenes o un filtro por estado
+ * actual; con el filtro se toman las órdenes más antiguas hasta el límite del lote.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusRequest {
+    
+    private List<Long> orderIds;
+    
+    private Order.OrderStatus currentStatus;
+    
+    @NotNull(message = "El estado destino es requerido")
+    private Order.OrderStatus targetStatus;
+}
@@ -23,6 +23,12 @@ public class CheckoutRequest {
     
     private String notes;
     
+    // Cupón de descuento opcional
+    private String couponCode;
+    
+    // Reservas de stock del usuario que se convierten en esta orden
+    private List<Long> reservationIds;
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
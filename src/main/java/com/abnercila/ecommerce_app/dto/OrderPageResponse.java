@@ -0,0 +1,21 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página del historial de órdenes. nextCursor se envía tal cual en la siguiente
+ * petición; es null cuando no quedan más órdenes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+    
+    private List<OrderResponse> orders;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -21,6 +21,8 @@ public class OrderResponse {
     private BigDecimal subtotal;
     private BigDecimal shippingCost;
     private BigDecimal taxAmount;
+    private BigDecimal discountAmount;
+    private String couponCode;
     private LocalDateTime createdAt;
     private LocalDateTime estimatedDelivery;
     
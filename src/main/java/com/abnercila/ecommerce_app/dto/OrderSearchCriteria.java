@@ -0,0 +1,36 @@
+package com.abnercila.ecommerce_app.dto;
+
+import com.abnercila.ecommerce_app.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Filtros de la búsqueda de órdenes para soporte; todos son opcionales y se combinan con AND
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchCriteria {
+    
+    private String email;
+    private Order.OrderStatus status;
+    private Order.PaymentStatus paymentStatus;
+    
+    // Rango de creación: from inclusive, to exclusivo
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    
+    // Buscar en orders_archive en lugar de en las órdenes vivas
+    private boolean archived;
+}
@@ -0,0 +1,17 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusResponse {
+    
+    private Long orderId;
+    private String orderNumber;
+    private String status;
+    private String paymentStatus;
+    private String transactionId;
+}
@@ -0,0 +1,25 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Resumen de una orden para las vistas de listado; se construye directamente
+ * desde la consulta, sin cargar la orden ni sus items
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+    
+    private Long id;
+    private String orderNumber;
+    private String status;
+    private BigDecimal totalAmount;
+    private LocalDateTime createdAt;
+    private Long itemCount;
+}
@@ -0,0 +1,33 @@
+package com.abnercila.ecommerce_app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Producto tal como se muestra en listados y resultados de búsqueda. Se carga con una
+ * proyección por constructor, sin pasar por la entidad ni por sus reseñas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCard {
+    
+    private Long id;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private String imageUrl;
+    private String category;
+    private int stock; // Incluye los sub-contadores de los hot SKU
+    private BigDecimal averageRating;
+    private int reviewCount;
+    private LocalDateTime createdAt;
+    
+    @JsonIgnore
+    private boolean hotSku;
+}
@@ -0,0 +1,40 @@
+package com.abnercila.ecommerce_app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ficha de un producto: los datos de la tarjeta más lo disponible para prometer, que
+ * descuenta las unidades apartadas por otros compradores
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDetail {
+    
+    private Long id;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private String imageUrl;
+    private String category;
+    private int stock;
+    private int availableToPromise;
+    private BigDecimal averageRating;
+    private int reviewCount;
+    private LocalDateTime createdAt;
+    
+    @JsonIgnore
+    private boolean hotSku;
+    
+    // Proyección JPQL: availableToPromise se completa después con las reservas en memoria
+    public ProductDetail(Long id, String name, String description, BigDecimal price, String imageUrl, String category,
+                         int stock, BigDecimal averageRating, int reviewCount, LocalDateTime createdAt, boolean hotSku) {
+        this(id, name, description, price, imageUrl, category, stock, stock, averageRating, reviewCount, createdAt, hotSku);
+    }
+}
@@ -0,0 +1,36 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Filtros y orden del listado paginado del catálogo; los filtros son opcionales y se
+ * combinan con AND
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductListCriteria {
+    
+    private String category;
+    
+    // Rango de precio, ambos extremos inclusivos
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    
+    // Solo productos con existencias
+    private boolean inStock;
+    
+    private SortBy sort = SortBy.NEWEST;
+    
+    public enum SortBy {
+        PRICE_ASC,
+        PRICE_DESC,
+        NAME,
+        RATING,
+        NEWEST
+    }
+}
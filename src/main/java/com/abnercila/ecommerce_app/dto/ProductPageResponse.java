@@ -0,0 +1,21 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página del catálogo. nextCursor se envía tal cual en la siguiente petición junto con
+ * los mismos filtros y orden; es null cuando no quedan más productos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+    
+    private List<ProductCard> products;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,16 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResponse {
+    
+    private List<ProductCard> products;
+    private String suggestion; // Consulta corregida ("¿quisiste decir...?"), null si no hubo corrección
+}
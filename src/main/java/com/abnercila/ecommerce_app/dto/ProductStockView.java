@@ -0,0 +1,20 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Existencias de un producto para el indicador de stock
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockView {
+    
+    private Long productId;
+    private String productName;
+    private Integer stock;
+    private Boolean isAvailable;
+    private Boolean isLowStock;
+}
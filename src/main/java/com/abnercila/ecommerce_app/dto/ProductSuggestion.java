@@ -0,0 +1,16 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestion {
+    
+    private String text;
+    private String type; // PRODUCT o CATEGORY
+    private Long productId;
+    private String category;
+}
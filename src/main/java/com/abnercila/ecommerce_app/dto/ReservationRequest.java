@@ -0,0 +1,26 @@
+package com.abnercila.ecommerce_app.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationRequest {
+    
+    @NotNull(message = "El ID del producto es requerido")
+    private Long productId;
+    
+    @NotNull(message = "La cantidad es requerida")
+    @Min(value = 1, message = "La cantidad debe ser al menos 1")
+    private Integer quantity;
+    
+    // Duración de la reserva; si no se indica se usa el valor por defecto
+    @Min(value = 60, message = "La reserva debe durar al menos 60 segundos")
+    @Max(value = 3600, message = "La reserva no puede durar más de una hora")
+    private Integer ttlSeconds;
+}
@@ -0,0 +1,30 @@
+package com.abnercila.ecommerce_app.dto;
+
+import com.abnercila.ecommerce_app.model.StockReservation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationResponse {
+    
+    private Long id;
+    private Long productId;
+    private Integer quantity;
+    private String status;
+    private LocalDateTime expiresAt;
+    
+    public static ReservationResponse fromReservation(StockReservation reservation) {
+        return new ReservationResponse(
+            reservation.getId(),
+            reservation.getProductId(),
+            reservation.getQuantity(),
+            reservation.getStatus().toString(),
+            reservation.getExpiresAt()
+        );
+    }
+}
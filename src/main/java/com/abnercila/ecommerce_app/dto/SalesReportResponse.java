@@ -0,0 +1,32 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReportResponse {
+    
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String dimension;
+    private List<Row> rows;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private String key;
+        private BigDecimal revenue;
+        private BigDecimal tax;
+        private BigDecimal shipping;
+        private long units;
+        private long orderCount;
+    }
+}
@@ -0,0 +1,23 @@
+package com.abnercila.ecommerce_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserOrderStatsResponse {
+    
+    private Long userId;
+    private long orderCount;
+    private BigDecimal totalSpent;
+    private LocalDateTime lastOrderAt;
+    private Map<String, Long> ordersByStatus;
+}
@@ -0,0 +1,111 @@
+package com.abnercila.ecommerce_app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Copia de solo lectura de una orden terminada movida fuera de orders por el job de
+ * archivado. Conserva el id y todas las columnas de la orden original; el usuario se
+ * guarda como id para no depender de la tabla users.
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+    @Index(name = "idx_orders_archive_user_created_at", columnList = "user_id, created_at"),
+    @Index(name = "idx_orders_archive_shipping_email_created_at", columnList = "shipping_email, created_at"),
+    @Index(name = "idx_orders_archive_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrder {
+    
+    @Id
+    private Long id;
+    
+    private Long version;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "order_number", unique = true, nullable = false)
+    private String orderNumber;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.OrderStatus status;
+    
+    @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalAmount;
+    
+    @Column(name = "subtotal", nullable = false, precision = 10, scale = 2)
+    private BigDecimal subtotal;
+    
+    @Column(name = "shipping_cost", nullable = false, precision = 10, scale = 2)
+    private BigDecimal shippingCost;
+    
+    @Column(name = "tax_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal taxAmount;
+    
+    // Descuento total de promociones y cupón, ya restado del subtotal en totalAmount
+    @Column(name = "discount_amount", precision = 10, scale = 2)
+    private BigDecimal discountAmount;
+    
+    @Column(name = "coupon_code", length = 50)
+    private String couponCode;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "estimated_delivery")
+    private LocalDateTime estimatedDelivery;
+    
+    @Column(name = "shipping_name", nullable = false)
+    private String shippingName;
+    
+    @Column(name = "shipping_email", nullable = false)
+    private String shippingEmail;
+    
+    @Column(name = "shipping_phone")
+    private String shippingPhone;
+    
+    @Column(name = "shipping_address", nullable = false)
+    private String shippingAddress;
+    
+    @Column(name = "shipping_city", nullable = false)
+    private String shippingCity;
+    
+    @Column(name = "shipping_state", nullable = false)
+    private String shippingState;
+    
+    @Column(name = "shipping_postal_code", nullable = false)
+    private String shippingPostalCode;
+    
+    @Column(name = "shipping_country", nullable = false)
+    private String shippingCountry;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false)
+    private Order.PaymentMethod paymentMethod;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
+    private Order.PaymentStatus paymentStatus;
+    
+    @Column(name = "payment_transaction_id")
+    private String paymentTransactionId;
+    
+    @Column(name = "notes")
+    private String notes;
+    
+    @OneToMany(mappedBy = "order", fetch = FetchType.LAZY)
+    private List<ArchivedOrderItem> orderItems;
+}
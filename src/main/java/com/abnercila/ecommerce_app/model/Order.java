@@ -7,18 +7,38 @@ import lombok.AllArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_user_created_at", columnList = "user_id, created_at"),
+    @Index(name = "idx_orders_user_status_created_at", columnList = "user_id, status, created_at"),
+    // Búsqueda de soporte: los filtros de igualdad seguidos de la columna de orden
+    @Index(name = "idx_orders_shipping_email_created_at", columnList = "shipping_email, created_at"),
+    @Index(name = "idx_orders_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_orders_payment_status_created_at", columnList = "payment_status, created_at"),
+    @Index(name = "idx_orders_status_payment_status_created_at", columnList = "status, payment_status, created_at"),
+    // Rango de montos en el orden del listado: se recorre por fecha y el monto se filtra en el propio índice
+    @Index(name = "idx_orders_created_at_total_amount", columnList = "created_at, total_amount"),
+    // Rangos de montos muy selectivos: pocas filas que se ordenan después
+    @Index(name = "idx_orders_total_amount", columnList = "total_amount")
+    // Sin índice propio a propósito: el e-mail ya es muy selectivo y el resto de filtros se
+    // aplican sobre sus filas; un estado con rango de montos usa (status, created_at)
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
+    // Bloqueo optimista: detecta escrituras concurrentes sobre la misma fila
+    @Version
+    private Long version;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -42,6 +62,13 @@ public class Order {
     @Column(name = "tax_amount", nullable = false, precision = 10, scale = 2)
     private BigDecimal taxAmount;
     
+    // Descuento total de promociones y cupón, ya restado del subtotal en totalAmount
+    @Column(name = "discount_amount", precision = 10, scale = 2)
+    private BigDecimal discountAmount;
+    
+    @Column(name = "coupon_code", length = 50)
+    private String couponCode;
+    
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
@@ -97,9 +124,6 @@ public class Order {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
-        if (orderNumber == null) {
-            orderNumber = generateOrderNumber();
-        }
     }
     
     @PreUpdate
@@ -107,8 +131,11 @@ public class Order {
         updatedAt = LocalDateTime.now();
     }
     
-    private String generateOrderNumber() {
-        return "ORD-" + System.currentTimeMillis();
+    /**
+     * Forma canónica del e-mail de envío: la búsqueda de soporte lo compara por igualdad
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
     
     public enum OrderStatus {
@@ -118,7 +145,23 @@ public class Order {
         SHIPPED,
         DELIVERED,
         CANCELLED,
-        REFUNDED
+        REFUNDED;
+        
+        /**
+         * Reglas de la máquina de estados: una orden solo avanza, se cancela antes de
+         * enviarse o se reembolsa una vez entregada. Una orden PENDING solo la resuelve la
+         * etapa de pago (PaymentProcessor), así que ninguna transición manual parte de ella:
+         * cancelarla mientras el cobro está en curso dejaría al cliente cobrado y la orden cancelada
+         */
+        public boolean canTransitionTo(OrderStatus next) {
+            return switch (this) {
+                case CONFIRMED -> next == PROCESSING || next == CANCELLED;
+                case PROCESSING -> next == SHIPPED || next == CANCELLED;
+                case SHIPPED -> next == DELIVERED;
+                case DELIVERED -> next == REFUNDED;
+                case PENDING, CANCELLED, REFUNDED -> false;
+            };
+        }
     }
     
     public enum PaymentMethod {
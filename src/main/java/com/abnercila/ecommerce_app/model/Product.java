@@ -4,17 +4,36 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(name = "product", indexes = {
+    // Listado paginado: cada orden con id como desempate, con y sin filtro de categoría
+    @Index(name = "idx_product_price", columnList = "price, id"),
+    @Index(name = "idx_product_name", columnList = "name, id"),
+    @Index(name = "idx_product_rating", columnList = "average_rating, id"),
+    @Index(name = "idx_product_created_at", columnList = "created_at, id"),
+    @Index(name = "idx_product_category_price", columnList = "category, price, id"),
+    @Index(name = "idx_product_category_name", columnList = "category, name, id"),
+    @Index(name = "idx_product_category_rating", columnList = "category, average_rating, id"),
+    @Index(name = "idx_product_category_created_at", columnList = "category, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
+    
+    // Bloqueo optimista: detecta escrituras concurrentes sobre la misma fila
+    @Version
+    private Long version;
     private String name;
     private String description;
     private BigDecimal price;
@@ -22,6 +41,21 @@ public class Product {
     private String imageUrl;
     private String category; // Nueva propiedad para categorías
     
+    // Modo "hot SKU": el stock vive repartido en ProductStockShard y esta columna queda en 0
+    @Column(name = "hot_sku", nullable = false)
+    private boolean hotSku = false;
+    
+    // Promedio y número de reseñas, recalculados por ReviewService para ordenar sin agregar
+    @Column(name = "average_rating", nullable = false, precision = 3, scale = 2)
+    private BigDecimal averageRating = BigDecimal.ZERO;
+    
+    @Column(name = "review_count", nullable = false)
+    private int reviewCount = 0;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
     // Relación con reseñas
     @OneToMany(mappedBy = "product", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private List<Review> reviews;
@@ -0,0 +1,40 @@
+package com.abnercila.ecommerce_app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sub-contador de stock para productos en modo "hot SKU".
+ * El stock de un producto en promoción se reparte entre varias filas para que
+ * los checkouts concurrentes no compitan por el bloqueo de una sola fila.
+ */
+@Entity
+@Table(name = "product_stock_shard",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "shard_index"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockShard {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_stock_shard_seq")
+    @SequenceGenerator(name = "product_stock_shard_seq", sequenceName = "product_stock_shard_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "shard_index", nullable = false)
+    private int shardIndex;
+    
+    @Column(nullable = false)
+    private int stock;
+    
+    public ProductStockShard(Long productId, int shardIndex, int stock) {
+        this.productId = productId;
+        this.shardIndex = shardIndex;
+        this.stock = stock;
+    }
+}
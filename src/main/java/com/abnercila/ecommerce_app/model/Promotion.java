@@ -0,0 +1,97 @@
+package com.abnercila.ecommerce_app.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Promoción de checkout. Sin código se aplica sola a los carritos que cumplan su alcance;
+ * con código es un cupón que el cliente debe indicar. El alcance es un producto, una
+ * categoría o el carrito completo a partir de un subtotal mínimo.
+ */
+@Entity
+@Table(name = "promotions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Promotion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "promotions_seq")
+    @SequenceGenerator(name = "promotions_seq", sequenceName = "promotions_seq", allocationSize = 50)
+    private Long id;
+    
+    @NotBlank(message = "El nombre es requerido")
+    @Column(nullable = false)
+    private String name;
+    
+    // Código de cupón; null para promociones automáticas
+    @Size(max = 50, message = "El código no puede superar 50 caracteres")
+    @Column(unique = true, length = 50)
+    private String code;
+    
+    @NotNull(message = "El tipo de descuento es requerido")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "discount_type", nullable = false)
+    private DiscountType discountType;
+    
+    // Porcentaje (10 = 10%) o importe fijo según el tipo
+    @NotNull(message = "El valor del descuento es requerido")
+    @DecimalMin(value = "0.01", message = "El valor del descuento debe ser positivo")
+    @Column(name = "discount_value", nullable = false, precision = 10, scale = 2)
+    private BigDecimal discountValue;
+    
+    @NotNull(message = "El alcance es requerido")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Scope scope;
+    
+    // Solo para alcance PRODUCT
+    @Column(name = "product_id")
+    private Long productId;
+    
+    // Solo para alcance CATEGORY
+    private String category;
+    
+    // Subtotal mínimo del carrito para que la promoción aplique
+    @DecimalMin(value = "0.00", message = "El subtotal mínimo no puede ser negativo")
+    @Column(name = "min_subtotal", precision = 10, scale = 2)
+    private BigDecimal minSubtotal;
+    
+    // Usos máximos; null = ilimitada
+    @Min(value = 1, message = "El máximo de usos debe ser al menos 1")
+    @Column(name = "max_redemptions")
+    private Integer maxRedemptions;
+    
+    @Column(name = "redemption_count", nullable = false)
+    private int redemptionCount;
+    
+    @Column(name = "starts_at")
+    private LocalDateTime startsAt;
+    
+    @Column(name = "ends_at")
+    private LocalDateTime endsAt;
+    
+    @Column(nullable = false)
+    private boolean active = true;
+    
+    public enum DiscountType {
+        PERCENTAGE,
+        FIXED_AMOUNT
+    }
+    
+    public enum Scope {
+        PRODUCT,
+        CATEGORY,
+        CART
+    }
+}
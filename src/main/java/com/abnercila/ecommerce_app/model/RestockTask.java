@@ -0,0 +1,39 @@
+package com.abnercila.ecommerce_app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Unidades pendientes de devolver al inventario. Se insertan en la misma transacción
+ * que cancela o reembolsa la orden y un consumidor en segundo plano las agrupa por
+ * producto antes de tocar la fila del producto.
+ */
+@Entity
+@Table(name = "restock_queue")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RestockTask {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restock_queue_seq")
+    @SequenceGenerator(name = "restock_queue_seq", sequenceName = "restock_queue_seq", allocationSize = 50)
+    private Long id;
+    
+    // Orden que originó la devolución; null para devoluciones manuales
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,70 @@
+package com.abnercila.ecommerce_app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Acumulado de ventas confirmadas en un intervalo de tiempo (hora o día) para una
+ * dimensión: el total de la tienda, una categoría o un producto. Los reportes suman
+ * estos buckets en lugar de recorrer orders y order_items.
+ */
+@Entity
+@Table(name = "sales_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollup_bucket",
+               columnNames = {"granularity", "dimension", "bucket_start", "dimension_key"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_rollups_seq")
+    @SequenceGenerator(name = "sales_rollups_seq", sequenceName = "sales_rollups_seq", allocationSize = 50)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Granularity granularity;
+    
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Dimension dimension;
+    
+    // Nombre de la categoría o id del producto; "ALL" para el total
+    @Column(name = "dimension_key", nullable = false)
+    private String dimensionKey;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal tax;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal shipping;
+    
+    @Column(nullable = false)
+    private long units;
+    
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+    
+    public enum Granularity {
+        HOUR,
+        DAY
+    }
+    
+    public enum Dimension {
+        TOTAL,
+        CATEGORY,
+        PRODUCT
+    }
+}
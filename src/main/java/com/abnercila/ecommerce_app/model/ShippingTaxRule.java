@@ -0,0 +1,67 @@
+package com.abnercila.ecommerce_app.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Regla de envío e impuestos para un destino. Aplica a todo el país, a un estado
+ * o a los códigos postales que empiezan por un prefijo; gana la regla más específica.
+ * Un importe o tasa null se hereda de la regla menos específica que lo defina.
+ */
+@Entity
+@Table(name = "shipping_tax_rules", indexes = {
+    @Index(name = "idx_shipping_tax_rules_country", columnList = "country")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShippingTaxRule {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shipping_tax_rules_seq")
+    @SequenceGenerator(name = "shipping_tax_rules_seq", sequenceName = "shipping_tax_rules_seq", allocationSize = 50)
+    private Long id;
+    
+    @NotBlank(message = "El país es requerido")
+    @Size(max = 100, message = "El país no puede superar 100 caracteres")
+    @Column(nullable = false, length = 100)
+    private String country;
+    
+    // null: todos los estados del país
+    @Size(max = 100, message = "El estado no puede superar 100 caracteres")
+    @Column(length = 100)
+    private String state;
+    
+    // null: todos los códigos postales; si se indica, la regla ignora el estado
+    @Size(max = 20, message = "El prefijo postal no puede superar 20 caracteres")
+    @Column(name = "postal_prefix", length = 20)
+    private String postalPrefix;
+    
+    @DecimalMin(value = "0.00", message = "El costo de envío no puede ser negativo")
+    @Column(name = "shipping_cost", precision = 10, scale = 2)
+    private BigDecimal shippingCost;
+    
+    // Tasa como fracción: 0.16 = 16%
+    @DecimalMin(value = "0.0000", message = "La tasa de impuesto no puede ser negativa")
+    @DecimalMax(value = "1.0000", message = "La tasa de impuesto no puede superar 1")
+    @Column(name = "tax_rate", precision = 6, scale = 4)
+    private BigDecimal taxRate;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
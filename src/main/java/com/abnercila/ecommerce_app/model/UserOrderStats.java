@@ -0,0 +1,61 @@
+package com.abnercila.ecommerce_app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Estadísticas de compra por usuario, mantenidas de forma incremental en la misma
+ * transacción que crea la orden o cambia su estado. Evita recorrer todo el historial
+ * con COUNT y SUM en cada consulta.
+ */
+@Entity
+@Table(name = "user_order_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserOrderStats {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+    
+    // Gasto acumulado de las órdenes no canceladas
+    @Column(name = "total_spent", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalSpent;
+    
+    @Column(name = "last_order_at")
+    private LocalDateTime lastOrderAt;
+    
+    // Una columna por estado; el nombre se deriva de Order.OrderStatus
+    @Column(name = "pending_count", nullable = false)
+    private long pendingCount;
+    
+    @Column(name = "confirmed_count", nullable = false)
+    private long confirmedCount;
+    
+    @Column(name = "processing_count", nullable = false)
+    private long processingCount;
+    
+    @Column(name = "shipped_count", nullable = false)
+    private long shippedCount;
+    
+    @Column(name = "delivered_count", nullable = false)
+    private long deliveredCount;
+    
+    @Column(name = "cancelled_count", nullable = false)
+    private long cancelledCount;
+    
+    @Column(name = "refunded_count", nullable = false)
+    private long refundedCount;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
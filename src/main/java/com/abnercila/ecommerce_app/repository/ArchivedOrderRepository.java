@@ -0,0 +1,57 @@
+package com.abnercila.ecommerce_app.repository;
+
+import com.abnercila.ecommerce_app.dto.OrderStatusResponse;
+import com.abnercila.ecommerce_app.dto.OrderSummaryResponse;
+import com.abnercila.ecommerce_app.model.ArchivedOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long>, JpaSpecificationExecutor<ArchivedOrder> {
+    
+    @EntityGraph(attributePaths = "orderItems")
+    List<ArchivedOrder> findByUserIdOrderByCreatedAtDescIdDesc(Long userId);
+    
+    boolean existsByUserId(Long userId);
+    
+    // Mismo keyset sobre (createdAt, id) que el historial de orders
+    @Query("SELECT o.id FROM ArchivedOrder o WHERE o.userId = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIds(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT o.id FROM ArchivedOrder o WHERE o.userId = :userId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIdsBefore(@Param("userId") Long userId,
+                                 @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable pageable);
+    
+    @EntityGraph(attributePaths = "orderItems")
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.id IN :ids ORDER BY o.createdAt DESC, o.id DESC")
+    List<ArchivedOrder> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @EntityGraph(attributePaths = "orderItems")
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.userId = :userId AND o.id = :orderId")
+    Optional<ArchivedOrder> findByUserIdAndId(@Param("userId") Long userId, @Param("orderId") Long orderId);
+    
+    @Query("SELECT new com.abnercila.ecommerce_app.dto.OrderStatusResponse(o.id, o.orderNumber, " +
+           "CAST(o.status AS String), CAST(o.paymentStatus AS String), o.paymentTransactionId) " +
+           "FROM ArchivedOrder o WHERE o.userId = :userId AND o.id = :orderId")
+    Optional<OrderStatusResponse> findStatusByUserIdAndId(@Param("userId") Long userId, @Param("orderId") Long orderId);
+    
+    @Query("SELECT new com.abnercila.ecommerce_app.dto.OrderSummaryResponse(o.id, o.orderNumber, " +
+           "CAST(o.status AS String), o.totalAmount, o.createdAt, COALESCE(SUM(i.quantity), 0L)) " +
+           "FROM ArchivedOrder o LEFT JOIN o.orderItems i WHERE o.userId = :userId " +
+           "GROUP BY o.id, o.orderNumber, o.status, o.totalAmount, o.createdAt " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryResponse> findSummariesByUserId(@Param("userId") Long userId);
+}
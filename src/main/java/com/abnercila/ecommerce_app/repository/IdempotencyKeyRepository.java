@@ -0,0 +1,24 @@
+package com.abnercila.ecommerce_app.repository;
+
+import com.abnercila.ecommerce_app.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+    
+    // Orden creada previamente con esta clave
+    @Query("SELECT k.orderId FROM IdempotencyKey k WHERE k.userId = :userId AND k.idempotencyKey = :key")
+    Optional<Long> findOrderId(@Param("userId") Long userId, @Param("key") String key);
+    
+    // Elimina las claves que ya superaron la ventana de reintentos
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :createdBefore")
+    int deleteCreatedBefore(@Param("createdBefore") LocalDateTime createdBefore);
+}
@@ -1,29 +1,64 @@
 package com.abnercila.ecommerce_app.repository;
 
+import com.abnercila.ecommerce_app.dto.OrderStatusResponse;
+import com.abnercila.ecommerce_app.dto.OrderSummaryResponse;
 import com.abnercila.ecommerce_app.model.Order;
 import com.abnercila.ecommerce_app.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
     
+    @EntityGraph(attributePaths = "orderItems")
     List<Order> findByUserOrderByCreatedAtDesc(User user);
     
+    // Primera página del historial: solo ids, para que el LIMIT se aplique en la base de datos
+    @Query("SELECT o.id FROM Order o WHERE o.user = :user ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIds(@Param("user") User user, Pageable pageable);
+    
+    // Páginas siguientes: keyset sobre (createdAt, id), sin OFFSET
+    @Query("SELECT o.id FROM Order o WHERE o.user = :user " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIdsBefore(@Param("user") User user,
+                                 @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable pageable);
+    
+    // Órdenes de la página con sus items en una sola consulta
+    @EntityGraph(attributePaths = "orderItems")
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
     Optional<Order> findByOrderNumber(String orderNumber);
     
     List<Order> findByUserAndStatusOrderByCreatedAtDesc(User user, Order.OrderStatus status);
     
+    @EntityGraph(attributePaths = "orderItems")
     @Query("SELECT o FROM Order o WHERE o.user = :user AND o.id = :orderId")
     Optional<Order> findByUserAndId(@Param("user") User user, @Param("orderId") Long orderId);
     
-    @Query("SELECT COUNT(o) FROM Order o WHERE o.user = :user")
-    Long countOrdersByUser(@Param("user") User user);
+    // Solo estado y pago, sin cargar la entidad ni sus items
+    @Query("SELECT new com.abnercila.ecommerce_app.dto.OrderStatusResponse(o.id, o.orderNumber, " +
+           "CAST(o.status AS String), CAST(o.paymentStatus AS String), o.paymentTransactionId) " +
+           "FROM Order o WHERE o.user = :user AND o.id = :orderId")
+    Optional<OrderStatusResponse> findStatusByUserAndId(@Param("user") User user, @Param("orderId") Long orderId);
     
-    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.user = :user AND o.status != 'CANCELLED'")
-    Optional<java.math.BigDecimal> getTotalSpentByUser(@Param("user") User user);
+    // Resumen para listados: el número de unidades se suma en SQL
+    @Query("SELECT new com.abnercila.ecommerce_app.dto.OrderSummaryResponse(o.id, o.orderNumber, " +
+           "CAST(o.status AS String), o.totalAmount, o.createdAt, COALESCE(SUM(i.quantity), 0L)) " +
+           "FROM Order o LEFT JOIN o.orderItems i WHERE o.user = :user " +
+           "GROUP BY o.id, o.orderNumber, o.status, o.totalAmount, o.createdAt " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryResponse> findSummariesByUser(@Param("user") User user);
 }
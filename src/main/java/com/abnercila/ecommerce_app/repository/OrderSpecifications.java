@@ -0,0 +1,63 @@
+package com.abnercila.ecommerce_app.repository;
+
+import com.abnercila.ecommerce_app.dto.OrderSearchCriteria;
+import com.abnercila.ecommerce_app.model.Order;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Specifications de la búsqueda de órdenes. Usan solo nombres de atributo comunes a
+ * Order y ArchivedOrder, así la misma búsqueda sirve para las órdenes vivas y el archivo.
+ * Los filtros de igualdad tienen índices compuestos terminados en created_at que resuelven
+ * también el orden por fecha del keyset (ver los índices de Order). El e-mail se compara en
+ * su forma canónica, la misma con la que se guarda en el checkout.
+ */
+public final class OrderSpecifications {
+    
+    private OrderSpecifications() {
+    }
+    
+    /**
+     * Órdenes que cumplen todos los filtros indicados
+     */
+    public static <T> Specification<T> matching(OrderSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (criteria.getEmail() != null && !criteria.getEmail().isBlank()) {
+                predicates.add(cb.equal(root.get("shippingEmail"), Order.normalizeEmail(criteria.getEmail())));
+            }
+            if (criteria.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), criteria.getStatus()));
+            }
+            if (criteria.getPaymentStatus() != null) {
+                predicates.add(cb.equal(root.get("paymentStatus"), criteria.getPaymentStatus()));
+            }
+            if (criteria.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), criteria.getFrom()));
+            }
+            if (criteria.getTo() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), criteria.getTo()));
+            }
+            if (criteria.getMinAmount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("totalAmount"), criteria.getMinAmount()));
+            }
+            if (criteria.getMaxAmount() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("totalAmount"), criteria.getMaxAmount()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    /**
+     * Keyset sobre (createdAt, id) descendente: órdenes posteriores en el listado al cursor
+     */
+    public static <T> Specification<T> before(LocalDateTime createdAt, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), createdAt),
+                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+    }
+}
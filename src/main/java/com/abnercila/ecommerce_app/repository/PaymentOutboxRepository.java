@@ -0,0 +1,63 @@
+package com.abnercila.ecommerce_app.repository;
+
+import com.abnercila.ecommerce_app.model.PaymentOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PaymentOutboxRepository extends JpaRepository<PaymentOutbox, Long> {
+    
+    // Cobros pendientes cuyo backoff ya venció, en orden de llegada
+    @Query("SELECT p.id FROM PaymentOutbox p " +
+           "WHERE p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.NEW " +
+           "AND (p.nextAttemptAt IS NULL OR p.nextAttemptAt <= :now) ORDER BY p.id")
+    List<Long> findPendingIds(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    // Reclama un cobro para este worker; solo uno de los workers concurrentes obtiene 1.
+    // La clave de idempotencia se fija en el primer reclamo del intento y se conserva si el reclamo vence
+    @Modifying
+    @Query("UPDATE PaymentOutbox p SET p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.PROCESSING, " +
+           "p.claimedAt = :now, p.attempts = p.attempts + 1, " +
+           "p.idempotencyKey = COALESCE(p.idempotencyKey, CONCAT(p.orderNumber, '-', CAST(p.attempts + 1 AS String))) " +
+           "WHERE p.id = :id AND p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.NEW " +
+           "AND (p.nextAttemptAt IS NULL OR p.nextAttemptAt <= :now)")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // Devuelve a la cola un cobro que la pasarela rechazó de forma transitoria; el siguiente intento usa otra clave
+    @Modifying
+    @Query("UPDATE PaymentOutbox p SET p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.NEW, " +
+           "p.lastError = :error, p.idempotencyKey = NULL, p.nextAttemptAt = :nextAttemptAt " +
+           "WHERE p.id = :id AND p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.PROCESSING")
+    int requeue(@Param("id") Long id, @Param("error") String error, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+    
+    // Cobros reclamados por un worker que no terminó a tiempo
+    @Query("SELECT p FROM PaymentOutbox p " +
+           "WHERE p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.PROCESSING " +
+           "AND p.claimedAt < :claimedBefore")
+    List<PaymentOutbox> findStaleClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+    
+    // Reencola un reclamo vencido conservando su clave: si la pasarela ya cobró, el reintento no duplica el cargo
+    @Modifying
+    @Query("UPDATE PaymentOutbox p SET p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.NEW, " +
+           "p.nextAttemptAt = :nextAttemptAt " +
+           "WHERE p.id = :id AND p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.PROCESSING " +
+           "AND p.claimedAt = :claimedAt")
+    int requeueStale(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt,
+                     @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+    
+    // Retira de la cola un cobro que agotó sus intentos sin resultado
+    @Modifying
+    @Query("UPDATE PaymentOutbox p SET p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.FAILED, " +
+           "p.lastError = :error, p.processedAt = :now " +
+           "WHERE p.id = :id AND p.status = com.abnercila.ecommerce_app.model.PaymentOutbox$OutboxStatus.PROCESSING " +
+           "AND p.claimedAt = :claimedAt")
+    int markFailed(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt,
+                   @Param("error") String error, @Param("now") LocalDateTime now);
+}
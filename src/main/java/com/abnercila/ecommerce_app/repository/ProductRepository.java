@@ -1,17 +1,50 @@
 package com.abnercila.ecommerce_app.repository;
 
+import com.abnercila.ecommerce_app.dto.ProductCard;
+import com.abnercila.ecommerce_app.dto.ProductDetail;
 import com.abnercila.ecommerce_app.model.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
     
-    // Buscar productos por categoría
-    List<Product> findByCategory(String category);
+    // Proyecciones del catálogo: solo las columnas de la vista, sin cargar la entidad ni sus reseñas
+    String CARD_SELECT = "SELECT new com.abnercila.ecommerce_app.dto.ProductCard(p.id, p.name, p.description, p.price, " +
+            "p.imageUrl, p.category, p.stock, p.averageRating, p.reviewCount, p.createdAt, p.hotSku) FROM Product p ";
+    
+    @Query(CARD_SELECT + "ORDER BY p.id")
+    List<ProductCard> findAllCards();
+    
+    @Query(CARD_SELECT + "WHERE p.category = :category ORDER BY p.id")
+    List<ProductCard> findCardsByCategory(@Param("category") String category);
+    
+    @Query(CARD_SELECT + "WHERE p.id IN :ids")
+    List<ProductCard> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Productos con stock bajo (los hot SKU llevan su stock en sub-contadores)
+    @Query(CARD_SELECT + "WHERE p.stock < :stock AND p.hotSku = false ORDER BY p.stock, p.id")
+    List<ProductCard> findLowStockCards(@Param("stock") int stock);
+    
+    // Productos agotados
+    @Query(CARD_SELECT + "WHERE p.stock = :stock AND p.hotSku = false ORDER BY p.id")
+    List<ProductCard> findCardsWithStock(@Param("stock") int stock);
+    
+    @Query("SELECT new com.abnercila.ecommerce_app.dto.ProductDetail(p.id, p.name, p.description, p.price, " +
+           "p.imageUrl, p.category, p.stock, p.averageRating, p.reviewCount, p.createdAt, p.hotSku) " +
+           "FROM Product p WHERE p.id = :id")
+    Optional<ProductDetail> findDetailById(@Param("id") Long id);
     
     // Buscar productos por nombre (case insensitive)
     List<Product> findByNameContainingIgnoreCase(String name);
@@ -20,11 +53,14 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT DISTINCT p.category FROM Product p WHERE p.category IS NOT NULL ORDER BY p.category")
     List<String> findDistinctCategories();
     
-    // Buscar productos con stock bajo
-    List<Product> findByStockLessThan(int stock);
+    // Productos en modo hot SKU entre los indicados
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids AND p.hotSku = true")
+    List<Long> findHotSkuIds(@Param("ids") Collection<Long> ids);
     
-    // Buscar productos agotados
-    List<Product> findByStock(int stock);
+    // Bloquea la fila del producto para cambiar su modo de inventario
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
     
     // Buscar productos disponibles (stock > 0)
     List<Product> findByStockGreaterThan(int stock);
@@ -34,4 +70,20 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     // Buscar productos por nombre con stock disponible
     List<Product> findByNameContainingIgnoreCaseAndStockGreaterThan(String name, int stock);
-}
\ No newline at end of file
+    
+    // Recalcula el promedio y el número de reseñas de un producto
+    @Modifying
+    @Query(value = "UPDATE product p SET " +
+           "average_rating = COALESCE((SELECT ROUND(AVG(CAST(r.rating AS DECIMAL(10, 2))), 2) FROM reviews r WHERE r.product_id = p.id), 0), " +
+           "review_count = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = p.id) " +
+           "WHERE p.id = :productId", nativeQuery = true)
+    int refreshRating(@Param("productId") Long productId);
+    
+    // Recalcula el promedio y el número de reseñas de todo el catálogo
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE product p SET " +
+           "average_rating = COALESCE((SELECT ROUND(AVG(CAST(r.rating AS DECIMAL(10, 2))), 2) FROM reviews r WHERE r.product_id = p.id), 0), " +
+           "review_count = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = p.id)", nativeQuery = true)
+    int refreshAllRatings();
+}
@@ -0,0 +1,93 @@
+package com.abnercila.ecommerce_app.repository;
+
+import com.abnercila.ecommerce_app.dto.ProductListCriteria;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.ProductStockShard;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Specifications del listado del catálogo. Cada orden se recorre con un índice compuesto
+ * (columna, id) o (category, columna, id), de modo que el keyset salta directo a la
+ * posición del cursor y una página cuesta lo mismo al principio que en la página 10.000.
+ */
+public final class ProductSpecifications {
+    
+    private ProductSpecifications() {
+    }
+    
+    /**
+     * Productos que cumplen todos los filtros indicados
+     */
+    public static Specification<Product> matching(ProductListCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (criteria.getCategory() != null && !criteria.getCategory().isBlank()) {
+                predicates.add(cb.equal(root.get("category"), criteria.getCategory().trim()));
+            }
+            if (criteria.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), criteria.getMinPrice()));
+            }
+            if (criteria.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), criteria.getMaxPrice()));
+            }
+            if (criteria.isInStock()) {
+                // Los hot SKU llevan su stock en sub-contadores y la columna queda en 0: cuentan
+                // si la suma de sus sub-contadores es positiva
+                Subquery<Long> shardStock = query.subquery(Long.class);
+                Root<ProductStockShard> shard = shardStock.from(ProductStockShard.class);
+                shardStock.select(cb.sumAsLong(shard.get("stock")))
+                        .where(cb.equal(shard.get("productId"), root.get("id")));
+                predicates.add(cb.or(
+                        cb.greaterThan(root.get("stock"), 0),
+                        cb.and(cb.isTrue(root.get("hotSku")), cb.greaterThan(shardStock, 0L))));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    /**
+     * Orden del listado: la columna elegida y el id como desempate, en la misma dirección
+     */
+    public static Sort sortOf(ProductListCriteria.SortBy sortBy) {
+        Sort.Direction direction = isDescending(sortBy) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(new Sort.Order(direction, attributeOf(sortBy)), new Sort.Order(direction, "id"));
+    }
+    
+    /**
+     * Keyset: productos posteriores al cursor (valor de la columna de orden, id) en el listado
+     */
+    public static <V extends Comparable<? super V>> Specification<Product> after(ProductListCriteria.SortBy sortBy,
+                                                                                 V value, Long id) {
+        String attribute = attributeOf(sortBy);
+        if (isDescending(sortBy)) {
+            return (root, query, cb) -> cb.or(
+                    cb.lessThan(root.<V>get(attribute), value),
+                    cb.and(cb.equal(root.get(attribute), value), cb.lessThan(root.get("id"), id)));
+        }
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.<V>get(attribute), value),
+                cb.and(cb.equal(root.get(attribute), value), cb.greaterThan(root.get("id"), id)));
+    }
+    
+    public static String attributeOf(ProductListCriteria.SortBy sortBy) {
+        return switch (sortBy) {
+            case PRICE_ASC, PRICE_DESC -> "price";
+            case NAME -> "name";
+            case RATING -> "averageRating";
+            case NEWEST -> "createdAt";
+        };
+    }
+    
+    private static boolean isDescending(ProductListCriteria.SortBy sortBy) {
+        return sortBy == ProductListCriteria.SortBy.PRICE_DESC
+                || sortBy == ProductListCriteria.SortBy.RATING
+                || sortBy == ProductListCriteria.SortBy.NEWEST;
+    }
+}
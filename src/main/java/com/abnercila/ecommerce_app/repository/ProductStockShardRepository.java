@@ -0,0 +1,29 @@
+package com.abnercila.ecommerce_app.repository;
+
+import com.abnercila.ecommerce_app.model.ProductStockShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+    
+    List<ProductStockShard> findByProductIdOrderByShardIndex(Long productId);
+    
+    // Stock total de un producto sumando todos sus sub-contadores
+    @Query("SELECT COALESCE(SUM(s.stock), 0) FROM ProductStockShard s WHERE s.productId = :productId")
+    int sumStockByProductId(@Param("productId") Long productId);
+    
+    // Stock total por producto para varios productos en una sola consulta
+    @Query("SELECT s.productId, SUM(s.stock) FROM ProductStockShard s WHERE s.productId IN :productIds GROUP BY s.productId")
+    List<Object[]> sumStockByProductIds(@Param("productIds") Collection<Long> productIds);
+    
+    @Modifying
+    @Query("DELETE FROM ProductStockShard s WHERE s.productId = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+}
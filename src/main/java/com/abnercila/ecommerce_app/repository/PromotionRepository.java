@@ -0,0 +1,15 @@
+package com.abnercila.ecommerce_app.repository;
+
+import com.abnercila.ecommerce_app.model.Promotion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PromotionRepository extends JpaRepository<Promotion, Long> {
+    
+    List<Promotion> findByActiveTrue();
+    
+    Optional<Promotion> findByCode(String code);
+}
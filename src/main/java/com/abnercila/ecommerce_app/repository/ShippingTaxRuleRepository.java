@@ -0,0 +1,13 @@
+package com.abnercila.ecommerce_app.repository;
+
+import com.abnercila.ecommerce_app.model.ShippingTaxRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface ShippingTaxRuleRepository extends JpaRepository<ShippingTaxRule, Long> {
+    
+    // Un null en estado o prefijo se compara como IS NULL
+    Optional<ShippingTaxRule> findByCountryAndStateAndPostalPrefix(String country, String state, String postalPrefix);
+}
@@ -0,0 +1,28 @@
+package com.abnercila.ecommerce_app.repository;
+
+import com.abnercila.ecommerce_app.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    
+    List<StockReservation> findByStatus(StockReservation.ReservationStatus status);
+    
+    List<StockReservation> findByUserIdAndStatusOrderByExpiresAtAsc(Long userId, StockReservation.ReservationStatus status);
+    
+    List<StockReservation> findByIdInAndUserIdAndStatus(Collection<Long> ids, Long userId,
+                                                        StockReservation.ReservationStatus status);
+    
+    // Cambia el estado solo de las reservas que siguen activas
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :status WHERE r.id IN :ids " +
+           "AND r.status = com.abnercila.ecommerce_app.model.StockReservation$ReservationStatus.ACTIVE")
+    int closeActive(@Param("ids") Collection<Long> ids, @Param("status") StockReservation.ReservationStatus status);
+}
@@ -0,0 +1,134 @@
+package com.abnercila.ecommerce_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de tiempo con hash (hashed timing wheel) para expirar elementos en O(1).
+ * Programar y cancelar son operaciones O(1); en cada tick solo se recorre el cubo
+ * actual. Los cubos los toca únicamente el hilo del tick, así que no necesitan bloqueos:
+ * los nuevos elementos entran por una cola concurrente que se vacía al inicio de cada tick.
+ * Los identificadores vencidos en un tick se entregan juntos al callback.
+ */
+@Slf4j
+public class HashedTimingWheel {
+    
+    private final long tickMillis;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<Long>> onExpire;
+    private final ScheduledExecutorService ticker;
+    private final long startTime;
+    private long tick;
+    
+    /**
+     * @param tickMillis Duración de cada tick en milisegundos
+     * @param wheelSize Número de cubos (se redondea a potencia de 2)
+     * @param onExpire Callback con los identificadores vencidos en cada tick
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMillis, int wheelSize, Consumer<List<Long>> onExpire) {
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new LinkedList<>();
+        }
+        this.mask = size - 1;
+        this.onExpire = onExpire;
+        this.startTime = System.currentTimeMillis();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "timing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public void start() {
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    public void stop() {
+        ticker.shutdownNow();
+    }
+    
+    /**
+     * Programa la expiración de un identificador
+     * @param id Identificador a expirar
+     * @param deadlineMillis Instante de expiración (epoch millis)
+     * @return Handle para cancelar la expiración
+     */
+    public Timeout schedule(long id, long deadlineMillis) {
+        Timeout timeout = new Timeout(id, deadlineMillis);
+        pending.add(timeout);
+        return timeout;
+    }
+    
+    private void advance() {
+        try {
+            transferPending();
+            
+            List<Timeout> bucket = wheel[(int) (tick & mask)];
+            List<Long> expired = new ArrayList<>();
+            Iterator<Timeout> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                Timeout timeout = iterator.next();
+                if (timeout.cancelled) {
+                    iterator.remove();
+                } else if (timeout.remainingRounds <= 0) {
+                    iterator.remove();
+                    expired.add(timeout.id);
+                } else {
+                    timeout.remainingRounds--;
+                }
+            }
+            tick++;
+            
+            if (!expired.isEmpty()) {
+                onExpire.accept(expired);
+            }
+        } catch (RuntimeException e) {
+            // Un fallo del callback no debe detener la rueda
+            log.error("Error al procesar expiraciones de la rueda de tiempo", e);
+        }
+    }
+    
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long ticks = Math.max(tick, (timeout.deadline - startTime + tickMillis - 1) / tickMillis);
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+    
+    public static final class Timeout {
+        private final long id;
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+        
+        private Timeout(long id, long deadline) {
+            this.id = id;
+            this.deadline = deadline;
+        }
+        
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.ProductStockShard;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.ProductStockShardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contadores de stock fragmentados para productos en promoción ("hot SKU").
+ * El stock se reparte en N filas de product_stock_shard; cada decremento elige
+ * una fila al azar y, si no alcanza, prueba con las vecinas. Así los checkouts
+ * concurrentes se reparten entre N bloqueos de fila en lugar de uno solo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class HotSkuStockService {
+    
+    private static final String DECREMENT_SHARD_SQL =
+            "UPDATE product_stock_shard SET stock = stock - ? WHERE product_id = ? AND shard_index = ? AND stock >= ?";
+    
+    // Lectura JDBC sin entidades: el decremento de un hot SKU no pasa por el contexto de persistencia
+    private static final String SELECT_SHARDS_SQL =
+            "SELECT shard_index, stock FROM product_stock_shard WHERE product_id = ? ORDER BY shard_index";
+    
+    private static final String INCREMENT_SHARD_SQL =
+            "UPDATE product_stock_shard SET stock = stock + ? WHERE product_id = ? AND shard_index = ?";
+    
+    private static final int MAX_SHARDS = 256;
+    
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Activa el modo hot SKU repartiendo el stock actual entre los sub-contadores
+     * @param productId ID del producto
+     * @param shards Número de sub-contadores
+     * @return Producto actualizado
+     */
+    public Product enableHotMode(Long productId, int shards) {
+        if (shards < 2 || shards > MAX_SHARDS) {
+            throw new IllegalArgumentException("El número de sub-contadores debe estar entre 2 y " + MAX_SHARDS);
+        }
+        
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + productId));
+        
+        if (product.isHotSku()) {
+            throw new RuntimeException("El producto ya está en modo hot SKU");
+        }
+        
+        int stock = product.getStock();
+        for (int i = 0; i < shards; i++) {
+            // Reparto uniforme; el resto se asigna a los primeros sub-contadores
+            int shardStock = stock / shards + (i < stock % shards ? 1 : 0);
+            shardRepository.save(new ProductStockShard(productId, i, shardStock));
+        }
+        
+        product.setStock(0);
+        product.setHotSku(true);
+        
+        log.info("Producto {} en modo hot SKU con {} sub-contadores y stock {}", productId, shards, stock);
+        return productRepository.save(product);
+    }
+    
+    /**
+     * Desactiva el modo hot SKU consolidando los sub-contadores en la fila del producto
+     * @param productId ID del producto
+     * @return Producto actualizado
+     */
+    public Product disableHotMode(Long productId) {
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + productId));
+        
+        if (!product.isHotSku()) {
+            return product;
+        }
+        
+        int stock = shardRepository.sumStockByProductId(productId);
+        shardRepository.deleteByProductId(productId);
+        
+        product.setStock(product.getStock() + stock);
+        product.setHotSku(false);
+        
+        log.info("Producto {} vuelve a stock de una sola fila con stock {}", productId, product.getStock());
+        return productRepository.save(product);
+    }
+    
+    /**
+     * Reduce el stock de un producto hot SKU. Empieza por un sub-contador aleatorio y
+     * recorre los vecinos; si ninguno tiene la cantidad completa, la toma de varios.
+     * @return false si el producto no tiene sub-contadores o su stock total no alcanza
+     * (sin modificar nada)
+     * @throws RuntimeException si otro checkout consumió el stock mientras se repartía
+     * el decremento; la transacción debe revertirse
+     */
+    public boolean decrementStock(Long productId, int quantity) {
+        List<Shard> shards = jdbcTemplate.query(SELECT_SHARDS_SQL,
+                (rs, rowNum) -> new Shard(rs.getInt("shard_index"), rs.getInt("stock")), productId);
+        if (shards.isEmpty()) {
+            return false;
+        }
+        
+        // Solo se intentan los que alcanzan según la lectura: un sub-contador agotado no hace esperar su bloqueo
+        int start = ThreadLocalRandom.current().nextInt(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            Shard shard = shards.get((start + i) % shards.size());
+            if (shard.stock() >= quantity
+                    && jdbcTemplate.update(DECREMENT_SHARD_SQL, quantity, productId, shard.index(), quantity) == 1) {
+                return true;
+            }
+        }
+        
+        if (shardRepository.sumStockByProductId(productId) < quantity) {
+            return false;
+        }
+        
+        // Ningún sub-contador tiene la cantidad completa: se toma de varios
+        int remaining = quantity;
+        for (int i = 0; i < shards.size() && remaining > 0; i++) {
+            int shardIndex = shards.get((start + i) % shards.size()).index();
+            Integer available = jdbcTemplate.queryForObject(
+                    "SELECT stock FROM product_stock_shard WHERE product_id = ? AND shard_index = ?",
+                    Integer.class, productId, shardIndex);
+            int take = Math.min(remaining, available != null ? available : 0);
+            if (take > 0 && jdbcTemplate.update(DECREMENT_SHARD_SQL, take, productId, shardIndex, take) == 1) {
+                remaining -= take;
+            }
+        }
+        
+        if (remaining > 0) {
+            throw new RuntimeException("Stock insuficiente para el producto " + productId);
+        }
+        return true;
+    }
+    
+    /**
+     * Devuelve unidades a un sub-contador aleatorio del producto
+     */
+    public void incrementStock(Long productId, int quantity) {
+        List<ProductStockShard> shards = shardRepository.findByProductIdOrderByShardIndex(productId);
+        if (shards.isEmpty()) {
+            throw new RuntimeException("El producto " + productId + " no tiene sub-contadores de stock");
+        }
+        int shardIndex = shards.get(ThreadLocalRandom.current().nextInt(shards.size())).getShardIndex();
+        jdbcTemplate.update(INCREMENT_SHARD_SQL, quantity, productId, shardIndex);
+    }
+    
+    /**
+     * Stock total de un producto hot SKU
+     */
+    @Transactional(readOnly = true)
+    public int getStock(Long productId) {
+        return shardRepository.sumStockByProductId(productId);
+    }
+    
+    /**
+     * Stock total de varios productos hot SKU en una sola consulta
+     * @return Mapa productId -> stock
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getStock(Collection<Long> productIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return stock;
+        }
+        for (Object[] row : shardRepository.sumStockByProductIds(productIds)) {
+            stock.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return stock;
+    }
+    
+    private record Shard(int index, int stock) {
+    }
+}
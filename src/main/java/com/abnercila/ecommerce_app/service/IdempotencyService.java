@@ -0,0 +1,137 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.OrderResponse;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checkout idempotente. Un reintento con la misma Idempotency-Key devuelve la orden
+ * original: primero se busca en un LRU acotado en memoria y después en la tabla
+ * idempotency_keys. Las peticiones duplicadas que llegan a la vez se agrupan en un
+ * mismo CompletableFuture para que solo una ejecute createOrder.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    
+    static final int MAX_KEY_LENGTH = 100;
+    
+    private final OrderService orderService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Map<String, OrderResponse> recentResponses;
+    private final Map<String, CompletableFuture<OrderResponse>> inFlight = new ConcurrentHashMap<>();
+    
+    @Value("${app.idempotency.retention-hours:24}")
+    private long retentionHours;
+    
+    public IdempotencyService(OrderService orderService,
+                              IdempotencyKeyRepository idempotencyKeyRepository,
+                              @Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.orderService = orderService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        // LinkedHashMap en orden de acceso: al superar el límite se descarta la menos usada
+        this.recentResponses = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OrderResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+    
+    /**
+     * Crea la orden una sola vez por clave y usuario
+     * @param checkoutRequest Datos del checkout
+     * @param user Usuario autenticado
+     * @param idempotencyKey Clave enviada por el cliente; si es null el checkout no es idempotente
+     * @return La orden creada, o la original si la clave ya se había usado
+     */
+    public OrderResponse checkout(CheckoutRequest checkoutRequest, User user, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return orderService.createOrder(checkoutRequest, user);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key inválida");
+        }
+        
+        String cacheKey = user.getId() + ":" + idempotencyKey;
+        OrderResponse cached = recentResponses.get(cacheKey);
+        if (cached != null) {
+            log.info("Checkout repetido con clave {}, devolviendo orden {}", idempotencyKey, cached.getOrderNumber());
+            return cached;
+        }
+        
+        CompletableFuture<OrderResponse> future = new CompletableFuture<>();
+        CompletableFuture<OrderResponse> running = inFlight.putIfAbsent(cacheKey, future);
+        if (running != null) {
+            log.info("Checkout duplicado en curso con clave {}, esperando su resultado", idempotencyKey);
+            return await(running);
+        }
+        
+        try {
+            OrderResponse response = findOriginalOrder(user, idempotencyKey)
+                    .orElseGet(() -> createOrder(checkoutRequest, user, idempotencyKey));
+            recentResponses.put(cacheKey, response);
+            future.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            // Los errores no se guardan: el cliente puede reintentar con la misma clave
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, future);
+        }
+    }
+    
+    private OrderResponse createOrder(CheckoutRequest checkoutRequest, User user, String idempotencyKey) {
+        try {
+            return orderService.createOrder(checkoutRequest, user, idempotencyKey);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia insertó la misma clave primero; su orden es la original
+            return findOriginalOrder(user, idempotencyKey).orElseThrow(() -> e);
+        }
+    }
+    
+    private Optional<OrderResponse> findOriginalOrder(User user, String idempotencyKey) {
+        return idempotencyKeyRepository.findOrderId(user.getId(), idempotencyKey)
+                .map(orderId -> orderService.getOrder(orderId, user));
+    }
+    
+    private OrderResponse await(CompletableFuture<OrderResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Purga las claves más antiguas que la ventana de reintentos
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-millis:3600000}")
+    @Transactional
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Claves de idempotencia purgadas: {}", deleted);
+        }
+    }
+}
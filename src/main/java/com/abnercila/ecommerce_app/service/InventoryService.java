@@ -0,0 +1,145 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Motor de inventario basado en decrementos condicionales atómicos.
+ * En lugar de leer el producto, comparar y guardar, cada reducción es un
+ * UPDATE ... WHERE stock >= cantidad que la base de datos resuelve de forma atómica,
+ * por lo que dos checkouts concurrentes nunca pueden sobrevender el mismo producto.
+ * La condición descuenta además las unidades apartadas por reservas activas de otros
+ * compradores, de modo que un checkout sin reserva no puede llevarse stock prometido.
+ * Las reservas que consume el propio checkout siguen en el libro hasta el commit y se
+ * restan de lo apartado en lugar de liberarse antes del decremento.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryService {
+    
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE product SET stock = stock - ?, version = version + 1 WHERE id = ? AND stock - ? >= ?";
+    
+    private static final String INCREMENT_STOCK_SQL =
+            "UPDATE product SET stock = stock + ?, version = version + 1 WHERE id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final HotSkuStockService hotSkuStockService;
+    private final ReservationLedger reservationLedger;
+    
+    /**
+     * Reduce el stock de un solo producto si hay unidades suficientes sin apartar
+     * @param productId ID del producto
+     * @param quantity Cantidad a reducir
+     * @return true si se redujo el stock, false si no existe o no hay suficiente
+     */
+    @Transactional
+    public boolean decrementStock(Long productId, int quantity) {
+        int held = reservationLedger.held(productId);
+        if (jdbcTemplate.update(DECREMENT_STOCK_SQL, quantity, productId, held, quantity) == 1) {
+            return true;
+        }
+        // Los hot SKU tienen la fila en 0: su decremento va a los sub-contadores (un producto
+        // normal no tiene ninguno y el intento termina en una lectura)
+        return decrementHotSku(productId, quantity, held);
+    }
+    
+    /**
+     * Reduce el stock de varios productos en un único batch JDBC con semántica todo-o-nada.
+     * Si alguna fila no cumple la condición se lanza una excepción y la transacción
+     * revierte también los decrementos ya aplicados.
+     * @param quantities Mapa productId -> cantidad a reducir
+     */
+    @Transactional
+    public void decrementStock(Map<Long, Integer> quantities) {
+        decrementStock(quantities, Map.of());
+    }
+    
+    /**
+     * Igual que decrementStock(quantities), para un checkout que consume sus propias reservas
+     * @param quantities Mapa productId -> cantidad a reducir
+     * @param ownReserved Unidades apartadas por el mismo comprador, que no cuentan contra él
+     */
+    @Transactional
+    public void decrementStock(Map<Long, Integer> quantities, Map<Long, Integer> ownReserved) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        List<Object[]> batchArgs = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            int quantity = quantities.get(productId);
+            batchArgs.add(new Object[]{quantity, productId, heldByOthers(productId, ownReserved), quantity});
+        }
+        
+        int[] updateCounts = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, batchArgs);
+        
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            // Requiere un driver que informe filas afectadas por sentencia del batch
+            if (updateCounts[i] != 1) {
+                rejected.add(productIds.get(i));
+            }
+        }
+        
+        // Los hot SKU tienen la fila en 0: sus decrementos van a los sub-contadores
+        if (!rejected.isEmpty()) {
+            List<Long> hotSkuIds = productRepository.findHotSkuIds(rejected);
+            for (Long productId : hotSkuIds) {
+                if (decrementHotSku(productId, quantities.get(productId), heldByOthers(productId, ownReserved))) {
+                    rejected.remove(productId);
+                }
+            }
+        }
+        
+        if (!rejected.isEmpty()) {
+            log.warn("Stock insuficiente al reservar productos {}", rejected);
+            throw new RuntimeException("Stock insuficiente para uno o más productos en el carrito");
+        }
+        
+        log.info("Stock reducido en un batch para {} productos", productIds.size());
+    }
+    
+    /**
+     * Devuelve stock a varios productos en un único batch JDBC (compensaciones y devoluciones).
+     * En los hot SKU las unidades vuelven a la fila del producto, que se suma a sus sub-contadores.
+     * @param quantities Mapa productId -> cantidad a devolver
+     */
+    @Transactional
+    public void incrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        
+        List<Object[]> batchArgs = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> batchArgs.add(new Object[]{quantity, productId}));
+        jdbcTemplate.batchUpdate(INCREMENT_STOCK_SQL, batchArgs);
+        
+        log.info("Stock devuelto en un batch para {} productos", quantities.size());
+    }
+    
+    /**
+     * Unidades apartadas por otros compradores: lo retenido en el libro menos lo propio
+     */
+    public int heldByOthers(Long productId, Map<Long, Integer> ownReserved) {
+        return Math.max(0, reservationLedger.held(productId) - ownReserved.getOrDefault(productId, 0));
+    }
+    
+    private boolean decrementHotSku(Long productId, int quantity, int held) {
+        if (held > 0 && hotSkuStockService.getStock(productId) - held < quantity) {
+            return false;
+        }
+        return hotSkuStockService.decrementStock(productId, quantity);
+    }
+}
@@ -0,0 +1,102 @@
+package com.abnercila.ecommerce_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta escrituras sobre entidades versionadas (@Version) reintentando ante conflictos
+ * de bloqueo optimista. Cada intento corre en su propia transacción para releer el
+ * estado actual; entre intentos se espera un backoff exponencial con jitter completo.
+ * Lleva contadores por operación para medir la contención.
+ */
+@Component
+@Slf4j
+public class OptimisticRetryExecutor {
+    
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+    
+    @Value("${app.retry.max-attempts:4}")
+    private int maxAttempts;
+    
+    @Value("${app.retry.base-backoff-millis:10}")
+    private long baseBackoffMillis;
+    
+    @Value("${app.retry.max-backoff-millis:200}")
+    private long maxBackoffMillis;
+    
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    /**
+     * @param operation Nombre de la operación para las métricas
+     * @param action Escritura a ejecutar dentro de una transacción
+     * @return Resultado de la escritura
+     * @throws OptimisticLockingFailureException si se agotan los intentos
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        OperationStats operationStats = stats.computeIfAbsent(operation, key -> new OperationStats());
+        
+        for (int attempt = 1; ; attempt++) {
+            operationStats.attempts.increment();
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                operationStats.conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    operationStats.exhausted.increment();
+                    log.warn("Conflicto de concurrencia en {} tras {} intentos", operation, attempt);
+                    throw e;
+                }
+                operationStats.retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+    
+    /**
+     * Contadores por operación: intentos, conflictos, reintentos y reintentos agotados
+     */
+    public Map<String, Map<String, Long>> getMetrics() {
+        Map<String, Map<String, Long>> metrics = new LinkedHashMap<>();
+        stats.forEach((operation, operationStats) -> metrics.put(operation, Map.of(
+            "attempts", operationStats.attempts.sum(),
+            "conflicts", operationStats.conflicts.sum(),
+            "retries", operationStats.retries.sum(),
+            "exhausted", operationStats.exhausted.sum()
+        )));
+        return metrics;
+    }
+    
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 16));
+        long sleep = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido", e);
+        }
+    }
+    
+    private static final class OperationStats {
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+    }
+}
@@ -0,0 +1,111 @@
+package com.abnercila.ecommerce_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Archivado hot/cold de órdenes. Las órdenes terminadas (canceladas o reembolsadas, y las
+ * entregadas cuyo plazo de reembolso ya venció) sin cambios en los últimos días
+ * configurados se copian a orders_archive y order_items_archive con INSERT ... SELECT y
+ * se borran de las tablas vivas, por lotes y con una transacción por lote, para que
+ * orders solo contenga las órdenes en curso y las recientes.
+ */
+@Service
+@Slf4j
+public class OrderArchiveService {
+    
+    private static final String ORDER_COLUMNS =
+            "id, version, user_id, order_number, status, total_amount, subtotal, shipping_cost, tax_amount, " +
+            "discount_amount, coupon_code, " +
+            "created_at, updated_at, estimated_delivery, shipping_name, shipping_email, shipping_phone, " +
+            "shipping_address, shipping_city, shipping_state, shipping_postal_code, shipping_country, " +
+            "payment_method, payment_status, payment_transaction_id, notes";
+    
+    private static final String ITEM_COLUMNS =
+            "id, order_id, product_id, quantity, unit_price, total_price, product_name, product_image_url";
+    
+    // FOR UPDATE: un cambio de estado concurrente espera al lote y después ya no encuentra la orden.
+    // Las entregadas usan su propio corte para no archivar una orden que aún se puede reembolsar.
+    // El tamaño del lote se aplica con setMaxRows: LIMIT no es portable entre bases de datos
+    private static final String SELECT_CANDIDATES_SQL =
+            "SELECT id FROM orders WHERE " +
+            "((status IN ('CANCELLED', 'REFUNDED') AND COALESCE(updated_at, created_at) < ?) " +
+            "OR (status = 'DELIVERED' AND COALESCE(updated_at, created_at) < ?)) " +
+            "ORDER BY id FOR UPDATE";
+    
+    private static final String COPY_ORDERS_SQL =
+            "INSERT INTO orders_archive (" + ORDER_COLUMNS + ") SELECT " + ORDER_COLUMNS + " FROM orders WHERE id IN (%s)";
+    
+    private static final String COPY_ITEMS_SQL =
+            "INSERT INTO order_items_archive (" + ITEM_COLUMNS + ") SELECT " + ITEM_COLUMNS +
+            " FROM order_items WHERE order_id IN (%s)";
+    
+    private static final String DELETE_ITEMS_SQL = "DELETE FROM order_items WHERE order_id IN (%s)";
+    
+    private static final String DELETE_ORDERS_SQL = "DELETE FROM orders WHERE id IN (%s)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${app.archive.min-age-days:90}")
+    private int minAgeDays;
+    
+    @Value("${app.orders.refund-window-days:30}")
+    private int refundWindowDays;
+    
+    @Value("${app.archive.batch-size:500}")
+    private int batchSize;
+    
+    public OrderArchiveService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+    
+    /**
+     * Mueve al archivo todas las órdenes elegibles, un lote por transacción
+     * @return Número de órdenes archivadas
+     */
+    @Scheduled(cron = "${app.archive.cron:0 0 4 * * *}")
+    public int archive() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp cutoff = Timestamp.valueOf(now.minusDays(minAgeDays));
+        Timestamp deliveredCutoff = Timestamp.valueOf(now.minusDays(Math.max(minAgeDays, refundWindowDays)));
+        int total = 0;
+        Integer moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(cutoff, deliveredCutoff));
+            total += moved != null ? moved : 0;
+        } while (moved != null && moved == batchSize);
+        log.info("Archivado de órdenes completado: {} órdenes movidas a orders_archive", total);
+        return total;
+    }
+    
+    private int archiveBatch(Timestamp cutoff, Timestamp deliveredCutoff) {
+        List<Long> ids = jdbcTemplate.query(SELECT_CANDIDATES_SQL, statement -> {
+            statement.setTimestamp(1, cutoff);
+            statement.setTimestamp(2, deliveredCutoff);
+            statement.setMaxRows(batchSize);
+        }, (rs, rowNum) -> rs.getLong("id"));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+        Object[] args = ids.toArray();
+        
+        jdbcTemplate.update(String.format(COPY_ORDERS_SQL, placeholders), args);
+        int items = jdbcTemplate.update(String.format(COPY_ITEMS_SQL, placeholders), args);
+        jdbcTemplate.update(String.format(DELETE_ITEMS_SQL, placeholders), args);
+        jdbcTemplate.update(String.format(DELETE_ORDERS_SQL, placeholders), args);
+        log.debug("Lote archivado: {} órdenes, {} items", ids.size(), items);
+        return ids.size();
+    }
+}
@@ -0,0 +1,159 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.BulkStatusRequest;
+import com.abnercila.ecommerce_app.dto.BulkStatusResponse;
+import com.abnercila.ecommerce_app.model.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transiciones de estado masivas para almacén. Lee el estado y la versión de todas las
+ * órdenes en una consulta, valida cada transición contra la máquina de estados y aplica
+ * las válidas en un único batch JDBC condicionado por versión, sin cargar entidades.
+ * Los cambios aplicados se publican juntos en un solo OrderStatusChangedEvent.
+ */
+@Service
+@Slf4j
+public class OrderBulkStatusService {
+    
+    private static final String SELECT_SQL =
+            "SELECT id, status, version, user_id, total_amount, created_at, " +
+            "COALESCE(updated_at, created_at) AS last_change FROM orders";
+    
+    // Cancelar o reembolsar una orden cobrada marca también el pago como reembolsado
+    private static final String UPDATE_SQL =
+            "UPDATE orders SET status = ?, updated_at = ?, version = version + 1, " +
+            "payment_status = CASE WHEN ? AND payment_status = 'PAID' THEN 'REFUNDED' ELSE payment_status END " +
+            "WHERE id = ? AND version = ?";
+    
+    private static final RowMapper<OrderRow> ROW_MAPPER = (rs, rowNum) -> new OrderRow(
+            rs.getLong("id"),
+            Order.OrderStatus.valueOf(rs.getString("status")),
+            rs.getLong("version"),
+            rs.getLong("user_id"),
+            rs.getBigDecimal("total_amount"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getTimestamp("last_change").toLocalDateTime());
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${app.orders.bulk-max-size:1000}")
+    private int maxBatchSize;
+    
+    @Value("${app.orders.refund-window-days:30}")
+    private int refundWindowDays;
+    
+    public OrderBulkStatusService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /**
+     * Aplica la transición a todas las órdenes indicadas
+     * @param request Órdenes (lista o filtro por estado actual) y estado destino
+     * @return Resultado por orden
+     */
+    @Transactional
+    public BulkStatusResponse apply(BulkStatusRequest request) {
+        Order.OrderStatus target = request.getTargetStatus();
+        boolean byIds = request.getOrderIds() != null && !request.getOrderIds().isEmpty();
+        if (byIds == (request.getCurrentStatus() != null)) {
+            throw new IllegalArgumentException("Indica una lista de órdenes o un estado actual, no ambos");
+        }
+        
+        List<Long> requestedIds = byIds ? new ArrayList<>(new LinkedHashSet<>(request.getOrderIds())) : List.of();
+        if (requestedIds.size() > maxBatchSize) {
+            throw new IllegalArgumentException("El lote no puede superar " + maxBatchSize + " órdenes");
+        }
+        List<OrderRow> rows = byIds ? findByIds(requestedIds) : findByStatus(request.getCurrentStatus());
+        Map<Long, OrderRow> rowsById = rows.stream().collect(Collectors.toMap(OrderRow::id, Function.identity()));
+        List<Long> ids = byIds ? requestedIds : rows.stream().map(OrderRow::id).collect(Collectors.toList());
+        
+        // Igual que en OrderService.refundOrder: una orden entregada solo se reembolsa dentro del plazo
+        LocalDateTime refundCutoff = LocalDateTime.now().minusDays(refundWindowDays);
+        List<BulkStatusResponse.Result> results = new ArrayList<>();
+        List<OrderRow> candidates = new ArrayList<>();
+        for (Long id : ids) {
+            OrderRow row = rowsById.get(id);
+            if (row == null) {
+                results.add(new BulkStatusResponse.Result(id, BulkStatusResponse.Outcome.NOT_FOUND, null));
+            } else if (row.status() == target) {
+                results.add(new BulkStatusResponse.Result(id, BulkStatusResponse.Outcome.UNCHANGED, row.status().name()));
+            } else if (!row.status().canTransitionTo(target)
+                    || (target == Order.OrderStatus.REFUNDED && row.lastChange().isBefore(refundCutoff))) {
+                results.add(new BulkStatusResponse.Result(id, BulkStatusResponse.Outcome.INVALID_TRANSITION, row.status().name()));
+            } else {
+                candidates.add(row);
+            }
+        }
+        
+        List<OrderStatusChangedEvent.Change> changes = new ArrayList<>();
+        if (!candidates.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            boolean reversal = target == Order.OrderStatus.CANCELLED || target == Order.OrderStatus.REFUNDED;
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, candidates.stream()
+                    .map(row -> new Object[]{target.name(), now, reversal, row.id(), row.version()})
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < candidates.size(); i++) {
+                OrderRow row = candidates.get(i);
+                if (updated[i] == 1) {
+                    results.add(new BulkStatusResponse.Result(row.id(), BulkStatusResponse.Outcome.UPDATED, row.status().name()));
+                    changes.add(new OrderStatusChangedEvent.Change(
+                            row.id(), row.userId(), row.totalAmount(), row.createdAt(), row.status(), target));
+                } else {
+                    // Otra escritura cambió la orden entre la lectura y el UPDATE
+                    results.add(new BulkStatusResponse.Result(row.id(), BulkStatusResponse.Outcome.CONFLICT, row.status().name()));
+                }
+            }
+        }
+        
+        // Resultados en el mismo orden en que se pidieron las órdenes
+        Map<Long, Integer> position = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            position.put(ids.get(i), i);
+        }
+        results.sort(Comparator.comparing(result -> position.get(result.getOrderId())));
+        
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(Collections.unmodifiableList(changes)));
+        }
+        log.info("Transición masiva a {}: {} de {} órdenes actualizadas", target, changes.size(), ids.size());
+        return new BulkStatusResponse(target.name(), changes.size(), results);
+    }
+    
+    private List<OrderRow> findByIds(List<Long> ids) {
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+        return jdbcTemplate.query(SELECT_SQL + " WHERE id IN (" + placeholders + ")", ROW_MAPPER, ids.toArray());
+    }
+    
+    // El tope va en setMaxRows y no como LIMIT en el SQL, que no es portable entre bases de datos
+    private List<OrderRow> findByStatus(Order.OrderStatus status) {
+        return jdbcTemplate.query(SELECT_SQL + " WHERE status = ? ORDER BY created_at, id", statement -> {
+            statement.setString(1, status.name());
+            statement.setMaxRows(maxBatchSize);
+        }, ROW_MAPPER);
+    }
+    
+    private record OrderRow(Long id, Order.OrderStatus status, long version, Long userId,
+                            BigDecimal totalAmount, LocalDateTime createdAt, LocalDateTime lastChange) {
+    }
+}
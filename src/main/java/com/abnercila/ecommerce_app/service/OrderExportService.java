@@ -0,0 +1,171 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación de órdenes e items para finanzas. Recorre un cursor JDBC de solo avance
+ * con un fetch size fijo y escribe cada fila directamente en la respuesta, así la memoria
+ * usada no depende del tamaño de la exportación. Una fila por item de orden, incluidas
+ * las órdenes archivadas.
+ */
+@Service
+@Slf4j
+public class OrderExportService {
+    
+    private static final String EXPORT_SQL =
+            "SELECT o.id AS order_id, o.order_number, o.created_at, o.status, o.payment_status, " +
+            "o.payment_method, o.user_id, o.shipping_name, o.shipping_city, o.shipping_state, " +
+            "o.shipping_country, o.subtotal, o.discount_amount, o.coupon_code, o.shipping_cost, o.tax_amount, o.total_amount, " +
+            "i.id AS item_id, i.product_id, i.product_name, i.quantity, i.unit_price, i.total_price " +
+            "FROM %s o JOIN %s i ON i.order_id = o.id";
+    
+    private static final String CSV_HEADER =
+            "order_id,order_number,created_at,status,payment_status,payment_method,user_id,shipping_name," +
+            "shipping_city,shipping_state,shipping_country,subtotal,discount_amount,coupon_code,shipping_cost,tax_amount,total_amount," +
+            "item_id,product_id,product_name,quantity,unit_price,total_price";
+    
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    
+    public OrderExportService(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        // Plantilla propia para no cambiar el fetch size del JdbcTemplate compartido
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        // Algunos drivers (PostgreSQL) solo usan cursor si la conexión no está en autocommit
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+    
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+    
+    /**
+     * Escribe la exportación en el stream indicado
+     * @param out Stream de la respuesta
+     * @param format CSV o NDJSON
+     * @param gzip Comprimir la salida
+     * @param from Inicio del rango de creación (inclusive), opcional
+     * @param to Fin del rango de creación (exclusivo), opcional
+     * @param status Estado de la orden, opcional
+     */
+    public void export(OutputStream out, Format format, boolean gzip,
+                       LocalDateTime from, LocalDateTime to, Order.OrderStatus status) throws IOException {
+        StringBuilder filter = new StringBuilder(" WHERE 1 = 1");
+        List<Object> filterArgs = new ArrayList<>();
+        if (from != null) {
+            filter.append(" AND o.created_at >= ?");
+            filterArgs.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            filter.append(" AND o.created_at < ?");
+            filterArgs.add(Timestamp.valueOf(to));
+        }
+        if (status != null) {
+            filter.append(" AND o.status = ?");
+            filterArgs.add(status.name());
+        }
+        // Las órdenes archivadas también forman parte de la exportación
+        String sql = String.format(EXPORT_SQL, "orders", "order_items") + filter +
+                " UNION ALL " + String.format(EXPORT_SQL, "orders_archive", "order_items_archive") + filter +
+                " ORDER BY order_id, item_id";
+        List<Object> args = new ArrayList<>(filterArgs);
+        args.addAll(filterArgs);
+        
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+        long[] rows = {0};
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> cursorTemplate.query(sql, rs -> {
+                try {
+                    writeRow(writer, rs, format);
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            // El cliente cerró la conexión a mitad de la descarga
+            log.warn("Exportación de órdenes interrumpida tras {} filas: {}", rows[0], e.getMessage());
+            throw e.getCause();
+        }
+        
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        log.info("Exportación de órdenes completada: {} filas", rows[0]);
+    }
+    
+    private void writeRow(Writer writer, ResultSet rs, Format format) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        if (format == Format.CSV) {
+            for (int column = 1; column <= meta.getColumnCount(); column++) {
+                if (column > 1) {
+                    writer.write(',');
+                }
+                Object value = columnValue(rs, column);
+                if (value != null) {
+                    writer.write(csvEscape(value.toString()));
+                }
+            }
+        } else {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int column = 1; column <= meta.getColumnCount(); column++) {
+                row.put(meta.getColumnLabel(column).toLowerCase(), columnValue(rs, column));
+            }
+            writer.write(objectMapper.writeValueAsString(row));
+        }
+        writer.write('\n');
+    }
+    
+    // Fechas en ISO-8601 en ambos formatos
+    private Object columnValue(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        return value instanceof Timestamp ts ? ts.toLocalDateTime().toString() : value;
+    }
+    
+    private String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
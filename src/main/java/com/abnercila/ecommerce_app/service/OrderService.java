@@ -1,20 +1,44 @@
 package com.abnercila.ecommerce_app.service;
 
 import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.OrderPageResponse;
 import com.abnercila.ecommerce_app.dto.OrderResponse;
+import com.abnercila.ecommerce_app.dto.OrderSearchCriteria;
+import com.abnercila.ecommerce_app.dto.OrderStatusResponse;
+import com.abnercila.ecommerce_app.dto.OrderSummaryResponse;
+import com.abnercila.ecommerce_app.dto.UserOrderStatsResponse;
 import com.abnercila.ecommerce_app.model.*;
+import com.abnercila.ecommerce_app.repository.ArchivedOrderRepository;
+import com.abnercila.ecommerce_app.repository.IdempotencyKeyRepository;
 import com.abnercila.ecommerce_app.repository.OrderRepository;
-import com.abnercila.ecommerce_app.repository.OrderItemRepository;
+import com.abnercila.ecommerce_app.repository.OrderSpecifications;
+import com.abnercila.ecommerce_app.repository.PaymentOutboxRepository;
 import com.abnercila.ecommerce_app.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,30 +46,74 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    // Prefijo de los cursores que ya recorren orders_archive
+    private static final String ARCHIVE_CURSOR_PREFIX = "archive|";
+    
     private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
     private final ProductRepository productRepository;
-    private final ProductService productService;
+    private final InventoryService inventoryService;
+    private final ReservationService reservationService;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final SnowflakeIdGenerator idGenerator;
+    private final PaymentOutboxRepository paymentOutboxRepository;
+    private final PaymentProcessor paymentProcessor;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final UserOrderStatsService userOrderStatsService;
+    private final PricingRuleService pricingRuleService;
+    private final PromotionService promotionService;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${app.orders.refund-window-days:30}")
+    private int refundWindowDays;
     
     @Transactional
     public OrderResponse createOrder(CheckoutRequest checkoutRequest, User user) {
+        return createOrder(checkoutRequest, user, null);
+    }
+    
+    /**
+     * Crea la orden y, si hay clave de idempotencia, la registra en la misma transacción;
+     * la restricción única (user_id, idempotency_key) impide dos órdenes con la misma clave
+     */
+    @Transactional
+    public OrderResponse createOrder(CheckoutRequest checkoutRequest, User user, String idempotencyKey) {
         log.info("Creando orden para usuario: {}", user.getEmail());
         
-        // Validar productos y stock ANTES de crear la orden
-        validateCartItemsAndStock(checkoutRequest.getCartItems());
+        // Cargar todos los productos del carrito en una sola consulta
+        List<CheckoutRequest.CartItemDto> cartItems = checkoutRequest.getCartItems();
+        Map<Long, Product> products = loadCartProducts(cartItems);
+        
+        // Validar productos ANTES de crear la orden
+        Map<Long, Integer> quantities = validateCartItems(cartItems, products);
+        
+        // Convertir las reservas del usuario; siguen apartadas hasta el commit, pero no cuentan contra él
+        Map<Long, Integer> reserved = reservationService.consume(user, checkoutRequest.getReservationIds(), quantities);
+        
+        // Validar y reservar el stock de todos los productos
+        validateStock(quantities, products, reserved);
+        reserveStock(quantities, reserved);
         
         // Crear la orden
         Order order = new Order();
         order.setUser(user);
+        order.setOrderNumber(idGenerator.nextOrderNumber());
         order.setStatus(Order.OrderStatus.PENDING);
         
-        // Calcular totales
-        BigDecimal subtotal = calculateSubtotal(checkoutRequest.getCartItems());
-        BigDecimal shippingCost = calculateShippingCost(checkoutRequest.getShippingInfo());
-        BigDecimal taxAmount = calculateTaxAmount(subtotal);
-        BigDecimal totalAmount = subtotal.add(shippingCost).add(taxAmount);
+        // Calcular totales; el impuesto se aplica sobre el subtotal ya descontado
+        BigDecimal subtotal = calculateSubtotal(cartItems, products);
+        PromotionIndex.Result promotions = applyPromotions(cartItems, products, checkoutRequest.getCouponCode());
+        BigDecimal discountedSubtotal = subtotal.subtract(promotions.discount());
+        PricingRules.Rate rate = pricingRuleService.rateFor(checkoutRequest.getShippingInfo());
+        BigDecimal shippingCost = rate.shippingCost();
+        BigDecimal taxAmount = calculateTaxAmount(discountedSubtotal, rate);
+        BigDecimal totalAmount = discountedSubtotal.add(shippingCost).add(taxAmount);
         
         order.setSubtotal(subtotal);
+        order.setDiscountAmount(promotions.discount());
+        order.setCouponCode(promotions.coupon() != null ? promotions.coupon().getCode() : null);
         order.setShippingCost(shippingCost);
         order.setTaxAmount(taxAmount);
         order.setTotalAmount(totalAmount);
@@ -53,7 +121,7 @@ public class OrderService {
         // Información de envío
         CheckoutRequest.ShippingInfoDto shipping = checkoutRequest.getShippingInfo();
         order.setShippingName(shipping.getName());
-        order.setShippingEmail(shipping.getEmail());
+        order.setShippingEmail(Order.normalizeEmail(shipping.getEmail()));
         order.setShippingPhone(shipping.getPhone());
         order.setShippingAddress(shipping.getAddress());
         order.setShippingCity(shipping.getCity());
@@ -72,54 +140,310 @@ public class OrderService {
         // Notas
         order.setNotes(checkoutRequest.getNotes());
         
-        // Guardar orden
-        order = orderRepository.save(order);
+        // Crear items de la orden; se insertan en cascada junto con la orden
+        order.setOrderItems(createOrderItems(order, cartItems, products));
         
-        // Crear items de la orden
-        List<OrderItem> orderItems = createOrderItems(order, checkoutRequest.getCartItems());
-        order.setOrderItems(orderItems);
+        // Un solo save: orden e items se insertan en batch al hacer flush
+        order = orderRepository.save(order);
         
-        // Actualizar stock de productos
-        updateProductStock(checkoutRequest.getCartItems());
+        userOrderStatsService.recordOrderCreated(order);
         
-        // Simular procesamiento de pago
-        boolean paymentSuccess = processPayment(payment);
-        if (paymentSuccess) {
-            order.setPaymentStatus(Order.PaymentStatus.PAID);
-            order.setStatus(Order.OrderStatus.CONFIRMED);
-            order.setPaymentTransactionId("TXN-" + System.currentTimeMillis());
-        } else {
-            order.setPaymentStatus(Order.PaymentStatus.FAILED);
-            order.setStatus(Order.OrderStatus.CANCELLED);
+        if (idempotencyKey != null) {
+            idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(null, user.getId(), idempotencyKey, order.getId(), null));
         }
         
-        order = orderRepository.save(order);
+        // El cobro se encola en la misma transacción y lo procesa un worker tras el commit,
+        // así la transacción del checkout no espera a la pasarela de pago
+        enqueuePayment(order);
         
         log.info("Orden creada exitosamente: {}", order.getOrderNumber());
         
         return convertToOrderResponse(order);
     }
     
+    /**
+     * Todas las órdenes del usuario: las vivas seguidas de las archivadas
+     */
+    @Transactional(readOnly = true)
     public List<OrderResponse> getUserOrders(User user) {
-        List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
-        return orders.stream()
+        List<OrderResponse> orders = orderRepository.findByUserOrderByCreatedAtDesc(user).stream()
                 .map(this::convertToOrderResponse)
                 .collect(Collectors.toList());
+        archivedOrderRepository.findByUserIdOrderByCreatedAtDescIdDesc(user.getId()).stream()
+                .map(this::convertToOrderResponse)
+                .forEach(orders::add);
+        return orders;
+    }
+    
+    /**
+     * Historial paginado por keyset sobre (createdAt, id). Cada página cuesta dos consultas
+     * (ids de la página y órdenes con sus items) sin importar cuántos items tenga cada orden.
+     * Cuando se agotan las órdenes vivas el historial continúa con las archivadas, que
+     * son siempre órdenes terminadas y antiguas.
+     * @param user Usuario autenticado
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera
+     * @param size Número de órdenes por página
+     * @return Página de órdenes y cursor de la siguiente
+     */
+    @Transactional(readOnly = true)
+    public OrderPageResponse getUserOrdersPage(User user, String cursor, int size) {
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        OrderCursor after = cursor == null ? null : decodeCursor(cursor);
+        List<OrderResponse> responses = new ArrayList<>();
+        
+        if (after == null || !after.archived()) {
+            // Se pide una orden de más para saber si existe otra página
+            Pageable limit = PageRequest.of(0, size + 1);
+            List<Long> ids = after == null
+                    ? orderRepository.findPageIds(user, limit)
+                    : orderRepository.findPageIdsBefore(user, after.createdAt(), after.id(), limit);
+            if (ids.size() > size) {
+                List<Order> orders = orderRepository.findWithItemsByIdIn(ids.subList(0, size));
+                orders.stream().map(this::convertToOrderResponse).forEach(responses::add);
+                Order last = orders.get(orders.size() - 1);
+                return new OrderPageResponse(responses, encodeCursor(false, last.getCreatedAt(), last.getId()), true);
+            }
+            if (!ids.isEmpty()) {
+                orderRepository.findWithItemsByIdIn(ids).stream().map(this::convertToOrderResponse).forEach(responses::add);
+            }
+            // Las órdenes vivas se agotaron: el resto de la página sale del archivo desde el principio
+            after = null;
+        }
+        
+        int remaining = size - responses.size();
+        if (remaining == 0) {
+            boolean hasArchived = archivedOrderRepository.existsByUserId(user.getId());
+            return new OrderPageResponse(responses, hasArchived ? encodeCursor(true, null, null) : null, hasArchived);
+        }
+        Pageable limit = PageRequest.of(0, remaining + 1);
+        List<Long> archivedIds = after == null || after.id() == null
+                ? archivedOrderRepository.findPageIds(user.getId(), limit)
+                : archivedOrderRepository.findPageIdsBefore(user.getId(), after.createdAt(), after.id(), limit);
+        boolean hasMore = archivedIds.size() > remaining;
+        if (hasMore) {
+            archivedIds = archivedIds.subList(0, remaining);
+        }
+        String nextCursor = null;
+        if (!archivedIds.isEmpty()) {
+            List<ArchivedOrder> archived = archivedOrderRepository.findWithItemsByIdIn(archivedIds);
+            archived.stream().map(this::convertToOrderResponse).forEach(responses::add);
+            ArchivedOrder last = archived.get(archived.size() - 1);
+            nextCursor = hasMore ? encodeCursor(true, last.getCreatedAt(), last.getId()) : null;
+        }
+        return new OrderPageResponse(responses, nextCursor, hasMore);
+    }
+    
+    /**
+     * Búsqueda de órdenes para soporte, paginada por keyset sobre (createdAt, id) igual que
+     * el historial: una consulta con los filtros y el LIMIT, y otra para cargar los items
+     * @param criteria Filtros opcionales; archived elige entre orders y orders_archive
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera
+     * @param size Número de órdenes por página
+     * @return Página de órdenes y cursor de la siguiente
+     */
+    @Transactional(readOnly = true)
+    public OrderPageResponse searchOrders(OrderSearchCriteria criteria, String cursor, int size) {
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int limit = size + 1;
+        Sort sort = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+        OrderCursor after = cursor == null ? null : decodeCursor(cursor);
+        
+        List<OrderResponse> responses;
+        String nextCursor = null;
+        boolean hasMore;
+        if (criteria.isArchived()) {
+            Specification<ArchivedOrder> spec = OrderSpecifications.matching(criteria);
+            if (after != null) {
+                spec = spec.and(OrderSpecifications.before(after.createdAt(), after.id()));
+            }
+            List<Long> ids = archivedOrderRepository.findBy(spec, query -> query.sortBy(sort).limit(limit).all())
+                    .stream().map(ArchivedOrder::getId).collect(Collectors.toList());
+            hasMore = ids.size() > size;
+            List<ArchivedOrder> orders = ids.isEmpty() ? List.of()
+                    : archivedOrderRepository.findWithItemsByIdIn(hasMore ? ids.subList(0, size) : ids);
+            responses = orders.stream().map(this::convertToOrderResponse).collect(Collectors.toList());
+            if (hasMore) {
+                ArchivedOrder last = orders.get(orders.size() - 1);
+                nextCursor = encodeCursor(false, last.getCreatedAt(), last.getId());
+            }
+        } else {
+            Specification<Order> spec = OrderSpecifications.matching(criteria);
+            if (after != null) {
+                spec = spec.and(OrderSpecifications.before(after.createdAt(), after.id()));
+            }
+            List<Long> ids = orderRepository.findBy(spec, query -> query.sortBy(sort).limit(limit).all())
+                    .stream().map(Order::getId).collect(Collectors.toList());
+            hasMore = ids.size() > size;
+            List<Order> orders = ids.isEmpty() ? List.of()
+                    : orderRepository.findWithItemsByIdIn(hasMore ? ids.subList(0, size) : ids);
+            responses = orders.stream().map(this::convertToOrderResponse).collect(Collectors.toList());
+            if (hasMore) {
+                Order last = orders.get(orders.size() - 1);
+                nextCursor = encodeCursor(false, last.getCreatedAt(), last.getId());
+            }
+        }
+        return new OrderPageResponse(responses, nextCursor, hasMore);
     }
     
+    /**
+     * Resumen de las órdenes del usuario para vistas de listado, incluidas las archivadas
+     */
+    @Transactional(readOnly = true)
+    public List<OrderSummaryResponse> getUserOrderSummaries(User user) {
+        List<OrderSummaryResponse> summaries = new ArrayList<>(orderRepository.findSummariesByUser(user));
+        summaries.addAll(archivedOrderRepository.findSummariesByUserId(user.getId()));
+        return summaries;
+    }
+    
+    public UserOrderStatsResponse getUserOrderStats(User user) {
+        return userOrderStatsService.getStats(user.getId());
+    }
+    
+    /**
+     * Orden del usuario; si ya no está en orders se busca en el archivo
+     */
+    @Transactional(readOnly = true)
     public OrderResponse getOrder(Long orderId, User user) {
-        Order order = orderRepository.findByUserAndId(user, orderId)
+        return orderRepository.findByUserAndId(user, orderId)
+                .map(this::convertToOrderResponse)
+                .or(() -> archivedOrderRepository.findByUserIdAndId(user.getId(), orderId).map(this::convertToOrderResponse))
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
-        return convertToOrderResponse(order);
     }
     
-    private void validateCartItemsAndStock(List<CheckoutRequest.CartItemDto> cartItems) {
-        // Primero validamos que todos los productos existan y tengan suficiente stock
-        List<ProductService.ProductStockCheck> stockChecks = new ArrayList<>();
+    /**
+     * Estado actual de una orden y de su pago, para sondear el resultado del cobro
+     */
+    @Transactional(readOnly = true)
+    public OrderStatusResponse getOrderStatus(Long orderId, User user) {
+        return orderRepository.findStatusByUserAndId(user, orderId)
+                .or(() -> archivedOrderRepository.findStatusByUserIdAndId(user.getId(), orderId))
+                .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
+    }
+    
+    /**
+     * Cambia el estado de una orden, reintentando ante escrituras concurrentes
+     * @param orderId ID de la orden
+     * @param status Nuevo estado
+     * @return Orden actualizada
+     */
+    public OrderResponse updateOrderStatus(Long orderId, Order.OrderStatus status) {
+        return retryExecutor.execute("order.updateStatus", () -> {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
+            if (order.getStatus() == status) {
+                return convertToOrderResponse(order);
+            }
+            if (order.getStatus() == Order.OrderStatus.PENDING) {
+                throw new IllegalStateException("La orden aún está procesando el pago, intenta más tarde");
+            }
+            return convertToOrderResponse(transition(order, status));
+        });
+    }
+    
+    /**
+     * Cancelación solicitada por el cliente. Solo se permite cuando el cobro ya se resolvió
+     * y la orden no ha sido enviada; el stock se devuelve de forma asíncrona
+     * @param orderId ID de la orden
+     * @param user Dueño de la orden
+     * @return Orden cancelada
+     */
+    public OrderResponse cancelOrder(Long orderId, User user) {
+        return retryExecutor.execute("order.cancel", () -> {
+            Order order = orderRepository.findByUserAndId(user, orderId)
+                    .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
+            if (order.getStatus() == Order.OrderStatus.PENDING) {
+                throw new IllegalStateException("La orden aún está procesando el pago, intenta más tarde");
+            }
+            return convertToOrderResponse(transition(order, Order.OrderStatus.CANCELLED));
+        });
+    }
+    
+    /**
+     * Reembolso de una orden entregada dentro del plazo de reembolso, contado desde su
+     * último cambio; el stock devuelto se encola igual que en una cancelación
+     * @param orderId ID de la orden
+     * @return Orden reembolsada
+     */
+    public OrderResponse refundOrder(Long orderId) {
+        return retryExecutor.execute("order.refund", () -> {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
+            LocalDateTime lastChange = order.getUpdatedAt() != null ? order.getUpdatedAt() : order.getCreatedAt();
+            if (order.getStatus() == Order.OrderStatus.DELIVERED
+                    && lastChange.isBefore(LocalDateTime.now().minusDays(refundWindowDays))) {
+                throw new IllegalStateException("El plazo de reembolso de la orden venció");
+            }
+            return convertToOrderResponse(transition(order, Order.OrderStatus.REFUNDED));
+        });
+    }
+    
+    /**
+     * Aplica una transición validada por la máquina de estados y publica el cambio;
+     * cancelar o reembolsar una orden cobrada marca también el pago como reembolsado
+     */
+    private Order transition(Order order, Order.OrderStatus target) {
+        Order.OrderStatus previous = order.getStatus();
+        if (!previous.canTransitionTo(target)) {
+            throw new IllegalStateException("Transición de estado no permitida: " + previous + " -> " + target);
+        }
+        order.setStatus(target);
+        if (isReversal(target) && order.getPaymentStatus() == Order.PaymentStatus.PAID) {
+            order.setPaymentStatus(Order.PaymentStatus.REFUNDED);
+        }
+        order = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previous, target));
+        return order;
+    }
+    
+    private boolean isReversal(Order.OrderStatus status) {
+        return status == Order.OrderStatus.CANCELLED || status == Order.OrderStatus.REFUNDED;
+    }
+    
+    /**
+     * Cambia el estado de pago de una orden, reintentando ante escrituras concurrentes
+     * @param orderId ID de la orden
+     * @param paymentStatus Nuevo estado de pago
+     * @return Orden actualizada
+     */
+    public OrderResponse updatePaymentStatus(Long orderId, Order.PaymentStatus paymentStatus) {
+        return retryExecutor.execute("order.updatePaymentStatus", () -> {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
+            order.setPaymentStatus(paymentStatus);
+            return convertToOrderResponse(orderRepository.save(order));
+        });
+    }
+    
+    /**
+     * Carga todos los productos del carrito con una única consulta IN
+     * @param cartItems Items del carrito
+     * @return Mapa productId -> Product usado por el resto del checkout
+     */
+    private Map<Long, Product> loadCartProducts(List<CheckoutRequest.CartItemDto> cartItems) {
+        Set<Long> productIds = cartItems.stream()
+                .map(CheckoutRequest.CartItemDto::getProductId)
+                .collect(Collectors.toSet());
+        
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+        }
+        return products;
+    }
+    
+    /**
+     * Valida existencia y precio de los items contra los productos ya cargados
+     * @return Cantidad total solicitada por producto (una misma referencia puede aparecer en varias líneas)
+     */
+    private Map<Long, Integer> validateCartItems(List<CheckoutRequest.CartItemDto> cartItems,
+                                                 Map<Long, Product> products) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         
         for (CheckoutRequest.CartItemDto item : cartItems) {
-            Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + item.getProductId()));
+            Product product = products.get(item.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Producto no encontrado: " + item.getProductId());
+            }
             
             // Verificar que el precio no haya cambiado significativamente
             if (product.getPrice().compareTo(item.getPrice()) != 0) {
@@ -127,75 +451,177 @@ public class OrderService {
                         product.getName(), product.getPrice(), item.getPrice());
             }
             
-            stockChecks.add(new ProductService.ProductStockCheck(item.getProductId(), item.getQuantity()));
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
         }
         
-        // Validar stock de todos los productos
-        if (!productService.validateStockForMultipleProducts(stockChecks)) {
-            throw new RuntimeException("Stock insuficiente para uno o más productos en el carrito");
-        }
-        
-        // Reducir el stock de todos los productos de forma transaccional
-        if (!productService.reduceStockForMultipleProducts(stockChecks)) {
-            throw new RuntimeException("Error al actualizar el inventario");
+        return quantities;
+    }
+    
+    /**
+     * Compara lo solicitado con el stock disponible para prometer; las reservas que
+     * consume este checkout no cuentan como apartadas por otros
+     */
+    private void validateStock(Map<Long, Integer> quantities, Map<Long, Product> products,
+                               Map<Long, Integer> reserved) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Product product = products.get(entry.getKey());
+            int availableToPromise = product.getStock() - inventoryService.heldByOthers(entry.getKey(), reserved);
+            // Los hot SKU se validan contra sus sub-contadores al reservar
+            if (!product.isHotSku() && availableToPromise < entry.getValue()) {
+                log.warn("Stock insuficiente para producto {}. Stock actual: {}, Cantidad solicitada: {}", 
+                        product.getName(), product.getStock(), entry.getValue());
+                throw new RuntimeException("Stock insuficiente para uno o más productos en el carrito");
+            }
         }
+    }
+    
+    /**
+     * Reserva el stock de todo el carrito con un batch de decrementos condicionales
+     */
+    private void reserveStock(Map<Long, Integer> quantities, Map<Long, Integer> reserved) {
+        inventoryService.decrementStock(quantities, reserved);
         
-        log.info("Stock actualizado correctamente para {} productos", cartItems.size());
+        log.info("Stock actualizado correctamente para {} productos", quantities.size());
     }
     
-    private BigDecimal calculateSubtotal(List<CheckoutRequest.CartItemDto> cartItems) {
+    private BigDecimal calculateSubtotal(List<CheckoutRequest.CartItemDto> cartItems, Map<Long, Product> products) {
         return cartItems.stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .map(item -> products.get(item.getProductId()).getPrice()
+                        .multiply(BigDecimal.valueOf(item.getQuantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
     
-    private BigDecimal calculateShippingCost(CheckoutRequest.ShippingInfoDto shippingInfo) {
-        // Lógica simple de envío
-        return new BigDecimal("99.00"); // Envío estándar
+    /**
+     * Evalúa las promociones del carrito y consume sus usos limitados en la transacción
+     * del checkout; un cupón agotado por otra compra concurrente revierte la orden
+     */
+    private PromotionIndex.Result applyPromotions(List<CheckoutRequest.CartItemDto> cartItems,
+                                                  Map<Long, Product> products, String couponCode) {
+        List<PromotionIndex.Line> lines = cartItems.stream()
+                .map(item -> {
+                    Product product = products.get(item.getProductId());
+                    return new PromotionIndex.Line(product.getId(), product.getCategory(),
+                            product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+                })
+                .collect(Collectors.toList());
+        PromotionIndex.Result result = promotionService.evaluate(lines, couponCode);
+        promotionService.redeem(result);
+        return result;
     }
     
-    private BigDecimal calculateTaxAmount(BigDecimal subtotal) {
-        // IVA del 16%
-        return subtotal.multiply(new BigDecimal("0.16"));
+    // La tasa sale de las reglas del destino; por defecto IVA del 16%
+    private BigDecimal calculateTaxAmount(BigDecimal subtotal, PricingRules.Rate rate) {
+        return subtotal.multiply(rate.taxRate()).setScale(2, RoundingMode.HALF_UP);
     }
     
-    private List<OrderItem> createOrderItems(Order order, List<CheckoutRequest.CartItemDto> cartItems) {
+    private List<OrderItem> createOrderItems(Order order, List<CheckoutRequest.CartItemDto> cartItems,
+                                             Map<Long, Product> products) {
         List<OrderItem> orderItems = new ArrayList<>();
         
         for (CheckoutRequest.CartItemDto cartItem : cartItems) {
-            Product product = productRepository.findById(cartItem.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+            Product product = products.get(cartItem.getProductId());
             
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
             orderItem.setProduct(product);
             orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setUnitPrice(cartItem.getPrice());
+            orderItem.setUnitPrice(product.getPrice());
             orderItem.setProductName(product.getName());
             orderItem.setProductImageUrl(product.getImageUrl());
             
-            orderItems.add(orderItemRepository.save(orderItem));
+            orderItems.add(orderItem);
         }
         
         return orderItems;
     }
     
-    private void updateProductStock(List<CheckoutRequest.CartItemDto> cartItems) {
-        for (CheckoutRequest.CartItemDto item : cartItems) {
-            Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-            
-            product.setStock(product.getStock() - item.getQuantity());
-            productRepository.save(product);
+    private void enqueuePayment(Order order) {
+        PaymentOutbox outbox = new PaymentOutbox();
+        outbox.setOrderId(order.getId());
+        outbox.setOrderNumber(order.getOrderNumber());
+        outbox.setAmount(order.getTotalAmount());
+        outbox.setPaymentMethod(order.getPaymentMethod());
+        outbox.setStatus(PaymentOutbox.OutboxStatus.NEW);
+        Long outboxId = paymentOutboxRepository.save(outbox).getId();
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                paymentProcessor.processAsync(outboxId);
+            }
+        });
+    }
+    
+    // Un cursor de archivo sin posición indica empezar el archivo desde su primera orden
+    private String encodeCursor(boolean archived, LocalDateTime createdAt, Long id) {
+        String raw = (archived ? ARCHIVE_CURSOR_PREFIX : "") + (id == null ? "" : createdAt + "|" + id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private OrderCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            boolean archived = raw.startsWith(ARCHIVE_CURSOR_PREFIX);
+            if (archived) {
+                raw = raw.substring(ARCHIVE_CURSOR_PREFIX.length());
+                if (raw.isEmpty()) {
+                    return new OrderCursor(true, null, null);
+                }
+            }
+            int separator = raw.lastIndexOf('|');
+            return new OrderCursor(archived, LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new RuntimeException("Cursor de paginación inválido");
         }
     }
     
-    private boolean processPayment(CheckoutRequest.PaymentInfoDto paymentInfo) {
-        // Simulación de procesamiento de pago
-        log.info("Procesando pago con método: {}", paymentInfo.getPaymentMethod());
-        
-        // 95% de éxito en pagos (para testing)
-        return Math.random() > 0.05;
+    private record OrderCursor(boolean archived, LocalDateTime createdAt, Long id) {
+    }
+    
+    /**
+     * Las órdenes archivadas se devuelven con la misma forma que las vivas
+     */
+    private OrderResponse convertToOrderResponse(ArchivedOrder archived) {
+        Order order = new Order();
+        order.setId(archived.getId());
+        order.setOrderNumber(archived.getOrderNumber());
+        order.setStatus(archived.getStatus());
+        order.setTotalAmount(archived.getTotalAmount());
+        order.setSubtotal(archived.getSubtotal());
+        order.setShippingCost(archived.getShippingCost());
+        order.setTaxAmount(archived.getTaxAmount());
+        order.setDiscountAmount(archived.getDiscountAmount());
+        order.setCouponCode(archived.getCouponCode());
+        order.setCreatedAt(archived.getCreatedAt());
+        order.setEstimatedDelivery(archived.getEstimatedDelivery());
+        order.setShippingName(archived.getShippingName());
+        order.setShippingEmail(archived.getShippingEmail());
+        order.setShippingPhone(archived.getShippingPhone());
+        order.setShippingAddress(archived.getShippingAddress());
+        order.setShippingCity(archived.getShippingCity());
+        order.setShippingState(archived.getShippingState());
+        order.setShippingPostalCode(archived.getShippingPostalCode());
+        order.setShippingCountry(archived.getShippingCountry());
+        order.setPaymentMethod(archived.getPaymentMethod());
+        order.setPaymentStatus(archived.getPaymentStatus());
+        order.setPaymentTransactionId(archived.getPaymentTransactionId());
+        order.setNotes(archived.getNotes());
+        order.setOrderItems(archived.getOrderItems().stream()
+                .map(archivedItem -> {
+                    Product product = new Product();
+                    product.setId(archivedItem.getProductId());
+                    OrderItem item = new OrderItem();
+                    item.setProduct(product);
+                    item.setQuantity(archivedItem.getQuantity());
+                    item.setUnitPrice(archivedItem.getUnitPrice());
+                    item.setTotalPrice(archivedItem.getTotalPrice());
+                    item.setProductName(archivedItem.getProductName());
+                    item.setProductImageUrl(archivedItem.getProductImageUrl());
+                    return item;
+                })
+                .collect(Collectors.toList()));
+        return convertToOrderResponse(order);
     }
     
     private OrderResponse convertToOrderResponse(Order order) {
@@ -235,6 +661,8 @@ public class OrderService {
                 .subtotal(order.getSubtotal())
                 .shippingCost(order.getShippingCost())
                 .taxAmount(order.getTaxAmount())
+                .discountAmount(order.getDiscountAmount())
+                .couponCode(order.getCouponCode())
                 .createdAt(order.getCreatedAt())
                 .estimatedDelivery(order.getEstimatedDelivery())
                 .shippingInfo(shippingInfo)
@@ -0,0 +1,24 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cambios de estado aplicados en una misma transacción. Se publica una sola vez por
+ * operación, ya sea una orden o un lote masivo, y los listeners lo procesan de forma
+ * síncrona dentro de esa transacción.
+ */
+public record OrderStatusChangedEvent(List<Change> changes) {
+    
+    public static OrderStatusChangedEvent of(Order order, Order.OrderStatus from, Order.OrderStatus to) {
+        return new OrderStatusChangedEvent(List.of(new Change(
+                order.getId(), order.getUser().getId(), order.getTotalAmount(), order.getCreatedAt(), from, to)));
+    }
+    
+    public record Change(Long orderId, Long userId, BigDecimal totalAmount, LocalDateTime createdAt,
+                         Order.OrderStatus from, Order.OrderStatus to) {
+    }
+}
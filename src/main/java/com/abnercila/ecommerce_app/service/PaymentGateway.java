@@ -0,0 +1,24 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Order;
+
+import java.math.BigDecimal;
+
+/**
+ * Pasarela de pago externa. Se invoca fuera de cualquier transacción de base de datos.
+ */
+public interface PaymentGateway {
+    
+    /**
+     * @param orderNumber Número de la orden a cobrar
+     * @param amount Monto total
+     * @param paymentMethod Método de pago elegido
+     * @param idempotencyKey Clave del intento; repetir una clave devuelve el resultado original sin cobrar otra vez
+     * @return Resultado del cobro
+     * @throws RuntimeException si la pasarela respondió con un error transitorio sin cobrar
+     */
+    PaymentResult charge(String orderNumber, BigDecimal amount, Order.PaymentMethod paymentMethod, String idempotencyKey);
+    
+    record PaymentResult(boolean success, String transactionId, String message) {
+    }
+}
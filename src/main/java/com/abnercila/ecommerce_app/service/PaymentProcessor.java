@@ -0,0 +1,260 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.PaymentOutbox;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.PaymentOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Etapa asíncrona de pago. Drena el outbox de cobros fuera de la transacción del
+ * checkout: reclama cada fila con un UPDATE condicional, llama a la pasarela sin
+ * ninguna conexión abierta y aplica el resultado en una transacción corta.
+ * Si el cobro falla, la orden se cancela y su stock queda encolado para devolverse.
+ * Cada cobro viaja con una clave de idempotencia estable, de modo que reencolar un
+ * reclamo vencido mientras la pasarela aún responde no genera un segundo cargo; los
+ * reintentos respetan max-attempts y esperan un backoff exponencial.
+ */
+@Service
+@Slf4j
+public class PaymentProcessor {
+    
+    private final PaymentOutboxRepository outboxRepository;
+    private final OrderRepository orderRepository;
+    private final PaymentGateway paymentGateway;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor paymentExecutor;
+    private final Semaphore inFlight;
+    
+    @Value("${app.payments.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${app.payments.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${app.payments.stale-claim-minutes:5}")
+    private long staleClaimMinutes;
+    
+    @Value("${app.payments.retry-backoff-millis:2000}")
+    private long retryBackoffMillis;
+    
+    @Value("${app.payments.max-retry-backoff-millis:60000}")
+    private long maxRetryBackoffMillis;
+    
+    public PaymentProcessor(PaymentOutboxRepository outboxRepository,
+                            OrderRepository orderRepository,
+                            PaymentGateway paymentGateway,
+                            OptimisticRetryExecutor retryExecutor,
+                            ApplicationEventPublisher eventPublisher,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${app.payments.worker-threads:32}") int workerThreads) {
+        this.outboxRepository = outboxRepository;
+        this.orderRepository = orderRepository;
+        this.paymentGateway = paymentGateway;
+        this.retryExecutor = retryExecutor;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        // Los workers pasan casi todo el tiempo esperando a la pasarela, por eso el pool
+        // es mayor que el número de núcleos; el semáforo limita los cobros en vuelo al pool
+        this.paymentExecutor = new ThreadPoolTaskExecutor();
+        this.paymentExecutor.setCorePoolSize(workerThreads);
+        this.paymentExecutor.setMaxPoolSize(workerThreads);
+        this.paymentExecutor.setThreadNamePrefix("payment-");
+        this.paymentExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        this.paymentExecutor.setAwaitTerminationSeconds(30);
+        this.inFlight = new Semaphore(workerThreads);
+    }
+    
+    @PostConstruct
+    void startWorkers() {
+        paymentExecutor.initialize();
+    }
+    
+    @PreDestroy
+    void stopWorkers() {
+        paymentExecutor.shutdown();
+    }
+    
+    /**
+     * Procesa de inmediato un cobro recién confirmado (se llama tras el commit del checkout)
+     */
+    public void processAsync(Long outboxId) {
+        if (inFlight.tryAcquire()) {
+            dispatch(outboxId);
+        }
+        // Sin capacidad libre, el sondeo periódico lo recogerá
+    }
+    
+    /**
+     * Sondeo de respaldo: recoge los cobros que no se despacharon al confirmar el checkout
+     */
+    @Scheduled(fixedDelayString = "${app.payments.poll-interval-millis:1000}")
+    public void poll() {
+        int capacity = Math.min(batchSize, inFlight.availablePermits());
+        if (capacity == 0) {
+            return;
+        }
+        
+        List<Long> pendingIds = outboxRepository.findPendingIds(LocalDateTime.now(), PageRequest.of(0, capacity));
+        for (Long outboxId : pendingIds) {
+            if (!inFlight.tryAcquire()) {
+                break;
+            }
+            dispatch(outboxId);
+        }
+    }
+    
+    /**
+     * Devuelve a la cola los cobros reclamados por workers que no terminaron a tiempo.
+     * Conservan su clave de idempotencia; los que agotaron sus intentos quedan en FAILED
+     * y su orden se cancela
+     */
+    @Scheduled(fixedDelayString = "${app.payments.stale-check-interval-millis:60000}")
+    public void requeueStaleClaims() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentOutbox> stale = outboxRepository.findStaleClaims(now.minusMinutes(staleClaimMinutes));
+        int requeued = 0;
+        for (PaymentOutbox entry : stale) {
+            if (entry.getAttempts() >= maxAttempts) {
+                boolean failed = retryExecutor.execute("order.failPayment", () -> failExhausted(entry, now));
+                if (failed) {
+                    log.error("Cobro de la orden {} sin resultado tras {} intentos; la orden se canceló y requiere conciliación con la pasarela (clave {})",
+                            entry.getOrderNumber(), entry.getAttempts(), entry.getIdempotencyKey());
+                }
+                continue;
+            }
+            Integer updated = transactionTemplate.execute(status -> outboxRepository.requeueStale(
+                    entry.getId(), entry.getClaimedAt(), nextAttemptAt(entry.getAttempts())));
+            if (updated != null) {
+                requeued += updated;
+            }
+        }
+        if (requeued > 0) {
+            log.warn("Reencolados {} cobros abandonados", requeued);
+        }
+    }
+    
+    /**
+     * Retira del outbox un cobro que agotó sus intentos y, en la misma transacción, cancela
+     * su orden si sigue PENDING: ninguna transición manual sale de PENDING, así que sin esto
+     * la orden quedaría bloqueada con su stock descontado
+     * @return false si otro proceso ya resolvió la fila
+     */
+    private boolean failExhausted(PaymentOutbox entry, LocalDateTime now) {
+        int failed = outboxRepository.markFailed(entry.getId(), entry.getClaimedAt(),
+                "Reclamo vencido tras " + entry.getAttempts() + " intentos", now);
+        if (failed == 0) {
+            return false;
+        }
+        orderRepository.findById(entry.getOrderId())
+                .filter(order -> order.getStatus() == Order.OrderStatus.PENDING)
+                .ifPresent(order -> {
+                    order.setPaymentStatus(Order.PaymentStatus.FAILED);
+                    // Compensación: al publicar la cancelación, su stock se encola para devolverse
+                    order.setStatus(Order.OrderStatus.CANCELLED);
+                    Order cancelled = orderRepository.save(order);
+                    eventPublisher.publishEvent(OrderStatusChangedEvent.of(cancelled, Order.OrderStatus.PENDING, cancelled.getStatus()));
+                });
+        return true;
+    }
+    
+    private void dispatch(Long outboxId) {
+        try {
+            paymentExecutor.execute(() -> {
+                try {
+                    process(outboxId);
+                } catch (RuntimeException e) {
+                    // La fila queda reclamada y se reencola al vencer el reclamo
+                    log.error("Error procesando el cobro {}", outboxId, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            log.warn("No se pudo despachar el cobro {}: {}", outboxId, e.getMessage());
+        }
+    }
+    
+    private void process(Long outboxId) {
+        Integer claimed = transactionTemplate.execute(status -> outboxRepository.claim(outboxId, LocalDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            return; // Otro worker lo tomó
+        }
+        PaymentOutbox entry = outboxRepository.findById(outboxId).orElseThrow();
+        
+        PaymentGateway.PaymentResult result;
+        try {
+            // Llamada a la pasarela sin transacción ni conexión abierta
+            result = paymentGateway.charge(entry.getOrderNumber(), entry.getAmount(), entry.getPaymentMethod(),
+                    entry.getIdempotencyKey());
+        } catch (RuntimeException e) {
+            if (entry.getAttempts() < maxAttempts) {
+                log.warn("Error transitorio cobrando la orden {}: {}", entry.getOrderNumber(), e.getMessage());
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxRepository.requeue(outboxId, e.getMessage(), nextAttemptAt(entry.getAttempts())));
+                return;
+            }
+            result = new PaymentGateway.PaymentResult(false, null, e.getMessage());
+        }
+        
+        PaymentGateway.PaymentResult outcome = result;
+        retryExecutor.execute("order.completePayment", () -> {
+            completePayment(entry, outcome);
+            return null;
+        });
+    }
+    
+    // Backoff exponencial desde el intento que acaba de fallar, con tope
+    private LocalDateTime nextAttemptAt(int attempts) {
+        long backoff = retryBackoffMillis << Math.min(Math.max(attempts - 1, 0), 20);
+        return LocalDateTime.now().plus(Duration.ofMillis(Math.min(backoff, maxRetryBackoffMillis)));
+    }
+    
+    private void completePayment(PaymentOutbox entry, PaymentGateway.PaymentResult result) {
+        Order order = orderRepository.findById(entry.getOrderId())
+                .orElseThrow(() -> new IllegalStateException("Orden no encontrada: " + entry.getOrderId()));
+        
+        if (order.getStatus() == Order.OrderStatus.PENDING) {
+            Order.OrderStatus previous = order.getStatus();
+            if (result.success()) {
+                order.setPaymentStatus(Order.PaymentStatus.PAID);
+                order.setStatus(Order.OrderStatus.CONFIRMED);
+                order.setPaymentTransactionId(result.transactionId());
+            } else {
+                order.setPaymentStatus(Order.PaymentStatus.FAILED);
+                // Compensación: al publicar la cancelación, su stock se encola para devolverse
+                order.setStatus(Order.OrderStatus.CANCELLED);
+            }
+            order = orderRepository.save(order);
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previous, order.getStatus()));
+            log.info("Pago de la orden {}: {}", order.getOrderNumber(), order.getPaymentStatus());
+        } else if (result.success() && order.getPaymentStatus() != Order.PaymentStatus.PAID) {
+            // Ninguna transición manual sale de PENDING; si aun así llega un cobro sin orden que lo respalde, se concilia a mano
+            log.error("Cobro {} aplicado a la orden {} en estado {}: requiere reembolso manual",
+                    result.transactionId(), order.getOrderNumber(), order.getStatus());
+        }
+        
+        PaymentOutbox outbox = outboxRepository.findById(entry.getId()).orElseThrow();
+        outbox.setStatus(PaymentOutbox.OutboxStatus.DONE);
+        outbox.setProcessedAt(LocalDateTime.now());
+        outbox.setLastError(result.success() ? null : result.message());
+        outboxRepository.save(outbox);
+    }
+}
@@ -0,0 +1,126 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.model.ShippingTaxRule;
+import com.abnercila.ecommerce_app.repository.ShippingTaxRuleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Tarifas de envío e impuestos del checkout. Las reglas se compilan en un PricingRules
+ * inmutable que se publica en un campo volatile: el checkout lee la referencia sin
+ * bloqueos ni consultas y una recarga sustituye la tabla completa de una vez. Se
+ * recarga tras cada cambio confirmado y periódicamente, para recoger los cambios
+ * hechos desde otras instancias.
+ */
+@Service
+@Slf4j
+public class PricingRuleService {
+    
+    private final ShippingTaxRuleRepository ruleRepository;
+    private final PricingRules.Rate defaultRate;
+    private volatile PricingRules rules;
+    
+    public PricingRuleService(ShippingTaxRuleRepository ruleRepository,
+                              @Value("${app.pricing.default-shipping-cost:99.00}") BigDecimal defaultShippingCost,
+                              @Value("${app.pricing.default-tax-rate:0.16}") BigDecimal defaultTaxRate) {
+        this.ruleRepository = ruleRepository;
+        this.defaultRate = new PricingRules.Rate(defaultShippingCost, defaultTaxRate);
+        this.rules = PricingRules.compile(List.of(), defaultRate);
+    }
+    
+    /**
+     * Tarifa para la dirección de envío del checkout
+     */
+    public PricingRules.Rate rateFor(CheckoutRequest.ShippingInfoDto shipping) {
+        return rules.lookup(shipping.getCountry(), shipping.getState(), shipping.getPostalCode());
+    }
+    
+    /**
+     * Vuelve a compilar las reglas desde la base de datos y sustituye la tabla vigente
+     */
+    @Scheduled(fixedDelayString = "${app.pricing.refresh-interval-millis:60000}")
+    public void reload() {
+        PricingRules compiled = PricingRules.compile(ruleRepository.findAll(Sort.by("id")), defaultRate);
+        rules = compiled;
+        log.debug("Reglas de envío e impuestos recargadas: {} reglas", compiled.size());
+    }
+    
+    public List<ShippingTaxRule> getRules() {
+        return ruleRepository.findAll(Sort.by("country", "state", "postalPrefix"));
+    }
+    
+    @Transactional
+    public ShippingTaxRule createRule(ShippingTaxRule rule) {
+        rule.setId(null);
+        normalize(rule);
+        ensureUniqueScope(rule, null);
+        ShippingTaxRule saved = ruleRepository.save(rule);
+        reloadOnCommit();
+        log.info("Regla de envío e impuestos creada para {}/{}/{}", saved.getCountry(), saved.getState(), saved.getPostalPrefix());
+        return saved;
+    }
+    
+    @Transactional
+    public ShippingTaxRule updateRule(Long id, ShippingTaxRule changes) {
+        ShippingTaxRule rule = ruleRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Regla no encontrada"));
+        normalize(changes);
+        ensureUniqueScope(changes, id);
+        rule.setCountry(changes.getCountry());
+        rule.setState(changes.getState());
+        rule.setPostalPrefix(changes.getPostalPrefix());
+        rule.setShippingCost(changes.getShippingCost());
+        rule.setTaxRate(changes.getTaxRate());
+        ShippingTaxRule saved = ruleRepository.save(rule);
+        reloadOnCommit();
+        return saved;
+    }
+    
+    @Transactional
+    public void deleteRule(Long id) {
+        if (!ruleRepository.existsById(id)) {
+            throw new RuntimeException("Regla no encontrada");
+        }
+        ruleRepository.deleteById(id);
+        reloadOnCommit();
+    }
+    
+    // Se guardan ya normalizadas para que la comprobación de destino único sea efectiva
+    private void normalize(ShippingTaxRule rule) {
+        rule.setCountry(PricingRules.normalize(rule.getCountry()));
+        rule.setState(rule.getState() == null || rule.getState().isBlank() ? null : PricingRules.normalize(rule.getState()));
+        rule.setPostalPrefix(rule.getPostalPrefix() == null || rule.getPostalPrefix().isBlank()
+                ? null : PricingRules.normalizePostal(rule.getPostalPrefix()));
+        if (rule.getPostalPrefix() != null) {
+            // Los prefijos postales no dependen del estado
+            rule.setState(null);
+        }
+    }
+    
+    private void ensureUniqueScope(ShippingTaxRule rule, Long currentId) {
+        ruleRepository.findByCountryAndStateAndPostalPrefix(rule.getCountry(), rule.getState(), rule.getPostalPrefix())
+                .filter(existing -> !existing.getId().equals(currentId))
+                .ifPresent(existing -> {
+                    throw new RuntimeException("Ya existe una regla para ese destino");
+                });
+    }
+    
+    private void reloadOnCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+}
@@ -0,0 +1,193 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.ShippingTaxRule;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reglas de envío e impuestos compiladas en una estructura inmutable: un mapa por país,
+ * dentro un mapa por estado y un trie de prefijos postales. La herencia de importes
+ * entre reglas se resuelve al compilar, así cada consulta es como mucho dos búsquedas
+ * en mapas y un recorrido del código postal, sin acceso a la base de datos.
+ */
+public final class PricingRules {
+    
+    /**
+     * Costo de envío y tasa de impuesto resueltos para un destino
+     */
+    public record Rate(BigDecimal shippingCost, BigDecimal taxRate) {
+    }
+    
+    private final Rate defaultRate;
+    private final Map<String, CountryRules> countries;
+    private final int ruleCount;
+    
+    private PricingRules(Rate defaultRate, Map<String, CountryRules> countries, int ruleCount) {
+        this.defaultRate = defaultRate;
+        this.countries = countries;
+        this.ruleCount = ruleCount;
+    }
+    
+    /**
+     * Compila las reglas. Precedencia: prefijo postal más largo, estado, país y por último
+     * la tarifa por defecto; un importe null se hereda del nivel anterior.
+     * @param rules Reglas tal como están en la base de datos
+     * @param defaultRate Tarifa para destinos sin ninguna regla
+     */
+    public static PricingRules compile(List<ShippingTaxRule> rules, Rate defaultRate) {
+        Map<String, List<ShippingTaxRule>> byCountry = new HashMap<>();
+        rules.stream()
+                .sorted(Comparator.comparing(ShippingTaxRule::getId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(rule -> byCountry.computeIfAbsent(normalize(rule.getCountry()), key -> new ArrayList<>()).add(rule));
+        
+        Map<String, CountryRules> countries = new HashMap<>();
+        byCountry.forEach((country, countryRules) -> {
+            Rate countryRate = defaultRate;
+            for (ShippingTaxRule rule : countryRules) {
+                if (isBlank(rule.getState()) && isBlank(rule.getPostalPrefix())) {
+                    countryRate = inherit(countryRate, rule);
+                }
+            }
+            
+            Map<String, Rate> states = new HashMap<>();
+            TrieBuilder postal = new TrieBuilder();
+            for (ShippingTaxRule rule : countryRules) {
+                if (!isBlank(rule.getPostalPrefix())) {
+                    postal.add(normalizePostal(rule.getPostalPrefix()), rule);
+                } else if (!isBlank(rule.getState())) {
+                    Rate inherited = states.getOrDefault(normalize(rule.getState()), countryRate);
+                    states.put(normalize(rule.getState()), inherit(inherited, rule));
+                }
+            }
+            countries.put(country, new CountryRules(countryRate, Map.copyOf(states), postal.freeze(countryRate)));
+        });
+        return new PricingRules(defaultRate, Map.copyOf(countries), rules.size());
+    }
+    
+    /**
+     * Tarifa aplicable a un destino
+     */
+    public Rate lookup(String country, String state, String postalCode) {
+        CountryRules rules = country == null ? null : countries.get(normalize(country));
+        if (rules == null) {
+            return defaultRate;
+        }
+        Rate postal = postalCode == null ? null : rules.postal().longestPrefix(postalCode);
+        if (postal != null) {
+            return postal;
+        }
+        Rate stateRate = state == null ? null : rules.states().get(normalize(state));
+        return stateRate != null ? stateRate : rules.rate();
+    }
+    
+    public int size() {
+        return ruleCount;
+    }
+    
+    private static Rate inherit(Rate parent, ShippingTaxRule rule) {
+        return new Rate(
+                rule.getShippingCost() != null ? rule.getShippingCost() : parent.shippingCost(),
+                rule.getTaxRate() != null ? rule.getTaxRate() : parent.taxRate());
+    }
+    
+    static String normalize(String value) {
+        return value.trim().toUpperCase(Locale.ROOT);
+    }
+    
+    static String normalizePostal(String value) {
+        StringBuilder normalized = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isPostalChar(c)) {
+                normalized.append(Character.toUpperCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+    
+    // Espacios y guiones no cuentan: "06 600" y "06-600" son el mismo código
+    private static boolean isPostalChar(char c) {
+        return c != ' ' && c != '-';
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+    
+    private record CountryRules(Rate rate, Map<String, Rate> states, TrieNode postal) {
+    }
+    
+    /**
+     * Nodo del trie compilado: hijos en arreglos ordenados para búsqueda binaria
+     */
+    private static final class TrieNode {
+        
+        private final char[] labels;
+        private final TrieNode[] children;
+        private final Rate rate;
+        
+        private TrieNode(char[] labels, TrieNode[] children, Rate rate) {
+            this.labels = labels;
+            this.children = children;
+            this.rate = rate;
+        }
+        
+        // Tarifa del prefijo con regla más largo contenido en el código, o null
+        Rate longestPrefix(String postalCode) {
+            TrieNode node = this;
+            Rate match = node.rate;
+            for (int i = 0; i < postalCode.length(); i++) {
+                char c = postalCode.charAt(i);
+                if (!isPostalChar(c)) {
+                    continue;
+                }
+                int index = Arrays.binarySearch(node.labels, Character.toUpperCase(c));
+                if (index < 0) {
+                    break;
+                }
+                node = node.children[index];
+                if (node.rate != null) {
+                    match = node.rate;
+                }
+            }
+            return match;
+        }
+    }
+    
+    private static final class TrieBuilder {
+        
+        private final TreeMap<Character, TrieBuilder> children = new TreeMap<>();
+        private ShippingTaxRule rule;
+        
+        void add(String prefix, ShippingTaxRule rule) {
+            TrieBuilder node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), key -> new TrieBuilder());
+            }
+            node.rule = rule;
+        }
+        
+        // Cada nodo con regla hereda del prefijo con regla más cercano por encima
+        TrieNode freeze(Rate inherited) {
+            Rate rate = rule != null ? inherit(inherited, rule) : null;
+            Rate forChildren = rate != null ? rate : inherited;
+            char[] labels = new char[children.size()];
+            TrieNode[] frozen = new TrieNode[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, TrieBuilder> entry : children.entrySet()) {
+                labels[i] = entry.getKey();
+                frozen[i] = entry.getValue().freeze(forChildren);
+                i++;
+            }
+            return new TrieNode(labels, frozen, rate);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.abnercila.ecommerce_app.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria sobre nombre, descripción y categoría de los productos.
+ * Cada término normalizado (ver SearchText) apunta a los productos que lo contienen con
+ * su frecuencia ponderada por campo; las consultas se puntúan con BM25 sin tocar la base
+ * de datos. Se mantiene al día producto a producto con upsert/remove.
+ * <p>
+ * Todos los términos de la consulta deben aparecer en el producto; el último se trata
+ * como prefijo para que la búsqueda responda mientras el usuario escribe.
+ * <p>
+ * Para corregir errores de escritura el vocabulario se indexa también por borrado
+ * simétrico: cada término se registra bajo las variantes que resultan de quitarle uno o
+ * dos caracteres a sus primeros PREFIX_LENGTH caracteres. Un término mal escrito genera
+ * sus propios borrados y los candidatos a distancia 1-2 son los que comparten alguno, sin
+ * recorrer todo el vocabulario; el coste por consulta queda acotado por PREFIX_LENGTH.
+ */
+@Component
+public class ProductSearchIndex {
+    
+    // Parámetros habituales de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    
+    // Peso de cada campo en la frecuencia del término
+    private static final float NAME_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    
+    // Máximo de términos del vocabulario en que se expande el prefijo final
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    
+    // Borrado simétrico: distancia máxima, longitud mínima corregible y prefijo indexado
+    private static final int MAX_EDIT_DISTANCE = 2;
+    private static final int MIN_CORRECTABLE_LENGTH = 3;
+    private static final int PREFIX_LENGTH = 7;
+    
+    /**
+     * Producto con su puntuación para una consulta
+     */
+    public record Hit(Long productId, double score) {
+    }
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Set<String>> deletes = new HashMap<>();
+    private double totalLength;
+    
+    // Términos y longitud ponderada de un producto indexado, para poder retirarlo
+    private record Document(String[] terms, float length) {
+    }
+    
+    /**
+     * Indexa un producto, sustituyendo su versión anterior si ya estaba
+     */
+    public void upsert(Long productId, String name, String description, String category) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, name, NAME_WEIGHT);
+        addField(frequencies, category, CATEGORY_WEIGHT);
+        addField(frequencies, description, DESCRIPTION_WEIGHT);
+        float length = 0;
+        for (float frequency : frequencies.values()) {
+            length += frequency;
+        }
+        
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            String[] terms = new String[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+                // El documento guarda la clave del vocabulario, no su propia copia del término
+                Map.Entry<String, Map<Long, Float>> existing = postings.ceilingEntry(entry.getKey());
+                Map<Long, Float> posting;
+                if (existing != null && existing.getKey().equals(entry.getKey())) {
+                    terms[i++] = existing.getKey();
+                    posting = existing.getValue();
+                } else {
+                    terms[i++] = entry.getKey();
+                    posting = new HashMap<>();
+                    postings.put(entry.getKey(), posting);
+                    addDeletes(entry.getKey());
+                }
+                posting.put(productId, entry.getValue());
+            }
+            documents.put(productId, new Document(terms, length));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Vacía el índice antes de una reconstrucción completa
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            deletes.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Productos que contienen todos los términos de la consulta, de mayor a menor relevancia
+     * @param query Texto libre del usuario
+     * @param limit Máximo de resultados
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> tokens = SearchText.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = totalLength / documents.size();
+            Map<Long, Double> scores = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean prefix = i == tokens.size() - 1;
+                Map<Long, Double> termScores = scoreTerm(tokens.get(i), prefix, averageLength, scores);
+                if (termScores.isEmpty()) {
+                    return List.of();
+                }
+                if (scores != null) {
+                    // termScores ya se limitó a los candidatos vigentes: se acumula la puntuación
+                    Map<Long, Double> previous = scores;
+                    termScores.replaceAll((productId, score) -> score + previous.get(productId));
+                }
+                scores = termScores;
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Corrige los términos de la consulta que no existen en el vocabulario por el término
+     * más cercano (distancia de edición 1, o 2 en palabras de más de 4 letras); a igual
+     * distancia gana el que aparece en más productos.
+     * @param query Texto libre del usuario
+     * @return Consulta corregida, o null si no hay nada que corregir o algún término no
+     *         tiene candidatos
+     */
+    public String correct(String query) {
+        List<String> tokens = SearchText.tokenize(query);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        
+        lock.readLock().lock();
+        try {
+            List<String> corrected = new ArrayList<>(tokens.size());
+            boolean changed = false;
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                // El último término se busca como prefijo: basta con que empiece algún término
+                String next = postings.ceilingKey(token);
+                boolean known = i == tokens.size() - 1
+                        ? next != null && next.startsWith(token)
+                        : postings.containsKey(token);
+                if (known) {
+                    corrected.add(token);
+                    continue;
+                }
+                String candidate = closestTerm(token);
+                if (candidate == null) {
+                    return null;
+                }
+                corrected.add(candidate);
+                changed = true;
+            }
+            return changed ? String.join(" ", corrected) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Puntuación BM25 de un término para cada producto que lo contiene. Un prefijo se
+     * expande a los términos del vocabulario que empiezan por él y cada producto se queda
+     * con la mejor de sus expansiones. Si hay candidatos previos, solo se puntúan esos.
+     */
+    private Map<Long, Double> scoreTerm(String token, boolean prefix, double averageLength, Map<Long, Double> candidates) {
+        Map<Long, Double> scores = new HashMap<>();
+        Iterable<Map.Entry<String, Map<Long, Float>>> terms;
+        if (prefix) {
+            NavigableMap<String, Map<Long, Float>> expansions = postings.subMap(token, true, token + Character.MAX_VALUE, false);
+            terms = expansions.entrySet();
+        } else {
+            Map<Long, Float> exact = postings.get(token);
+            terms = exact == null ? List.of() : List.of(Map.entry(token, exact));
+        }
+        
+        int expanded = 0;
+        for (Map.Entry<String, Map<Long, Float>> term : terms) {
+            if (expanded++ == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            Map<Long, Float> posting = term.getValue();
+            double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+            if (candidates != null && candidates.size() < posting.size()) {
+                for (Long productId : candidates.keySet()) {
+                    Float frequency = posting.get(productId);
+                    if (frequency != null) {
+                        scores.merge(productId, bm25(idf, frequency, productId, averageLength), Math::max);
+                    }
+                }
+            } else {
+                for (Map.Entry<Long, Float> entry : posting.entrySet()) {
+                    if (candidates == null || candidates.containsKey(entry.getKey())) {
+                        scores.merge(entry.getKey(), bm25(idf, entry.getValue(), entry.getKey(), averageLength), Math::max);
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+    
+    private double bm25(double idf, float frequency, Long productId, double averageLength) {
+        double length = documents.get(productId).length();
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+    
+    // Los limit mejores con un montículo acotado; a igual puntuación, el ID más bajo primero
+    private static List<Hit> top(Map<Long, Double> scores, int limit) {
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparing(Hit::productId);
+        PriorityQueue<Hit> heap = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            Hit hit = new Hit(entry.getKey(), entry.getValue());
+            if (heap.size() < limit) {
+                heap.add(hit);
+            } else if (ranking.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        }
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort(ranking);
+        return Collections.unmodifiableList(hits);
+    }
+    
+    private String closestTerm(String token) {
+        if (token.length() < MIN_CORRECTABLE_LENGTH) {
+            return null;
+        }
+        int maxDistance = token.length() <= 4 ? 1 : MAX_EDIT_DISTANCE;
+        String best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        int bestFrequency = 0;
+        Set<String> seen = new HashSet<>();
+        for (String variant : deletesOf(token, maxDistance)) {
+            for (String term : deletes.getOrDefault(variant, Set.of())) {
+                if (!seen.add(term) || Math.abs(term.length() - token.length()) > maxDistance) {
+                    continue;
+                }
+                int distance = editDistance(token, term, maxDistance);
+                if (distance > maxDistance) {
+                    continue;
+                }
+                int frequency = postings.get(term).size();
+                if (distance < bestDistance || (distance == bestDistance
+                        && (frequency > bestFrequency || (frequency == bestFrequency && term.compareTo(best) < 0)))) {
+                    best = term;
+                    bestDistance = distance;
+                    bestFrequency = frequency;
+                }
+            }
+        }
+        return best;
+    }
+    
+    private void addDeletes(String term) {
+        for (String variant : deletesOf(term, MAX_EDIT_DISTANCE)) {
+            deletes.computeIfAbsent(variant, key -> new HashSet<>(2)).add(term);
+        }
+    }
+    
+    private void removeDeletes(String term) {
+        for (String variant : deletesOf(term, MAX_EDIT_DISTANCE)) {
+            Set<String> terms = deletes.get(variant);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    deletes.remove(variant);
+                }
+            }
+        }
+    }
+    
+    // El prefijo del término y sus variantes con hasta maxDistance caracteres borrados
+    private static Set<String> deletesOf(String term, int maxDistance) {
+        Set<String> variants = new HashSet<>();
+        String prefix = term.length() > PREFIX_LENGTH ? term.substring(0, PREFIX_LENGTH) : term;
+        variants.add(prefix);
+        List<String> frontier = List.of(prefix);
+        for (int distance = 1; distance <= maxDistance; distance++) {
+            List<String> next = new ArrayList<>();
+            for (String word : frontier) {
+                for (int i = 0; i < word.length(); i++) {
+                    String variant = word.substring(0, i) + word.substring(i + 1);
+                    if (variants.add(variant)) {
+                        next.add(variant);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return variants;
+    }
+    
+    /**
+     * Distancia de Damerau-Levenshtein (alineación óptima: una transposición de letras
+     * vecinas cuenta como un error). Abandona en cuanto supera max y devuelve max + 1.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previous2[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+    
+    private void removeLocked(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms()) {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                    removeDeletes(term);
+                }
+            }
+        }
+        totalLength -= document.length();
+    }
+    
+    private static void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String token : SearchText.tokenize(text)) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+    }
+}
@@ -1,15 +1,38 @@
 package com.abnercila.ecommerce_app.service;
 
+import com.abnercila.ecommerce_app.dto.ProductCard;
+import com.abnercila.ecommerce_app.dto.ProductDetail;
+import com.abnercila.ecommerce_app.dto.ProductListCriteria;
+import com.abnercila.ecommerce_app.dto.ProductPageResponse;
+import com.abnercila.ecommerce_app.dto.ProductSearchResponse;
+import com.abnercila.ecommerce_app.dto.ProductStockView;
 import com.abnercila.ecommerce_app.model.Product;
 import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.ProductSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -17,22 +40,106 @@ import java.util.Optional;
 @Transactional
 public class ProductService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
+    private final HotSkuStockService hotSkuStockService;
+    private final ReservationLedger reservationLedger;
+    private final EntityManager entityManager;
+    private final RestockService restockService;
+    private final ProductSearchIndex searchIndex;
     
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<ProductCard> getAllProducts() {
+        return withShardedStock(productRepository.findAllCards());
     }
     
-    public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+    /**
+     * Página del catálogo con filtros y orden, paginada por keyset
+     * @param criteria Filtros y orden
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera
+     * @param size Tamaño de página (máximo 100)
+     * @return Página de productos y cursor de la siguiente
+     */
+    @Transactional(readOnly = true)
+    public ProductPageResponse listProducts(ProductListCriteria criteria, String cursor, int size) {
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int limit = size + 1;
+        ProductListCriteria.SortBy sortBy = criteria.getSort() != null ? criteria.getSort() : ProductListCriteria.SortBy.NEWEST;
+        Specification<Product> spec = ProductSpecifications.matching(criteria);
+        if (cursor != null) {
+            spec = spec.and(decodeCursor(sortBy, cursor));
+        }
+        List<ProductCard> products = findCards(spec, ProductSpecifications.sortOf(sortBy), limit);
+        
+        boolean hasMore = products.size() > size;
+        if (hasMore) {
+            products = products.subList(0, size);
+        }
+        String nextCursor = hasMore ? encodeCursor(sortBy, products.get(products.size() - 1)) : null;
+        return new ProductPageResponse(withShardedStock(products), nextCursor, hasMore);
     }
     
-    public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+    /**
+     * Ficha del producto con su stock total y lo disponible para prometer
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductDetail> getProductDetail(Long id) {
+        return productRepository.findDetailById(id).map(detail -> {
+            if (detail.isHotSku()) {
+                detail.setStock(detail.getStock() + hotSkuStockService.getStock(id));
+            }
+            detail.setAvailableToPromise(Math.max(0, detail.getStock() - reservationLedger.held(id)));
+            return detail;
+        });
     }
     
-    public List<Product> searchProducts(String searchTerm) {
-        return productRepository.findByNameContainingIgnoreCase(searchTerm);
+    @Transactional(readOnly = true)
+    public Optional<ProductStockView> getProductStock(Long id) {
+        return getProductDetail(id).map(detail -> new ProductStockView(
+                detail.getId(), detail.getName(), detail.getStock(), detail.getStock() > 0, detail.getStock() < 10));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ProductCard> getProductsByCategory(String category) {
+        return withShardedStock(productRepository.findCardsByCategory(category));
+    }
+    
+    /**
+     * Busca en el índice invertido en memoria y solo va a la base de datos por clave
+     * primaria, para devolver precio y stock vigentes en el orden de relevancia. Si la
+     * consulta no encuentra nada se intenta de nuevo con sus errores de escritura
+     * corregidos y se devuelve la corrección junto con sus resultados.
+     * @param searchTerm Texto libre del usuario
+     * @param limit Máximo de resultados
+     */
+    @Transactional(readOnly = true)
+    public ProductSearchResponse searchProducts(String searchTerm, int limit) {
+        List<ProductSearchIndex.Hit> hits = searchIndex.search(searchTerm, limit);
+        String suggestion = null;
+        if (hits.isEmpty()) {
+            suggestion = searchIndex.correct(searchTerm);
+            if (suggestion == null) {
+                return new ProductSearchResponse(List.of(), null);
+            }
+            hits = searchIndex.search(suggestion, limit);
+        }
+        return new ProductSearchResponse(loadRanked(hits), suggestion);
+    }
+    
+    private List<ProductCard> loadRanked(List<ProductSearchIndex.Hit> hits) {
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductCard> products = productRepository.findCardsByIdIn(hits.stream()
+                        .map(ProductSearchIndex.Hit::productId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(ProductCard::getId, Function.identity()));
+        return withShardedStock(hits.stream()
+                .map(hit -> products.get(hit.productId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
     }
     
     public List<String> getAllCategories() {
@@ -46,80 +153,80 @@ public class ProductService {
      * @return true si se pudo reducir el stock, false si no hay suficiente stock
      */
     public boolean reduceStock(Long productId, int quantity) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        
-        if (productOpt.isEmpty()) {
-            log.error("Producto con ID {} no encontrado", productId);
-            return false;
-        }
-        
-        Product product = productOpt.get();
-        
-        if (product.getStock() < quantity) {
-            log.warn("Stock insuficiente para producto {}. Stock actual: {}, Cantidad solicitada: {}", 
-                    product.getName(), product.getStock(), quantity);
+        if (!inventoryService.decrementStock(productId, quantity)) {
+            log.warn("No se pudo reducir el stock del producto {}. Cantidad solicitada: {}", 
+                    productId, quantity);
             return false;
         }
         
-        product.setStock(product.getStock() - quantity);
-        productRepository.save(product);
-        
-        log.info("Stock reducido para producto {}. Nuevo stock: {}", 
-                product.getName(), product.getStock());
-        
+        log.info("Stock reducido para producto {} en {} unidades", productId, quantity);
         return true;
     }
     
     /**
-     * Aumenta el stock de un producto (para devoluciones)
+     * Aumenta el stock de un producto (para devoluciones).
+     * La devolución se encola y se aplica agrupada con las demás del mismo producto.
      * @param productId ID del producto
      * @param quantity Cantidad a aumentar
      */
     public void increaseStock(Long productId, int quantity) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        
-        if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            product.setStock(product.getStock() + quantity);
-            productRepository.save(product);
-            
-            log.info("Stock aumentado para producto {}. Nuevo stock: {}", 
-                    product.getName(), product.getStock());
-        } else {
+        if (!productRepository.existsById(productId)) {
             log.error("Producto con ID {} no encontrado para aumentar stock", productId);
+            return;
         }
+        restockService.enqueue(productId, quantity);
+        log.info("Devolución de {} unidades encolada para producto {}", quantity, productId);
     }
     
     /**
-     * Verifica si hay suficiente stock para una cantidad específica
+     * Verifica si hay suficiente stock disponible para prometer (stock menos unidades apartadas)
      * @param productId ID del producto
      * @param quantity Cantidad a verificar
      * @return true si hay suficiente stock
      */
     public boolean hasEnoughStock(Long productId, int quantity) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        
-        if (productOpt.isEmpty()) {
-            return false;
-        }
-        
-        return productOpt.get().getStock() >= quantity;
+        return getAvailableToPromise(productId).map(stock -> stock >= quantity).orElse(false);
+    }
+    
+    /**
+     * Stock disponible para prometer: stock físico menos las reservas activas
+     * @param productId ID del producto
+     * @return Unidades que aún se pueden vender o apartar, vacío si el producto no existe
+     */
+    @Transactional(readOnly = true)
+    public Optional<Integer> getAvailableToPromise(Long productId) {
+        return getAvailableStock(productId).map(stock -> Math.max(0, stock - reservationLedger.held(productId)));
+    }
+    
+    /**
+     * Stock disponible de un producto, sumando sus sub-contadores si está en modo hot SKU
+     * @param productId ID del producto
+     * @return Stock total, vacío si el producto no existe
+     */
+    @Transactional(readOnly = true)
+    public Optional<Integer> getAvailableStock(Long productId) {
+        return productRepository.findById(productId)
+                .map(product -> product.isHotSku() 
+                        ? product.getStock() + hotSkuStockService.getStock(productId) 
+                        : product.getStock());
     }
     
     /**
      * Obtiene productos con stock bajo (menos de 10 unidades)
      * @return Lista de productos con stock bajo
      */
-    public List<Product> getLowStockProducts() {
-        return productRepository.findByStockLessThan(10);
+    @Transactional(readOnly = true)
+    public List<ProductCard> getLowStockProducts() {
+        return productRepository.findLowStockCards(10);
     }
     
     /**
      * Obtiene productos agotados (stock = 0)
      * @return Lista de productos agotados
      */
-    public List<Product> getOutOfStockProducts() {
-        return productRepository.findByStock(0);
+    @Transactional(readOnly = true)
+    public List<ProductCard> getOutOfStockProducts() {
+        return productRepository.findCardsWithStock(0);
     }
     
     /**
@@ -143,23 +250,88 @@ public class ProductService {
      */
     @Transactional
     public boolean reduceStockForMultipleProducts(List<ProductStockCheck> productStockChecks) {
-        // Primero validamos que todos los productos tengan suficiente stock
-        if (!validateStockForMultipleProducts(productStockChecks)) {
-            log.error("No hay suficiente stock para algunos productos");
-            return false;
-        }
-        
-        // Si todos tienen suficiente stock, procedemos a reducir
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (ProductStockCheck check : productStockChecks) {
-            if (!reduceStock(check.getProductId(), check.getQuantity())) {
-                // Si falla uno, la transacción se hace rollback automáticamente
-                throw new RuntimeException("Error al reducir stock para producto " + check.getProductId());
-            }
+            quantities.merge(check.getProductId(), check.getQuantity(), Integer::sum);
         }
         
+        // Un solo batch de UPDATE condicionales; si falla uno, la transacción se revierte completa
+        inventoryService.decrementStock(quantities);
+        
         return true;
     }
     
+    /**
+     * Suma al stock de los productos hot SKU el de sus sub-contadores. Las tarjetas son
+     * proyecciones, así que el valor agregado nunca llega a la columna stock.
+     */
+    private List<ProductCard> withShardedStock(List<ProductCard> products) {
+        List<Long> hotSkuIds = products.stream()
+                .filter(ProductCard::isHotSku)
+                .map(ProductCard::getId)
+                .collect(Collectors.toList());
+        
+        if (hotSkuIds.isEmpty()) {
+            return products;
+        }
+        
+        Map<Long, Integer> shardedStock = hotSkuStockService.getStock(hotSkuIds);
+        for (ProductCard product : products) {
+            if (product.isHotSku()) {
+                product.setStock(product.getStock() + shardedStock.getOrDefault(product.getId(), 0));
+            }
+        }
+        return products;
+    }
+    
+    /**
+     * Tarjetas que cumplen la Specification, proyectadas en la propia consulta
+     */
+    private List<ProductCard> findCards(Specification<Product> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductCard> query = cb.createQuery(ProductCard.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(cb.construct(ProductCard.class,
+                root.get("id"), root.get("name"), root.get("description"), root.get("price"),
+                root.get("imageUrl"), root.get("category"), root.get("stock"), root.get("averageRating"),
+                root.get("reviewCount"), root.get("createdAt"), root.get("hotSku")));
+        query.where(spec.toPredicate(root, query, cb));
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+    
+    // El cursor lleva el orden con el que se generó para rechazarlo si la petición cambia de orden
+    private String encodeCursor(ProductListCriteria.SortBy sortBy, ProductCard last) {
+        Object value = switch (sortBy) {
+            case PRICE_ASC, PRICE_DESC -> last.getPrice().toPlainString();
+            case NAME -> last.getName();
+            case RATING -> last.getAverageRating().toPlainString();
+            case NEWEST -> last.getCreatedAt();
+        };
+        String raw = sortBy + "|" + value + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private Specification<Product> decodeCursor(ProductListCriteria.SortBy sortBy, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first < 0 || first == last || !raw.substring(0, first).equals(sortBy.name())) {
+                throw new RuntimeException("Cursor de paginación inválido");
+            }
+            String value = raw.substring(first + 1, last);
+            Long id = Long.parseLong(raw.substring(last + 1));
+            return switch (sortBy) {
+                case PRICE_ASC, PRICE_DESC, RATING -> ProductSpecifications.after(sortBy, new BigDecimal(value), id);
+                case NAME -> ProductSpecifications.after(sortBy, value, id);
+                case NEWEST -> ProductSpecifications.after(sortBy, LocalDateTime.parse(value), id);
+            };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RuntimeException("Cursor de paginación inválido");
+        }
+    }
+    
     /**
      * Clase auxiliar para verificaciones de stock
      */
@@ -0,0 +1,100 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.ProductSuggestion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Autocompletado del buscador. Las sugerencias salen de un SuggestionTrie inmutable
+ * publicado en un campo volatile: se reconstruye completo en un hilo del scheduler y se
+ * sustituye de una vez, sin bloquear a quien está consultando el anterior. La popularidad
+ * son las unidades vendidas en la ventana reciente según los rollups diarios por producto;
+ * la de una categoría es la suma de sus productos.
+ */
+@Service
+@Slf4j
+public class ProductSuggestService {
+    
+    private static final String PRODUCTS_SQL = "SELECT id, name, category FROM product";
+    
+    private static final String POPULARITY_SQL =
+            "SELECT dimension_key, SUM(units) FROM sales_rollups " +
+            "WHERE granularity = 'DAY' AND dimension = 'PRODUCT' AND bucket_start >= ? GROUP BY dimension_key";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int topK;
+    private final int popularityWindowDays;
+    private volatile SuggestionTrie trie;
+    
+    public ProductSuggestService(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.suggest.top-k:10}") int topK,
+                                 @Value("${app.suggest.popularity-window-days:30}") int popularityWindowDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.topK = topK;
+        this.popularityWindowDays = popularityWindowDays;
+        this.trie = SuggestionTrie.compile(List.of(), topK);
+    }
+    
+    /**
+     * Sugerencias para el prefijo escrito, de más a menos popular
+     * @param prefix Texto parcial del usuario
+     * @param limit Máximo de sugerencias
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        return trie.suggest(prefix, limit).stream()
+                .map(entry -> new ProductSuggestion(entry.text(),
+                        entry.productId() != null ? "PRODUCT" : "CATEGORY",
+                        entry.productId(), entry.category()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Reconstruye el trie con el catálogo y la popularidad actuales y lo publica
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.suggest.refresh-interval-millis:300000}",
+               fixedDelayString = "${app.suggest.refresh-interval-millis:300000}")
+    public void rebuild() {
+        long started = System.nanoTime();
+        Map<Long, Long> unitsSold = new HashMap<>();
+        jdbcTemplate.query(POPULARITY_SQL, rs -> {
+            unitsSold.put(Long.parseLong(rs.getString(1)), rs.getLong(2));
+        }, Timestamp.valueOf(LocalDateTime.now().minusDays(popularityWindowDays)));
+        
+        List<SuggestionTrie.Entry> entries = new ArrayList<>();
+        Map<String, Long> categories = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(PRODUCTS_SQL);
+            statement.setFetchSize(1000);
+            return statement;
+        }, rs -> {
+            long id = rs.getLong("id");
+            String category = rs.getString("category");
+            long popularity = unitsSold.getOrDefault(id, 0L);
+            entries.add(new SuggestionTrie.Entry(rs.getString("name"), category, id, popularity));
+            if (category != null) {
+                categories.merge(category, popularity, Long::sum);
+            }
+        });
+        categories.forEach((category, popularity) ->
+                entries.add(new SuggestionTrie.Entry(category, category, null, popularity)));
+        
+        SuggestionTrie compiled = SuggestionTrie.compile(entries, topK);
+        trie = compiled;
+        log.debug("Trie de sugerencias reconstruido: {} sugerencias, {} nodos en {} ms",
+                compiled.size(), compiled.nodeCount(), (System.nanoTime() - started) / 1_000_000);
+    }
+}
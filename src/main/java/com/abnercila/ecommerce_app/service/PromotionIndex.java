@@ -0,0 +1,231 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Promotion;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Promociones activas indexadas para el checkout: las de producto por id, las de
+ * categoría por nombre, las de carrito ordenadas por subtotal mínimo y los cupones por
+ * código. Evaluar un carrito solo recorre las promociones de sus productos, de sus
+ * categorías y las de carrito cuyo umbral ya se alcanzó, no todas las activas.
+ * <p>
+ * Cada línea recibe la mejor promoción automática de producto o categoría, el carrito
+ * la mejor promoción automática de carrito y el cupón, si lo hay, se suma encima.
+ */
+public final class PromotionIndex {
+    
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+    private static final Promotion[] NONE = new Promotion[0];
+    
+    /**
+     * Línea del carrito: importe bruto (precio por cantidad) de un producto
+     */
+    public record Line(Long productId, String category, BigDecimal amount) {
+    }
+    
+    /**
+     * Descuento total del carrito y promociones que lo componen
+     */
+    public record Result(BigDecimal discount, List<Promotion> applied, Promotion coupon) {
+    }
+    
+    private final Map<Long, Promotion[]> byProduct;
+    private final Map<String, Promotion[]> byCategory;
+    private final Promotion[] cartPromotions;
+    private final BigDecimal[] cartThresholds;
+    private final Map<String, Promotion> coupons;
+    private final int size;
+    
+    private PromotionIndex(Map<Long, Promotion[]> byProduct, Map<String, Promotion[]> byCategory,
+                           Promotion[] cartPromotions, Map<String, Promotion> coupons, int size) {
+        this.byProduct = byProduct;
+        this.byCategory = byCategory;
+        this.cartPromotions = cartPromotions;
+        this.cartThresholds = Arrays.stream(cartPromotions).map(PromotionIndex::threshold).toArray(BigDecimal[]::new);
+        this.coupons = coupons;
+        this.size = size;
+    }
+    
+    /**
+     * Indexa las promociones activas. Las ventanas de vigencia se comprueban al evaluar.
+     */
+    public static PromotionIndex compile(List<Promotion> promotions) {
+        Map<Long, List<Promotion>> byProduct = new HashMap<>();
+        Map<String, List<Promotion>> byCategory = new HashMap<>();
+        List<Promotion> cart = new ArrayList<>();
+        Map<String, Promotion> coupons = new HashMap<>();
+        int size = 0;
+        for (Promotion promotion : promotions) {
+            if (!promotion.isActive()) {
+                continue;
+            }
+            size++;
+            if (promotion.getCode() != null) {
+                coupons.put(normalizeCode(promotion.getCode()), promotion);
+            } else if (promotion.getScope() == Promotion.Scope.PRODUCT && promotion.getProductId() != null) {
+                byProduct.computeIfAbsent(promotion.getProductId(), key -> new ArrayList<>()).add(promotion);
+            } else if (promotion.getScope() == Promotion.Scope.CATEGORY && promotion.getCategory() != null) {
+                byCategory.computeIfAbsent(promotion.getCategory(), key -> new ArrayList<>()).add(promotion);
+            } else if (promotion.getScope() == Promotion.Scope.CART) {
+                cart.add(promotion);
+            }
+        }
+        cart.sort(Comparator.comparing(PromotionIndex::threshold));
+        
+        Map<Long, Promotion[]> productIndex = new HashMap<>();
+        byProduct.forEach((productId, list) -> productIndex.put(productId, list.toArray(NONE)));
+        Map<String, Promotion[]> categoryIndex = new HashMap<>();
+        byCategory.forEach((category, list) -> categoryIndex.put(category, list.toArray(NONE)));
+        return new PromotionIndex(Map.copyOf(productIndex), Map.copyOf(categoryIndex),
+                cart.toArray(NONE), Map.copyOf(coupons), size);
+    }
+    
+    /**
+     * Calcula el descuento de un carrito
+     * @param lines Líneas del carrito con su importe bruto
+     * @param couponCode Cupón indicado por el cliente, o null
+     * @param now Instante de la compra, para las ventanas de vigencia
+     * @throws RuntimeException si el cupón no existe, no está vigente o no aplica al carrito
+     */
+    public Result evaluate(List<Line> lines, String couponCode, LocalDateTime now) {
+        BigDecimal subtotal = lines.stream().map(Line::amount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<Promotion> applied = new ArrayList<>();
+        BigDecimal[] net = new BigDecimal[lines.size()];
+        
+        // Mejor promoción de producto o categoría por línea
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            Promotion best = best(byProduct.getOrDefault(line.productId(), NONE), -1, line.amount(), subtotal, now);
+            Promotion bestCategory = line.category() == null ? null
+                    : best(byCategory.getOrDefault(line.category(), NONE), -1, line.amount(), subtotal, now);
+            if (bestCategory != null && (best == null
+                    || discountOn(bestCategory, line.amount()).compareTo(discountOn(best, line.amount())) > 0)) {
+                best = bestCategory;
+            }
+            net[i] = best == null ? line.amount() : line.amount().subtract(discountOn(best, line.amount()));
+            if (best != null && !applied.contains(best)) {
+                applied.add(best);
+            }
+        }
+        BigDecimal afterLines = Arrays.stream(net).reduce(BigDecimal.ZERO, BigDecimal::add);
+        
+        // Mejor promoción de carrito entre las que ya alcanzaron su umbral
+        Promotion bestCart = best(cartPromotions, upperBound(subtotal), afterLines, subtotal, now);
+        BigDecimal cartDiscount = BigDecimal.ZERO;
+        if (bestCart != null) {
+            cartDiscount = discountOn(bestCart, afterLines);
+            applied.add(bestCart);
+        }
+        
+        BigDecimal total = subtotal.subtract(afterLines).add(cartDiscount);
+        Promotion coupon = null;
+        if (couponCode != null && !couponCode.isBlank()) {
+            coupon = coupons.get(normalizeCode(couponCode));
+            if (coupon == null || !isWithinWindow(coupon, now) || isExhausted(coupon)) {
+                throw new RuntimeException("Cupón inválido o expirado");
+            }
+            if (threshold(coupon).compareTo(subtotal) > 0) {
+                throw new RuntimeException("El cupón requiere un subtotal mínimo de " + coupon.getMinSubtotal());
+            }
+            BigDecimal base = afterLines.subtract(cartDiscount);
+            if (coupon.getScope() != Promotion.Scope.CART) {
+                base = BigDecimal.ZERO;
+                for (int i = 0; i < lines.size(); i++) {
+                    if (matches(coupon, lines.get(i))) {
+                        base = base.add(net[i]);
+                    }
+                }
+                if (base.signum() == 0) {
+                    throw new RuntimeException("El cupón no aplica a los productos del carrito");
+                }
+            }
+            total = total.add(discountOn(coupon, base));
+            applied.add(coupon);
+        }
+        return new Result(total.min(subtotal), applied, coupon);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    // Promoción aplicable con mayor descuento sobre el importe entre las primeras count (-1: todas), o null
+    private static Promotion best(Promotion[] candidates, int count, BigDecimal amount, BigDecimal subtotal, LocalDateTime now) {
+        Promotion best = null;
+        BigDecimal bestDiscount = BigDecimal.ZERO;
+        int limit = count < 0 ? candidates.length : count;
+        for (int i = 0; i < limit; i++) {
+            Promotion promotion = candidates[i];
+            if (isApplicable(promotion, subtotal, now)) {
+                BigDecimal discount = discountOn(promotion, amount);
+                if (discount.compareTo(bestDiscount) > 0) {
+                    best = promotion;
+                    bestDiscount = discount;
+                }
+            }
+        }
+        return best;
+    }
+    
+    // Número de promociones de carrito con subtotal mínimo <= subtotal
+    private int upperBound(BigDecimal subtotal) {
+        int low = 0;
+        int high = cartThresholds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cartThresholds[mid].compareTo(subtotal) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static boolean isApplicable(Promotion promotion, BigDecimal subtotal, LocalDateTime now) {
+        return threshold(promotion).compareTo(subtotal) <= 0 && isWithinWindow(promotion, now) && !isExhausted(promotion);
+    }
+    
+    private static boolean isWithinWindow(Promotion promotion, LocalDateTime now) {
+        return (promotion.getStartsAt() == null || !now.isBefore(promotion.getStartsAt()))
+                && (promotion.getEndsAt() == null || now.isBefore(promotion.getEndsAt()));
+    }
+    
+    // Los usos solo crecen: si la copia indexada ya está agotada, la fila también
+    private static boolean isExhausted(Promotion promotion) {
+        return promotion.getMaxRedemptions() != null && promotion.getRedemptionCount() >= promotion.getMaxRedemptions();
+    }
+    
+    private static boolean matches(Promotion promotion, Line line) {
+        return switch (promotion.getScope()) {
+            case PRODUCT -> line.productId().equals(promotion.getProductId());
+            case CATEGORY -> promotion.getCategory() != null && promotion.getCategory().equals(line.category());
+            case CART -> true;
+        };
+    }
+    
+    private static BigDecimal discountOn(Promotion promotion, BigDecimal amount) {
+        BigDecimal discount = promotion.getDiscountType() == Promotion.DiscountType.PERCENTAGE
+                ? amount.multiply(promotion.getDiscountValue()).divide(HUNDRED, 2, RoundingMode.HALF_UP)
+                : promotion.getDiscountValue();
+        return discount.min(amount);
+    }
+    
+    private static BigDecimal threshold(Promotion promotion) {
+        return promotion.getMinSubtotal() != null ? promotion.getMinSubtotal() : BigDecimal.ZERO;
+    }
+    
+    static String normalizeCode(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+}
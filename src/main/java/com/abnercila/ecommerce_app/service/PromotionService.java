@@ -0,0 +1,173 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Promotion;
+import com.abnercila.ecommerce_app.repository.PromotionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Promociones y cupones del checkout. Las promociones activas se compilan en un
+ * PromotionIndex inmutable publicado en un campo volatile, igual que las reglas de
+ * envío: evaluar un carrito no consulta la base de datos. Solo las promociones con
+ * límite de usos se tocan al comprar, con un UPDATE condicionado que nunca deja
+ * redemption_count por encima de max_redemptions aunque compitan varios checkouts.
+ */
+@Service
+@Slf4j
+public class PromotionService {
+    
+    private static final String REDEEM_SQL =
+            "UPDATE promotions SET redemption_count = redemption_count + 1 " +
+            "WHERE id = ? AND active = TRUE AND (max_redemptions IS NULL OR redemption_count < max_redemptions)";
+    
+    private final PromotionRepository promotionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile PromotionIndex index = PromotionIndex.compile(List.of());
+    
+    public PromotionService(PromotionRepository promotionRepository, JdbcTemplate jdbcTemplate) {
+        this.promotionRepository = promotionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Descuento aplicable a las líneas del carrito
+     * @throws RuntimeException si el cupón indicado no es válido para este carrito
+     */
+    public PromotionIndex.Result evaluate(List<PromotionIndex.Line> lines, String couponCode) {
+        return index.evaluate(lines, couponCode, LocalDateTime.now());
+    }
+    
+    /**
+     * Consume un uso de cada promoción limitada del resultado. Debe llamarse dentro de la
+     * transacción del checkout: si alguna ya no tiene usos, la orden completa se revierte.
+     */
+    @Transactional
+    public void redeem(PromotionIndex.Result result) {
+        List<Promotion> limited = result.applied().stream()
+                .filter(promotion -> promotion.getMaxRedemptions() != null)
+                .collect(Collectors.toList());
+        if (limited.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(REDEEM_SQL, limited.stream()
+                .map(promotion -> new Object[]{promotion.getId()})
+                .collect(Collectors.toList()));
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                log.info("Promoción {} sin usos disponibles", limited.get(i).getId());
+                throw new RuntimeException(limited.get(i) == result.coupon()
+                        ? "El cupón ya alcanzó su límite de usos"
+                        : "La promoción " + limited.get(i).getName() + " ya no está disponible, revisa tu carrito");
+            }
+        }
+    }
+    
+    /**
+     * Vuelve a indexar las promociones activas y sustituye el índice vigente
+     */
+    @Scheduled(fixedDelayString = "${app.promotions.refresh-interval-millis:30000}")
+    public void reload() {
+        PromotionIndex compiled = PromotionIndex.compile(promotionRepository.findByActiveTrue());
+        index = compiled;
+        log.debug("Promociones recargadas: {} activas", compiled.size());
+    }
+    
+    public List<Promotion> getPromotions() {
+        return promotionRepository.findAll(Sort.by("id"));
+    }
+    
+    @Transactional
+    public Promotion createPromotion(Promotion promotion) {
+        promotion.setId(null);
+        promotion.setRedemptionCount(0);
+        validate(promotion, null);
+        Promotion saved = promotionRepository.save(promotion);
+        reloadOnCommit();
+        log.info("Promoción creada: {} ({})", saved.getName(), saved.getCode() != null ? saved.getCode() : saved.getScope());
+        return saved;
+    }
+    
+    /**
+     * Actualiza la definición de una promoción; el contador de usos no se toca
+     */
+    @Transactional
+    public Promotion updatePromotion(Long id, Promotion changes) {
+        Promotion promotion = promotionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Promoción no encontrada"));
+        validate(changes, id);
+        promotion.setName(changes.getName());
+        promotion.setCode(changes.getCode());
+        promotion.setDiscountType(changes.getDiscountType());
+        promotion.setDiscountValue(changes.getDiscountValue());
+        promotion.setScope(changes.getScope());
+        promotion.setProductId(changes.getProductId());
+        promotion.setCategory(changes.getCategory());
+        promotion.setMinSubtotal(changes.getMinSubtotal());
+        promotion.setMaxRedemptions(changes.getMaxRedemptions());
+        promotion.setStartsAt(changes.getStartsAt());
+        promotion.setEndsAt(changes.getEndsAt());
+        promotion.setActive(changes.isActive());
+        Promotion saved = promotionRepository.save(promotion);
+        reloadOnCommit();
+        return saved;
+    }
+    
+    /**
+     * Desactiva la promoción; se conserva para el histórico de usos
+     */
+    @Transactional
+    public void deactivatePromotion(Long id) {
+        Promotion promotion = promotionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Promoción no encontrada"));
+        promotion.setActive(false);
+        promotionRepository.save(promotion);
+        reloadOnCommit();
+    }
+    
+    private void validate(Promotion promotion, Long currentId) {
+        if (promotion.getCode() != null) {
+            promotion.setCode(promotion.getCode().isBlank() ? null : PromotionIndex.normalizeCode(promotion.getCode()));
+        }
+        if (promotion.getScope() == Promotion.Scope.PRODUCT && promotion.getProductId() == null) {
+            throw new RuntimeException("Las promociones de producto requieren el ID del producto");
+        }
+        if (promotion.getScope() == Promotion.Scope.CATEGORY && (promotion.getCategory() == null || promotion.getCategory().isBlank())) {
+            throw new RuntimeException("Las promociones de categoría requieren la categoría");
+        }
+        if (promotion.getDiscountType() == Promotion.DiscountType.PERCENTAGE
+                && promotion.getDiscountValue().compareTo(new BigDecimal("100")) > 0) {
+            throw new RuntimeException("El porcentaje de descuento no puede superar 100");
+        }
+        if (promotion.getStartsAt() != null && promotion.getEndsAt() != null
+                && !promotion.getEndsAt().isAfter(promotion.getStartsAt())) {
+            throw new RuntimeException("La fecha de fin debe ser posterior a la de inicio");
+        }
+        if (promotion.getCode() != null) {
+            promotionRepository.findByCode(promotion.getCode())
+                    .filter(existing -> !existing.getId().equals(currentId))
+                    .ifPresent(existing -> {
+                        throw new RuntimeException("Ya existe un cupón con ese código");
+                    });
+        }
+    }
+    
+    private void reloadOnCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.abnercila.ecommerce_app.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Libro en memoria de unidades apartadas por producto.
+ * Está dividido en franjas (stripes) bloqueadas por separado, de modo que reservas
+ * sobre productos distintos no compiten por el mismo monitor. La tabla
+ * stock_reservation es la copia persistente y se usa para reconstruirlo al arrancar.
+ */
+@Component
+public class ReservationLedger {
+    
+    private static final int STRIPES = 64;
+    
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    
+    public ReservationLedger() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    
+    /**
+     * Aparta unidades solo si el stock disponible para prometer lo permite
+     * @param productId ID del producto
+     * @param quantity Cantidad a apartar
+     * @param stock Stock físico actual del producto
+     * @return true si se apartaron las unidades
+     */
+    public boolean tryHold(Long productId, int quantity, int stock) {
+        Stripe stripe = stripeFor(productId);
+        synchronized (stripe) {
+            int held = stripe.held.getOrDefault(productId, 0);
+            if (stock - held < quantity) {
+                return false;
+            }
+            stripe.held.put(productId, held + quantity);
+            return true;
+        }
+    }
+    
+    /**
+     * Aparta unidades sin validar stock (recuperación de reservas persistidas)
+     */
+    public void hold(Long productId, int quantity) {
+        Stripe stripe = stripeFor(productId);
+        synchronized (stripe) {
+            stripe.held.merge(productId, quantity, Integer::sum);
+        }
+    }
+    
+    public void release(Long productId, int quantity) {
+        Stripe stripe = stripeFor(productId);
+        synchronized (stripe) {
+            stripe.held.computeIfPresent(productId, (id, held) -> held > quantity ? held - quantity : null);
+        }
+    }
+    
+    /**
+     * Unidades apartadas actualmente para un producto
+     */
+    public int held(Long productId) {
+        Stripe stripe = stripeFor(productId);
+        synchronized (stripe) {
+            return stripe.held.getOrDefault(productId, 0);
+        }
+    }
+    
+    private Stripe stripeFor(Long productId) {
+        return stripes[(Long.hashCode(productId) & 0x7fffffff) % STRIPES];
+    }
+    
+    private static final class Stripe {
+        private final Map<Long, Integer> held = new HashMap<>();
+    }
+}
@@ -0,0 +1,295 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.ReservationRequest;
+import com.abnercila.ecommerce_app.dto.ReservationResponse;
+import com.abnercila.ecommerce_app.model.StockReservation;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.StockReservationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reservas de stock con tiempo límite.
+ * Las unidades apartadas viven en el ReservationLedger (en memoria) y en la tabla
+ * stock_reservation; una HashedTimingWheel las expira sin recorrer la tabla.
+ * Las reservas son del nodo que las creó: al arrancar se reconstruyen desde la tabla.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationService {
+    
+    private final StockReservationRepository reservationRepository;
+    private final ReservationLedger ledger;
+    private final ProductService productService;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${app.reservations.default-ttl-seconds:900}")
+    private int defaultTtlSeconds;
+    
+    @Value("${app.reservations.tick-millis:1000}")
+    private long tickMillis;
+    
+    @Value("${app.reservations.wheel-size:512}")
+    private int wheelSize;
+    
+    private final Map<Long, ActiveReservation> activeReservations = new ConcurrentHashMap<>();
+    
+    private HashedTimingWheel timingWheel;
+    
+    @PostConstruct
+    void startTimingWheel() {
+        timingWheel = new HashedTimingWheel(tickMillis, wheelSize, this::expire);
+        timingWheel.start();
+    }
+    
+    @PreDestroy
+    void stopTimingWheel() {
+        timingWheel.stop();
+    }
+    
+    /**
+     * Reconstruye el libro en memoria a partir de las reservas activas persistidas
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverActiveReservations() {
+        List<StockReservation> reservations = reservationRepository.findByStatus(StockReservation.ReservationStatus.ACTIVE);
+        for (StockReservation reservation : reservations) {
+            ledger.hold(reservation.getProductId(), reservation.getQuantity());
+            track(ActiveReservation.of(reservation));
+        }
+        if (!reservations.isEmpty()) {
+            log.info("Recuperadas {} reservas de stock activas", reservations.size());
+        }
+    }
+    
+    /**
+     * Aparta unidades de un producto durante el tiempo indicado
+     * @param user Comprador
+     * @param request Producto, cantidad y duración
+     * @return Reserva creada
+     */
+    @Transactional
+    public ReservationResponse reserve(User user, ReservationRequest request) {
+        Long productId = request.getProductId();
+        int quantity = request.getQuantity();
+        int stock = productService.getAvailableStock(productId)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + productId));
+        
+        if (!ledger.tryHold(productId, quantity, stock)) {
+            throw new RuntimeException("Stock insuficiente para apartar el producto");
+        }
+        
+        int ttlSeconds = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+        StockReservation reservation = new StockReservation();
+        reservation.setUserId(user.getId());
+        reservation.setProductId(productId);
+        reservation.setQuantity(quantity);
+        reservation.setStatus(StockReservation.ReservationStatus.ACTIVE);
+        reservation.setExpiresAt(LocalDateTime.now().plusSeconds(ttlSeconds));
+        
+        try {
+            reservation = reservationRepository.save(reservation);
+        } catch (RuntimeException e) {
+            ledger.release(productId, quantity);
+            throw e;
+        }
+        
+        ActiveReservation entry = ActiveReservation.of(reservation);
+        afterTransaction(
+            () -> track(entry),
+            () -> ledger.release(productId, quantity)
+        );
+        
+        log.info("Reserva {} creada: producto {}, cantidad {}, expira {}", 
+                reservation.getId(), productId, quantity, reservation.getExpiresAt());
+        return ReservationResponse.fromReservation(reservation);
+    }
+    
+    /**
+     * Libera una reserva antes de que expire
+     */
+    @Transactional
+    public void release(User user, Long reservationId) {
+        List<StockReservation> reservations = reservationRepository.findByIdInAndUserIdAndStatus(
+                List.of(reservationId), user.getId(), StockReservation.ReservationStatus.ACTIVE);
+        if (reservations.isEmpty()) {
+            throw new RuntimeException("Reserva no encontrada o ya finalizada");
+        }
+        close(reservations, StockReservation.ReservationStatus.RELEASED);
+    }
+    
+    /**
+     * Convierte reservas del usuario en parte de una orden. Debe llamarse dentro de la
+     * transacción del checkout: si ésta se revierte, las reservas vuelven a estar activas.
+     * Las unidades siguen apartadas hasta el commit; el checkout descuenta las propias
+     * (devueltas aquí) al comprobar el stock que otros compradores tienen apartado.
+     * @param user Comprador
+     * @param reservationIds Reservas a consumir
+     * @param cartQuantities Cantidad del carrito por producto
+     * @return Cantidad reservada por producto
+     */
+    @Transactional
+    public Map<Long, Integer> consume(User user, Collection<Long> reservationIds, Map<Long, Integer> cartQuantities) {
+        Map<Long, Integer> reserved = new HashMap<>();
+        if (reservationIds == null || reservationIds.isEmpty()) {
+            return reserved;
+        }
+        
+        List<StockReservation> reservations = reservationRepository.findByIdInAndUserIdAndStatus(
+                reservationIds, user.getId(), StockReservation.ReservationStatus.ACTIVE);
+        if (reservations.size() != reservationIds.size()) {
+            throw new RuntimeException("Una o más reservas no son válidas o ya expiraron");
+        }
+        
+        // Cada reserva debe cubrir una línea del carrito, sin apartar más de lo que se compra
+        for (StockReservation reservation : reservations) {
+            if (!cartQuantities.containsKey(reservation.getProductId())) {
+                throw new RuntimeException("La reserva " + reservation.getId() + " no corresponde a ningún producto del carrito");
+            }
+            reserved.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+        }
+        reserved.forEach((productId, quantity) -> {
+            if (quantity > cartQuantities.get(productId)) {
+                throw new RuntimeException("Las reservas del producto " + productId + " superan la cantidad del carrito");
+            }
+        });
+        
+        close(reservations, StockReservation.ReservationStatus.CONSUMED);
+        return reserved;
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ReservationResponse> getActiveReservations(User user) {
+        return reservationRepository.findByUserIdAndStatusOrderByExpiresAtAsc(
+                        user.getId(), StockReservation.ReservationStatus.ACTIVE)
+                .stream()
+                .map(ReservationResponse::fromReservation)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Cierra reservas activas. Se retiran de la rueda para que no expiren a mitad de la
+     * transacción, pero sus unidades siguen en el libro hasta el commit: así ningún otro
+     * checkout puede tomarlas antes de que el decremento de stock las descuente. Si la
+     * transacción se revierte se vuelven a programar.
+     */
+    private void close(List<StockReservation> reservations, StockReservation.ReservationStatus status) {
+        List<ActiveReservation> claimed = new ArrayList<>();
+        for (StockReservation reservation : reservations) {
+            ActiveReservation entry = activeReservations.remove(reservation.getId());
+            if (entry == null) {
+                claimed.forEach(this::restore);
+                throw new RuntimeException("La reserva " + reservation.getId() + " ya expiró");
+            }
+            claimed.add(entry);
+        }
+        
+        List<Long> ids = claimed.stream().map(ActiveReservation::id).collect(Collectors.toList());
+        
+        afterTransaction(
+            () -> claimed.forEach(entry -> {
+                entry.timeout().cancel();
+                ledger.release(entry.productId(), entry.quantity());
+            }),
+            () -> claimed.forEach(this::restore)
+        );
+        
+        if (reservationRepository.closeActive(ids, status) != ids.size()) {
+            throw new RuntimeException("Una o más reservas ya no están activas");
+        }
+    }
+    
+    /**
+     * Callback de la rueda de tiempo con las reservas vencidas en un tick. Las filas se
+     * cierran antes de liberar el libro: si la transacción falla siguen ACTIVE con sus
+     * unidades apartadas y se vuelven a programar para el siguiente tick.
+     */
+    private void expire(List<Long> reservationIds) {
+        List<ActiveReservation> expired = new ArrayList<>();
+        for (Long id : reservationIds) {
+            ActiveReservation entry = activeReservations.remove(id);
+            if (entry != null) {
+                expired.add(entry);
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        
+        List<Long> ids = expired.stream().map(ActiveReservation::id).collect(Collectors.toList());
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> reservationRepository.closeActive(ids, StockReservation.ReservationStatus.EXPIRED));
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron expirar {} reservas, se reintentará: {}", ids.size(), e.getMessage());
+            expired.forEach(this::restore);
+            return;
+        }
+        expired.forEach(entry -> ledger.release(entry.productId(), entry.quantity()));
+        
+        log.debug("Expiradas {} reservas de stock", ids.size());
+    }
+    
+    private void track(ActiveReservation entry) {
+        activeReservations.put(entry.id(), entry.withTimeout(timingWheel.schedule(entry.id(), entry.deadline())));
+    }
+    
+    private void restore(ActiveReservation entry) {
+        // El timeout original pudo dispararse mientras la reserva estaba reclamada;
+        // las unidades nunca salieron del libro
+        entry.timeout().cancel();
+        track(entry);
+    }
+    
+    private void afterTransaction(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+    
+    private record ActiveReservation(Long id, Long productId, int quantity, long deadline,
+                                     HashedTimingWheel.Timeout timeout) {
+        
+        static ActiveReservation of(StockReservation reservation) {
+            long deadline = reservation.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return new ActiveReservation(reservation.getId(), reservation.getProductId(),
+                    reservation.getQuantity(), deadline, null);
+        }
+        
+        ActiveReservation withTimeout(HashedTimingWheel.Timeout timeout) {
+            return new ActiveReservation(id, productId, quantity, deadline, timeout);
+        }
+    }
+}
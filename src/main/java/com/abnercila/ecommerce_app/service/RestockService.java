@@ -0,0 +1,134 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Devolución de stock asíncrona y agrupada. Cancelar o reembolsar una orden solo inserta
+ * filas en restock_queue dentro de su transacción; cada intervalo un consumidor toma la
+ * cola, suma las cantidades por producto y aplica un único batch de
+ * UPDATE stock = stock + delta. Mil cancelaciones del mismo producto se convierten en
+ * una sola escritura sobre su fila en lugar de mil.
+ */
+@Service
+@Slf4j
+public class RestockService {
+    
+    // El id sale de la secuencia de la entidad con la sintaxis del dialecto (ver SequenceSql);
+    // la lista IN se completa en cada llamada con un marcador por orden
+    private static final String ENQUEUE_ORDER_ITEMS_SQL =
+            "INSERT INTO restock_queue (id, order_id, product_id, quantity, created_at) " +
+            "SELECT %s, order_id, product_id, quantity, ? FROM order_items WHERE order_id IN (%%s)";
+    
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO restock_queue (id, order_id, product_id, quantity, created_at) " +
+            "VALUES (%s, NULL, ?, ?, ?)";
+    
+    // El tamaño del lote se aplica con setMaxRows: LIMIT no es portable entre bases de datos
+    private static final String SELECT_PENDING_SQL =
+            "SELECT id, product_id, quantity FROM restock_queue ORDER BY id";
+    
+    private static final String DELETE_SQL = "DELETE FROM restock_queue WHERE id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final String enqueueOrderItemsSql;
+    private final String enqueueSql;
+    
+    @Value("${app.restock.batch-size:5000}")
+    private int batchSize;
+    
+    public RestockService(JdbcTemplate jdbcTemplate,
+                          InventoryService inventoryService,
+                          TransactionTemplate transactionTemplate,
+                          SequenceSql sequenceSql) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryService = inventoryService;
+        this.transactionTemplate = transactionTemplate;
+        String nextId = sequenceSql.nextValue("restock_queue_seq");
+        this.enqueueOrderItemsSql = ENQUEUE_ORDER_ITEMS_SQL.formatted(nextId);
+        this.enqueueSql = ENQUEUE_SQL.formatted(nextId);
+    }
+    
+    /**
+     * Encola la devolución de los items de las órdenes que pasan a CANCELLED o REFUNDED,
+     * con una sola sentencia INSERT ... SELECT para todo el lote
+     */
+    @EventListener
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        List<Long> orderIds = event.changes().stream()
+                .filter(change -> change.to() == Order.OrderStatus.CANCELLED || change.to() == Order.OrderStatus.REFUNDED)
+                .map(OrderStatusChangedEvent.Change::orderId)
+                .collect(Collectors.toList());
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        String placeholders = orderIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.addAll(orderIds);
+        int rows = jdbcTemplate.update(enqueueOrderItemsSql.formatted(placeholders), args.toArray());
+        log.info("Devolución de stock encolada: {} items de {} órdenes", rows, orderIds.size());
+    }
+    
+    /**
+     * Encola una devolución manual de unidades de un producto
+     */
+    @Transactional
+    public void enqueue(Long productId, int quantity) {
+        jdbcTemplate.update(enqueueSql, productId, quantity, Timestamp.valueOf(LocalDateTime.now()));
+    }
+    
+    /**
+     * Aplica la cola en lotes. Cada lote borra sus filas y suma las cantidades en la misma
+     * transacción; el DELETE por id garantiza que si dos instancias toman la misma fila
+     * solo la aplica la que la borró.
+     */
+    @Scheduled(fixedDelayString = "${app.restock.flush-interval-millis:2000}")
+    public void flush() {
+        Integer applied;
+        do {
+            applied = transactionTemplate.execute(status -> flushBatch());
+        } while (applied != null && applied == batchSize);
+    }
+    
+    private int flushBatch() {
+        List<PendingRestock> pending = jdbcTemplate.query(SELECT_PENDING_SQL,
+                statement -> statement.setMaxRows(batchSize),
+                (rs, rowNum) -> new PendingRestock(rs.getLong("id"), rs.getLong("product_id"), rs.getInt("quantity")));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        
+        int[] deleted = jdbcTemplate.batchUpdate(DELETE_SQL, pending.stream()
+                .map(row -> new Object[]{row.id()})
+                .collect(Collectors.toList()));
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < pending.size(); i++) {
+            if (deleted[i] == 1) {
+                deltas.merge(pending.get(i).productId(), pending.get(i).quantity(), Integer::sum);
+            }
+        }
+        inventoryService.incrementStock(deltas);
+        return pending.size();
+    }
+    
+    private record PendingRestock(Long id, Long productId, int quantity) {
+    }
+}
@@ -59,6 +59,7 @@ public class ReviewService {
         review.setIsVerifiedPurchase(false);
         
         Review savedReview = reviewRepository.save(review);
+        productRepository.refreshRating(product.getId());
         return convertToResponse(savedReview);
     }
     
@@ -78,6 +79,7 @@ public class ReviewService {
         review.setComment(request.getComment());
         
         Review savedReview = reviewRepository.save(review);
+        productRepository.refreshRating(review.getProduct().getId());
         return convertToResponse(savedReview);
     }
     
@@ -94,6 +96,7 @@ public class ReviewService {
         }
         
         reviewRepository.delete(review);
+        productRepository.refreshRating(review.getProduct().getId());
     }
     
     /**
@@ -0,0 +1,287 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.SalesReportResponse;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.OrderItem;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.SalesRollup;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Rollups de ventas por hora y por día. Cada orden confirmada (o revertida) genera
+ * deltas para el total, sus categorías y sus productos; los deltas se acumulan en memoria
+ * tras el commit y se escriben en lote cada pocos segundos. Así las transacciones de pago
+ * no compiten por la fila del bucket de la hora actual, que tocan todas las órdenes.
+ * Un rango arbitrario se responde con buckets diarios para los días completos y
+ * buckets horarios solo para los extremos.
+ */
+@Service
+@Slf4j
+public class SalesRollupService {
+    
+    static final String TOTAL_KEY = "ALL";
+    
+    // Estados que cuentan como venta realizada
+    private static final Set<Order.OrderStatus> SOLD = EnumSet.of(
+            Order.OrderStatus.CONFIRMED, Order.OrderStatus.PROCESSING,
+            Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED);
+    
+    private static final String UPDATE_SQL =
+            "UPDATE sales_rollups SET revenue = revenue + ?, tax = tax + ?, shipping = shipping + ?, " +
+            "units = units + ?, order_count = order_count + ? " +
+            "WHERE granularity = ? AND dimension = ? AND bucket_start = ? AND dimension_key = ?";
+    
+    // El id sale de la secuencia de la entidad con la sintaxis del dialecto (ver SequenceSql)
+    private static final String INSERT_SQL =
+            "INSERT INTO sales_rollups (id, granularity, dimension, bucket_start, dimension_key, " +
+            "revenue, tax, shipping, units, order_count) " +
+            "VALUES (%s, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    // Días completos desde los buckets diarios y los extremos desde los horarios
+    private static final String REPORT_SQL =
+            "SELECT dimension_key, SUM(revenue), SUM(tax), SUM(shipping), SUM(units), SUM(order_count) " +
+            "FROM sales_rollups WHERE dimension = ? AND (" +
+            "(granularity = 'DAY' AND bucket_start >= ? AND bucket_start < ?) OR " +
+            "(granularity = 'HOUR' AND ((bucket_start >= ? AND bucket_start < ?) OR (bucket_start >= ? AND bucket_start < ?)))) " +
+            "GROUP BY dimension_key ORDER BY SUM(revenue) DESC";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String insertSql;
+    private final Map<BucketKey, Totals> pending = new ConcurrentHashMap<>();
+    
+    public SalesRollupService(JdbcTemplate jdbcTemplate,
+                              OrderRepository orderRepository,
+                              ProductRepository productRepository,
+                              TransactionTemplate transactionTemplate,
+                              SequenceSql sequenceSql) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.insertSql = INSERT_SQL.formatted(sequenceSql.nextValue("sales_rollups_seq"));
+    }
+    
+    /**
+     * Registra cambios de estado. Entrar a un estado de venta suma la orden a sus buckets;
+     * salir de él (cancelación o reembolso) la resta. Los items de las órdenes afectadas se
+     * cargan en una sola consulta, las categorías de todos sus productos en otra, y los
+     * deltas solo se aplican si la transacción confirma.
+     */
+    @EventListener
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        Map<Long, Integer> signs = new HashMap<>();
+        for (OrderStatusChangedEvent.Change change : event.changes()) {
+            int sign = (SOLD.contains(change.to()) ? 1 : 0) - (SOLD.contains(change.from()) ? 1 : 0);
+            if (sign != 0) {
+                signs.put(change.orderId(), sign);
+            }
+        }
+        if (signs.isEmpty()) {
+            return;
+        }
+        
+        List<Order> orders = orderRepository.findWithItemsByIdIn(signs.keySet());
+        Map<Long, String> categories = categoriesOf(orders);
+        Map<BucketKey, Totals> deltas = new HashMap<>();
+        for (Order order : orders) {
+            deltasOf(order, signs.get(order.getId()), categories)
+                    .forEach((key, totals) -> deltas.merge(key, totals, Totals::plus));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deltas.forEach((key, totals) -> pending.merge(key, totals, Totals::plus));
+                }
+            });
+        } else {
+            deltas.forEach((key, totals) -> pending.merge(key, totals, Totals::plus));
+        }
+    }
+    
+    /**
+     * Escribe los deltas acumulados: un batch de UPDATEs y otro de INSERTs para los
+     * buckets que aún no existían. Si falla, los deltas vuelven a la cola.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.flush-interval-millis:5000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<BucketKey, Totals> batch = new HashMap<>();
+        for (BucketKey key : new ArrayList<>(pending.keySet())) {
+            Totals totals = pending.remove(key);
+            if (totals != null) {
+                batch.put(key, totals);
+            }
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+            log.debug("Rollups de ventas actualizados: {} buckets", batch.size());
+        } catch (RuntimeException e) {
+            log.error("Error escribiendo rollups de ventas, se reintentará: {}", e.getMessage());
+            batch.forEach((key, totals) -> pending.merge(key, totals, Totals::plus));
+        }
+    }
+    
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+    
+    /**
+     * Ventas del rango [from, to) agrupadas por la dimensión indicada.
+     * Los extremos se redondean a la hora; un rango de 90 días lee 90 buckets diarios
+     * más como máximo 46 horarios por cada clave de la dimensión.
+     */
+    public SalesReportResponse getReport(LocalDateTime from, LocalDateTime to, SalesRollup.Dimension dimension) {
+        if (!from.isBefore(to)) {
+            throw new RuntimeException("El inicio del rango debe ser anterior al fin");
+        }
+        LocalDateTime start = from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime end = to.truncatedTo(ChronoUnit.HOURS).equals(to) ? to : to.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        
+        LocalDateTime firstFullDay = start.truncatedTo(ChronoUnit.DAYS).equals(start)
+                ? start : start.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+        LocalDateTime lastFullDay = end.truncatedTo(ChronoUnit.DAYS);
+        if (!firstFullDay.isBefore(lastFullDay)) {
+            // Sin días completos: todo el rango sale de buckets horarios
+            firstFullDay = end;
+            lastFullDay = end;
+        }
+        
+        List<SalesReportResponse.Row> rows = jdbcTemplate.query(REPORT_SQL,
+                (rs, rowNum) -> new SalesReportResponse.Row(
+                        rs.getString(1), rs.getBigDecimal(2), rs.getBigDecimal(3),
+                        rs.getBigDecimal(4), rs.getLong(5), rs.getLong(6)),
+                dimension.name(),
+                Timestamp.valueOf(firstFullDay), Timestamp.valueOf(lastFullDay),
+                Timestamp.valueOf(start), Timestamp.valueOf(firstFullDay),
+                Timestamp.valueOf(lastFullDay), Timestamp.valueOf(end));
+        return new SalesReportResponse(start, end, dimension.name(), rows);
+    }
+    
+    private void write(Map<BucketKey, Totals> batch) {
+        List<BucketKey> keys = new ArrayList<>(batch.keySet());
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, keys.stream()
+                .map(key -> {
+                    Totals t = batch.get(key);
+                    return new Object[]{t.revenue(), t.tax(), t.shipping(), t.units(), t.orders(),
+                            key.granularity().name(), key.dimension().name(),
+                            Timestamp.valueOf(key.bucketStart()), key.key()};
+                })
+                .collect(Collectors.toList()));
+        
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (updated[i] == 0) {
+                BucketKey key = keys.get(i);
+                Totals t = batch.get(key);
+                inserts.add(new Object[]{key.granularity().name(), key.dimension().name(),
+                        Timestamp.valueOf(key.bucketStart()), key.key(),
+                        t.revenue(), t.tax(), t.shipping(), t.units(), t.orders()});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertSql, inserts);
+        }
+    }
+    
+    // Categoría de cada producto de las órdenes del evento, en una sola consulta para todo el lote
+    private Map<Long, String> categoriesOf(List<Order> orders) {
+        Set<Long> productIds = orders.stream()
+                .flatMap(order -> order.getOrderItems().stream())
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toSet());
+        return productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p.getCategory() != null ? p.getCategory() : "Sin categoría"));
+    }
+    
+    private Map<BucketKey, Totals> deltasOf(Order order, int sign, Map<Long, String> categories) {
+        List<OrderItem> items = order.getOrderItems();
+        
+        // Descuento, impuesto y envío son de la orden: se reparten entre los items según su importe
+        BigDecimal discount = order.getDiscountAmount() != null ? order.getDiscountAmount() : BigDecimal.ZERO;
+        BigDecimal revenue = order.getSubtotal().subtract(discount);
+        Map<DimensionKey, Totals> byDimension = new HashMap<>();
+        long units = 0;
+        for (OrderItem item : items) {
+            BigDecimal share = order.getSubtotal().signum() == 0 ? BigDecimal.ZERO
+                    : item.getTotalPrice().divide(order.getSubtotal(), 6, RoundingMode.HALF_UP);
+            Totals itemTotals = new Totals(
+                    discount.signum() == 0 ? item.getTotalPrice() : revenue.multiply(share).setScale(2, RoundingMode.HALF_UP),
+                    order.getTaxAmount().multiply(share).setScale(2, RoundingMode.HALF_UP),
+                    order.getShippingCost().multiply(share).setScale(2, RoundingMode.HALF_UP),
+                    item.getQuantity(), 0);
+            Long productId = item.getProduct().getId();
+            byDimension.merge(new DimensionKey(SalesRollup.Dimension.PRODUCT, productId.toString()), itemTotals, Totals::plus);
+            byDimension.merge(new DimensionKey(SalesRollup.Dimension.CATEGORY, categories.get(productId)), itemTotals, Totals::plus);
+            units += item.getQuantity();
+        }
+        // Cada orden cuenta una sola vez por producto o categoría, aunque tenga varios items
+        byDimension.replaceAll((key, totals) -> totals.withOrders(1));
+        byDimension.put(new DimensionKey(SalesRollup.Dimension.TOTAL, TOTAL_KEY),
+                new Totals(revenue, order.getTaxAmount(), order.getShippingCost(), units, 1));
+        
+        LocalDateTime hour = order.getCreatedAt().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime day = order.getCreatedAt().truncatedTo(ChronoUnit.DAYS);
+        Map<BucketKey, Totals> deltas = new HashMap<>();
+        byDimension.forEach((dimensionKey, totals) -> {
+            Totals signed = sign > 0 ? totals : totals.negate();
+            deltas.put(new BucketKey(SalesRollup.Granularity.HOUR, hour, dimensionKey.dimension(), dimensionKey.key()), signed);
+            deltas.put(new BucketKey(SalesRollup.Granularity.DAY, day, dimensionKey.dimension(), dimensionKey.key()), signed);
+        });
+        return deltas;
+    }
+    
+    private record DimensionKey(SalesRollup.Dimension dimension, String key) {
+    }
+    
+    private record BucketKey(SalesRollup.Granularity granularity, LocalDateTime bucketStart,
+                             SalesRollup.Dimension dimension, String key) {
+    }
+    
+    private record Totals(BigDecimal revenue, BigDecimal tax, BigDecimal shipping, long units, long orders) {
+        
+        Totals plus(Totals other) {
+            return new Totals(revenue.add(other.revenue), tax.add(other.tax), shipping.add(other.shipping),
+                    units + other.units, orders + other.orders);
+        }
+        
+        Totals negate() {
+            return new Totals(revenue.negate(), tax.negate(), shipping.negate(), -units, -orders);
+        }
+        
+        Totals withOrders(long count) {
+            return new Totals(revenue, tax, shipping, units, count);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.abnercila.ecommerce_app.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto compartida por la búsqueda de productos: minúsculas, sin
+ * acentos ni diéresis ("audífonos" y "audifonos" son el mismo término) y separada en
+ * palabras alfanuméricas. Índice y consultas pasan por aquí para que coincidan.
+ */
+public final class SearchText {
+    
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    
+    // Palabras vacías en español que no aportan a la relevancia
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "sin", "su", "un", "una", "y");
+    
+    private SearchText() {
+    }
+    
+    /**
+     * Texto en minúsculas y sin marcas diacríticas
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Términos del texto ya normalizados, en orden y con repeticiones, sin palabras vacías
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = words(text);
+        tokens.removeIf(STOPWORDS::contains);
+        return tokens;
+    }
+    
+    /**
+     * Todas las palabras del texto normalizadas, incluidas las vacías
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : NON_ALPHANUMERIC.split(fold(text))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,29 @@
+package com.abnercila.ecommerce_app.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Expresión SQL para el siguiente valor de una secuencia según el dialecto configurado
+ * ("NEXT VALUE FOR s" en H2, "nextval('s')" en PostgreSQL). La usan los INSERT escritos
+ * a mano con JDBC para asignar ids de las mismas secuencias que las entidades.
+ */
+@Component
+public class SequenceSql {
+    
+    private final Dialect dialect;
+    
+    public SequenceSql(EntityManagerFactory entityManagerFactory) {
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+    
+    /**
+     * @param sequenceName Nombre de la secuencia
+     * @return Expresión que se puede usar como valor en un INSERT o en la lista de un SELECT
+     */
+    public String nextValue(String sequenceName) {
+        return dialect.getSequenceSupport().getSelectSequenceNextValString(sequenceName);
+    }
+}
@@ -0,0 +1,69 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Order;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pasarela simulada para desarrollo y tests: aprueba el 95% de los cobros
+ * tras una latencia configurable. Como una pasarela real, recuerda el resultado de
+ * cada clave de idempotencia y lo repite si la misma clave vuelve a llegar.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SimulatedPaymentGateway implements PaymentGateway {
+    
+    private static final int MAX_REMEMBERED_KEYS = 10_000;
+    
+    private final SnowflakeIdGenerator idGenerator;
+    
+    private final Map<String, PaymentResult> results = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PaymentResult> eldest) {
+            return size() > MAX_REMEMBERED_KEYS;
+        }
+    });
+    
+    @Value("${app.payments.simulated-latency-millis:0}")
+    private long latencyMillis;
+    
+    @Override
+    public PaymentResult charge(String orderNumber, BigDecimal amount, Order.PaymentMethod paymentMethod,
+                                String idempotencyKey) {
+        PaymentResult previous = idempotencyKey != null ? results.get(idempotencyKey) : null;
+        if (previous != null) {
+            log.info("Cobro repetido con clave {}, devolviendo el resultado original", idempotencyKey);
+            return previous;
+        }
+        log.info("Procesando pago de la orden {} con método: {}", orderNumber, paymentMethod);
+        
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Pago interrumpido", e);
+            }
+        }
+        
+        // 95% de éxito en pagos (para testing)
+        PaymentResult result = Math.random() > 0.05
+                ? new PaymentResult(true, idGenerator.nextTransactionId(), "Pago aprobado")
+                : new PaymentResult(false, null, "Pago rechazado");
+        if (idempotencyKey != null) {
+            PaymentResult raced = results.putIfAbsent(idempotencyKey, result);
+            if (raced != null) {
+                return raced;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package com.abnercila.ecommerce_app.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generador de identificadores únicos por nodo al estilo Snowflake:
+ * 41 bits de milisegundos desde 2024-01-01, 10 bits de nodo y 12 bits de secuencia.
+ * <p>
+ * Todo el estado (último milisegundo + secuencia) vive en un único AtomicLong que se
+ * actualiza con CAS, sin bloqueos. Si la secuencia se agota dentro de un milisegundo,
+ * el acarreo pasa al campo de tiempo y se toma prestado el milisegundo siguiente; si el
+ * reloj retrocede, se sigue usando el último milisegundo emitido. En ambos casos los
+ * identificadores siguen siendo crecientes y únicos dentro del nodo.
+ */
+@Component
+public class SnowflakeIdGenerator {
+    
+    private static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final AtomicLong state = new AtomicLong();
+    
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${app.node-id:0}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+    
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("El ID de nodo debe estar entre 0 y " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+    
+    /**
+     * Genera el siguiente identificador de este nodo
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+            
+            // Nuevo milisegundo: secuencia a cero. Mismo milisegundo o reloj atrasado:
+            // +1 sobre el estado, que acarrea al campo de tiempo al agotar la secuencia
+            long next = now > lastTimestamp ? now << SEQUENCE_BITS : current + 1;
+            
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+    
+    /**
+     * Número de orden legible, p. ej. ORD-123456789012345678
+     */
+    public String nextOrderNumber() {
+        return "ORD-" + nextId();
+    }
+    
+    /**
+     * Identificador de transacción de pago, p. ej. TXN-123456789012345678
+     */
+    public String nextTransactionId() {
+        return "TXN-" + nextId();
+    }
+}
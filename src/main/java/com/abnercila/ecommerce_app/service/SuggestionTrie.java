@@ -0,0 +1,234 @@
+package com.abnercila.ecommerce_app.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trie inmutable para el autocompletado. Las claves son los nombres de producto y las
+ * categorías normalizados (ver SearchText), indexados también desde cada palabra para que
+ * "1000" sugiera "Sony WH-1000XM5". Cada nodo guarda sus k mejores sugerencias por
+ * popularidad, así que responder un prefijo es bajar por sus caracteres y copiar la lista.
+ * <p>
+ * Para ocupar poco heap los nodos no son objetos: viven en arreglos paralelos de
+ * primitivos, con los hijos de cada nodo contiguos y ordenados por carácter (búsqueda
+ * binaria) y las listas top-k concatenadas en un único int[]. Las sugerencias se ordenan
+ * por popularidad antes de construir, de modo que su posición es su ranking.
+ */
+public final class SuggestionTrie {
+    
+    // Profundidad máxima indexada; prefijos más largos se resuelven con los primeros caracteres
+    static final int MAX_KEY_LENGTH = 48;
+    
+    /**
+     * Sugerencia indexada: un producto (productId) o una categoría (productId null)
+     */
+    public record Entry(String text, String category, Long productId, long popularity) {
+    }
+    
+    private final Entry[] entries;
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] topOffset;
+    private final byte[] topCount;
+    private final int[] top;
+    
+    private SuggestionTrie(Entry[] entries, Builder builder) {
+        this.entries = entries;
+        this.labels = Arrays.copyOf(builder.labels, builder.nodes);
+        this.firstChild = Arrays.copyOf(builder.firstChild, builder.nodes);
+        this.childCount = Arrays.copyOf(builder.childCount, builder.nodes);
+        this.topOffset = Arrays.copyOf(builder.topOffset, builder.nodes);
+        this.topCount = Arrays.copyOf(builder.topCount, builder.nodes);
+        this.top = Arrays.copyOf(builder.top, builder.topSize);
+    }
+    
+    /**
+     * Construye el trie guardando hasta k sugerencias por nodo
+     */
+    public static SuggestionTrie compile(List<Entry> suggestions, int k) {
+        if (k < 1 || k > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("k debe estar entre 1 y " + Byte.MAX_VALUE);
+        }
+        Entry[] entries = suggestions.toArray(new Entry[0]);
+        Arrays.sort(entries, Comparator.comparingLong(Entry::popularity).reversed()
+                .thenComparing(entry -> entry.text().length())
+                .thenComparing(Entry::text));
+        
+        // Una clave por cada palabra de inicio: "sony wh 1000xm5", "wh 1000xm5", "1000xm5"
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < entries.length; i++) {
+            List<String> words = SearchText.words(entries[i].text());
+            for (int start = 0; start < words.size(); start++) {
+                String key = String.join(" ", words.subList(start, words.size()));
+                keys.add(new Key(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key, i));
+            }
+        }
+        keys.sort(Comparator.comparing(Key::text).thenComparingInt(Key::entry));
+        
+        Builder builder = new Builder(k, keys);
+        builder.reserve(1);
+        builder.build(0, keys.size(), 0, 0);
+        return new SuggestionTrie(entries, builder);
+    }
+    
+    /**
+     * Mejores sugerencias para lo que el usuario lleva escrito
+     * @param prefix Texto parcial; se normaliza igual que las claves
+     * @param limit Máximo de sugerencias (como mucho k)
+     */
+    public List<Entry> suggest(String prefix, int limit) {
+        String key = String.join(" ", SearchText.words(prefix));
+        if (key.isEmpty() || labels.length == 0) {
+            return List.of();
+        }
+        int node = 0;
+        for (int i = 0; i < Math.min(key.length(), MAX_KEY_LENGTH); i++) {
+            node = child(node, key.charAt(i));
+            if (node < 0) {
+                return List.of();
+            }
+        }
+        int count = Math.min(topCount[node], limit);
+        List<Entry> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(entries[top[topOffset[node] + i]]);
+        }
+        return result;
+    }
+    
+    public int size() {
+        return entries.length;
+    }
+    
+    public int nodeCount() {
+        return labels.length;
+    }
+    
+    private int child(int node, char label) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < label) {
+                low = mid + 1;
+            } else if (labels[mid] > label) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
+    private record Key(String text, int entry) {
+    }
+    
+    /**
+     * Construcción recursiva sobre el rango ordenado de claves que comparten prefijo: los
+     * hijos de un nodo se reservan juntos antes de descender, y su top-k se calcula al
+     * volver mezclando el de los hijos con las claves que terminan en el nodo.
+     */
+    private static final class Builder {
+        
+        private final int k;
+        private final List<Key> keys;
+        // Un búfer de candidatos por profundidad, reutilizado entre nodos hermanos
+        private final int[][] candidatesByDepth;
+        private char[] labels = new char[1024];
+        private int[] firstChild = new int[1024];
+        private int[] childCount = new int[1024];
+        private int[] topOffset = new int[1024];
+        private byte[] topCount = new byte[1024];
+        private int[] top = new int[1024];
+        private int nodes;
+        private int topSize;
+        
+        private Builder(int k, List<Key> keys) {
+            this.k = k;
+            this.keys = keys;
+            this.candidatesByDepth = new int[MAX_KEY_LENGTH + 1][k * 2];
+        }
+        
+        private void build(int low, int high, int depth, int node) {
+            int[] candidates = candidatesByDepth[depth];
+            int candidateCount = 0;
+            
+            // Claves que terminan en este nodo
+            int start = low;
+            while (start < high && keys.get(start).text().length() == depth) {
+                candidateCount = offer(candidates, candidateCount, keys.get(start).entry());
+                start++;
+            }
+            
+            // Agrupa el resto por el carácter en esta profundidad
+            int groups = 0;
+            for (int i = start; i < high; i++) {
+                if (i == start || keys.get(i).text().charAt(depth) != keys.get(i - 1).text().charAt(depth)) {
+                    groups++;
+                }
+            }
+            int first = nodes;
+            reserve(groups);
+            firstChild[node] = first;
+            childCount[node] = groups;
+            
+            int child = first;
+            int groupStart = start;
+            for (int i = start + 1; i <= high; i++) {
+                if (i == high || keys.get(i).text().charAt(depth) != keys.get(groupStart).text().charAt(depth)) {
+                    labels[child] = keys.get(groupStart).text().charAt(depth);
+                    build(groupStart, i, depth + 1, child);
+                    for (int j = 0; j < topCount[child]; j++) {
+                        candidateCount = offer(candidates, candidateCount, top[topOffset[child] + j]);
+                    }
+                    child++;
+                    groupStart = i;
+                }
+            }
+            
+            Arrays.sort(candidates, 0, candidateCount);
+            int kept = Math.min(candidateCount, k);
+            ensureTop(kept);
+            topOffset[node] = topSize;
+            topCount[node] = (byte) kept;
+            System.arraycopy(candidates, 0, top, topSize, kept);
+            topSize += kept;
+        }
+        
+        // Añade un candidato sin repetir; al llenarse conserva los k mejores (índices menores)
+        private int offer(int[] candidates, int count, int entry) {
+            for (int i = 0; i < count; i++) {
+                if (candidates[i] == entry) {
+                    return count;
+                }
+            }
+            if (count == candidates.length) {
+                Arrays.sort(candidates);
+                count = k;
+            }
+            candidates[count] = entry;
+            return count + 1;
+        }
+        
+        private void reserve(int count) {
+            if (nodes + count > labels.length) {
+                int capacity = Math.max(labels.length * 2, nodes + count);
+                labels = Arrays.copyOf(labels, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                childCount = Arrays.copyOf(childCount, capacity);
+                topOffset = Arrays.copyOf(topOffset, capacity);
+                topCount = Arrays.copyOf(topCount, capacity);
+            }
+            nodes += count;
+        }
+        
+        private void ensureTop(int count) {
+            if (topSize + count > top.length) {
+                top = Arrays.copyOf(top, Math.max(top.length * 2, topSize + count));
+            }
+        }
+    }
+}
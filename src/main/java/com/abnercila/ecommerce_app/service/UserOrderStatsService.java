@@ -0,0 +1,258 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.UserOrderStatsResponse;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.UserOrderStats;
+import com.abnercila.ecommerce_app.repository.UserOrderStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene user_order_stats con UPDATEs atómicos (columna = columna + delta) dentro de
+ * la transacción que crea la orden o cambia su estado, de modo que las estadísticas
+ * nunca quedan confirmadas sin la orden ni al revés. Las lecturas pasan por un LRU
+ * acotado que se invalida al confirmar cada escritura. La fila de un usuario nuevo se
+ * crea aparte, en su propia transacción, para que una inserción concurrente duplicada
+ * no aborte la del checkout (en PostgreSQL un error invalida toda la transacción).
+ * Un job de reconciliación reconstruye la tabla completa desde orders y el archivo con
+ * un único INSERT ... SELECT.
+ */
+@Service
+@Slf4j
+public class UserOrderStatsService {
+    
+    private static final String STATUS_COLUMNS = Arrays.stream(Order.OrderStatus.values())
+            .map(UserOrderStatsService::statusColumn)
+            .collect(Collectors.joining(", "));
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO user_order_stats (user_id, order_count, total_spent, last_order_at, " + STATUS_COLUMNS +
+            ", updated_at) VALUES (?, 0, 0, NULL, " +
+            Arrays.stream(Order.OrderStatus.values()).map(s -> "0").collect(Collectors.joining(", ")) + ", ?)";
+    
+    private static final String DELETE_ALL_SQL = "DELETE FROM user_order_stats";
+    
+    // Reconstrucción completa: un SUM(CASE ...) por estado sobre orders y orders_archive agrupado por usuario
+    private static final String REBUILD_SQL =
+            "INSERT INTO user_order_stats (user_id, order_count, total_spent, last_order_at, " + STATUS_COLUMNS +
+            ", updated_at) SELECT user_id, COUNT(*), " +
+            "COALESCE(SUM(CASE WHEN status <> 'CANCELLED' THEN total_amount ELSE 0 END), 0), MAX(created_at), " +
+            Arrays.stream(Order.OrderStatus.values())
+                    .map(s -> "SUM(CASE WHEN status = '" + s.name() + "' THEN 1 ELSE 0 END)")
+                    .collect(Collectors.joining(", ")) +
+            ", ? FROM (SELECT user_id, status, total_amount, created_at FROM orders " +
+            "UNION ALL SELECT user_id, status, total_amount, created_at FROM orders_archive) o GROUP BY user_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final UserOrderStatsRepository statsRepository;
+    private final TransactionTemplate newTransaction;
+    private final Map<Long, UserOrderStatsResponse> cache;
+    
+    public UserOrderStatsService(JdbcTemplate jdbcTemplate,
+                                 UserOrderStatsRepository statsRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.user-stats.cache-size:10000}") int cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.statsRepository = statsRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserOrderStatsResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+    
+    /**
+     * Suma una orden nueva a las estadísticas de su usuario.
+     * Debe llamarse dentro de la transacción que inserta la orden.
+     */
+    @Transactional
+    public void recordOrderCreated(Order order) {
+        Long userId = order.getUser().getId();
+        BigDecimal spent = countsAsSpend(order.getStatus()) ? order.getTotalAmount() : BigDecimal.ZERO;
+        String column = statusColumn(order.getStatus());
+        String sql = "UPDATE user_order_stats SET order_count = order_count + 1, total_spent = total_spent + ?, " +
+                "last_order_at = CASE WHEN last_order_at IS NULL OR last_order_at < ? THEN ? ELSE last_order_at END, " +
+                column + " = " + column + " + 1, updated_at = ? WHERE user_id = ?";
+        LocalDateTime now = LocalDateTime.now();
+        Object[] args = {spent, order.getCreatedAt(), order.getCreatedAt(), now, userId};
+        
+        if (jdbcTemplate.update(sql, args) == 0) {
+            // Primera orden del usuario: crear la fila y aplicar el incremento
+            createRow(userId, now);
+            jdbcTemplate.update(sql, args);
+        }
+        evictOnCommit(userId);
+    }
+    
+    /**
+     * Inserta la fila vacía del usuario en una transacción independiente (REQUIRES_NEW).
+     * Si otra transacción la creó primero, el error queda dentro de la transacción interna
+     * y la del checkout sigue válida; si el checkout se revierte, la fila en ceros es inocua.
+     */
+    private void createRow(Long userId, LocalDateTime now) {
+        try {
+            newTransaction.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, userId, now));
+        } catch (DuplicateKeyException e) {
+            // Otra transacción creó la fila al mismo tiempo
+        }
+    }
+    
+    /**
+     * Mueve las órdenes de un estado a otro en las estadísticas de sus usuarios.
+     * Se ejecuta dentro de la transacción que cambió los estados; los cambios con el
+     * mismo par de estados comparten sentencia y van en un solo batch JDBC.
+     */
+    @EventListener
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        Map<List<Order.OrderStatus>, List<OrderStatusChangedEvent.Change>> byTransition = event.changes().stream()
+                .filter(change -> change.from() != change.to())
+                .collect(Collectors.groupingBy(change -> List.of(change.from(), change.to())));
+        LocalDateTime now = LocalDateTime.now();
+        
+        byTransition.forEach((transition, changes) -> {
+            Order.OrderStatus from = transition.get(0);
+            Order.OrderStatus to = transition.get(1);
+            String fromColumn = statusColumn(from);
+            String toColumn = statusColumn(to);
+            String sql = "UPDATE user_order_stats SET " + fromColumn + " = " + fromColumn + " - 1, " +
+                    toColumn + " = " + toColumn + " + 1, total_spent = total_spent + ?, updated_at = ? WHERE user_id = ?";
+            
+            List<Object[]> args = changes.stream()
+                    .map(change -> new Object[]{spentDelta(change), now, change.userId()})
+                    .collect(Collectors.toList());
+            int[] updated = jdbcTemplate.batchUpdate(sql, args);
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    // Sin fila todavía: la siguiente reconciliación la reconstruye desde orders
+                    log.warn("Estadísticas inexistentes para usuario {}, se corregirán en la reconciliación",
+                            changes.get(i).userId());
+                }
+            }
+        });
+        event.changes().stream()
+                .map(OrderStatusChangedEvent.Change::userId)
+                .distinct()
+                .forEach(this::evictOnCommit);
+    }
+    
+    private BigDecimal spentDelta(OrderStatusChangedEvent.Change change) {
+        if (countsAsSpend(change.from()) && !countsAsSpend(change.to())) {
+            return change.totalAmount().negate();
+        }
+        if (!countsAsSpend(change.from()) && countsAsSpend(change.to())) {
+            return change.totalAmount();
+        }
+        return BigDecimal.ZERO;
+    }
+    
+    /**
+     * Estadísticas del usuario; se leen de la caché o, si no están, de user_order_stats
+     */
+    @Transactional(readOnly = true)
+    public UserOrderStatsResponse getStats(Long userId) {
+        UserOrderStatsResponse cached = cache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        UserOrderStatsResponse stats = statsRepository.findById(userId)
+                .map(this::toResponse)
+                .orElseGet(() -> emptyStats(userId));
+        cache.put(userId, stats);
+        return stats;
+    }
+    
+    /**
+     * Reconstruye la tabla completa desde orders y orders_archive. Corrige cualquier desviación acumulada,
+     * por ejemplo de órdenes cuyo cambio de estado no encontró fila de estadísticas.
+     */
+    @Scheduled(cron = "${app.user-stats.reconcile-cron:0 30 3 * * *}")
+    @Transactional
+    public int reconcile() {
+        jdbcTemplate.update(DELETE_ALL_SQL);
+        int users = jdbcTemplate.update(REBUILD_SQL, LocalDateTime.now());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.clear();
+            }
+        });
+        log.info("Estadísticas de órdenes reconstruidas para {} usuarios", users);
+        return users;
+    }
+    
+    private void evictOnCommit(Long userId) {
+        cache.remove(userId);
+        // Se invalida otra vez tras el commit por si una lectura concurrente
+        // volvió a cachear el valor anterior mientras la transacción seguía abierta
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.remove(userId);
+            }
+        });
+    }
+    
+    private UserOrderStatsResponse toResponse(UserOrderStats stats) {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        byStatus.put(Order.OrderStatus.PENDING.name(), stats.getPendingCount());
+        byStatus.put(Order.OrderStatus.CONFIRMED.name(), stats.getConfirmedCount());
+        byStatus.put(Order.OrderStatus.PROCESSING.name(), stats.getProcessingCount());
+        byStatus.put(Order.OrderStatus.SHIPPED.name(), stats.getShippedCount());
+        byStatus.put(Order.OrderStatus.DELIVERED.name(), stats.getDeliveredCount());
+        byStatus.put(Order.OrderStatus.CANCELLED.name(), stats.getCancelledCount());
+        byStatus.put(Order.OrderStatus.REFUNDED.name(), stats.getRefundedCount());
+        return UserOrderStatsResponse.builder()
+                .userId(stats.getUserId())
+                .orderCount(stats.getOrderCount())
+                .totalSpent(stats.getTotalSpent())
+                .lastOrderAt(stats.getLastOrderAt())
+                .ordersByStatus(byStatus)
+                .build();
+    }
+    
+    private UserOrderStatsResponse emptyStats(Long userId) {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            byStatus.put(status.name(), 0L);
+        }
+        return UserOrderStatsResponse.builder()
+                .userId(userId)
+                .orderCount(0)
+                .totalSpent(BigDecimal.ZERO)
+                .ordersByStatus(byStatus)
+                .build();
+    }
+    
+    // Mismo criterio que el antiguo getTotalSpentByUser: todo excepto las canceladas
+    private static boolean countsAsSpend(Order.OrderStatus status) {
+        return status != Order.OrderStatus.CANCELLED;
+    }
+    
+    // El nombre de la columna sale del enum, nunca de la entrada del usuario
+    private static String statusColumn(Order.OrderStatus status) {
+        return status.name().toLowerCase() + "_count";
+    }
+}
@@ -0,0 +1,47 @@
+package com.abnercila.ecommerce_app;
+
+import java.util.Arrays;
+
+/**
+ * Muestras de latencia de los tests de rendimiento (@Tag("perf")). Cada llamada a
+ * time() mide una operación en nanosegundos; los percentiles se calculan ordenando
+ * las muestras, así que solo sirve para los pocos cientos de miles de un test.
+ */
+public class Latencies {
+
+    private long[] samples;
+    private int count;
+
+    public Latencies(int expected) {
+        this.samples = new long[Math.max(expected, 16)];
+    }
+
+    public void time(Runnable operation) {
+        long started = System.nanoTime();
+        operation.run();
+        record(System.nanoTime() - started);
+    }
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    /**
+     * @param percentile Entre 0 y 100
+     * @return Latencia del percentil en microsegundos
+     */
+    public double micros(double percentile) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d p50=%.1fus p99=%.1fus max=%.1fus", count, micros(50), micros(99), micros(100));
+    }
+}
@@ -0,0 +1,71 @@
+package com.abnercila.ecommerce_app;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StatementInspector de Hibernate que cuenta las sentencias SQL ejecutadas en los tests.
+ * Se registra con la propiedad hibernate.session_factory.statement_inspector.
+ * Solo cuenta las sentencias del hilo que llamó a reset(), para ignorar los workers
+ * y tareas programadas que corren en segundo plano.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final AtomicInteger selects = new AtomicInteger();
+    private static final AtomicInteger inserts = new AtomicInteger();
+    private static final AtomicInteger updates = new AtomicInteger();
+    private static final AtomicInteger deletes = new AtomicInteger();
+    private static volatile Thread owner;
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() != owner) {
+            return sql;
+        }
+        String statement = sql.trim().toLowerCase(Locale.ROOT);
+        if (statement.contains("next value for") || statement.contains("nextval")) {
+            // Las llamadas a secuencias dependen del estado del pool de IDs, no de la consulta
+            return sql;
+        }
+        if (statement.startsWith("select") || statement.startsWith("with")) {
+            selects.incrementAndGet();
+        } else if (statement.startsWith("insert")) {
+            inserts.incrementAndGet();
+        } else if (statement.startsWith("update")) {
+            updates.incrementAndGet();
+        } else if (statement.startsWith("delete")) {
+            deletes.incrementAndGet();
+        }
+        return sql;
+    }
+
+    public static void reset() {
+        owner = Thread.currentThread();
+        selects.set(0);
+        inserts.set(0);
+        updates.set(0);
+        deletes.set(0);
+    }
+
+    public static int selects() {
+        return selects.get();
+    }
+
+    public static int inserts() {
+        return inserts.get();
+    }
+
+    public static int updates() {
+        return updates.get();
+    }
+
+    public static int deletes() {
+        return deletes.get();
+    }
+
+    public static int total() {
+        return selects() + inserts() + updates() + deletes();
+    }
+}
@@ -0,0 +1,106 @@
+package com.abnercila.ecommerce_app.controller;
+
+import com.abnercila.ecommerce_app.SqlStatementCounter;
+import com.abnercila.ecommerce_app.dto.ReviewRequest;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.ReviewRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import com.abnercila.ecommerce_app.service.ReviewService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.abnercila.ecommerce_app.SqlStatementCounter",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class ProductCatalogQueryCountTests {
+
+    // Tope de bytes por producto serializado: una tarjeta sin reseñas ni entidades anidadas
+    private static final int MAX_BYTES_PER_PRODUCT = 600;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Con reseñas en el catálogo, serializar la entidad dispararía cargas perezosas
+    @BeforeEach
+    void reviewFirstProduct() {
+        User user = userRepository.findByEmail("juan@email.com").orElseThrow();
+        if (reviewRepository.findByUserIdAndProductId(user.getId(), 1L).isEmpty()) {
+            ReviewRequest request = new ReviewRequest();
+            request.setProductId(1L);
+            request.setRating(5);
+            request.setComment("Excelente");
+            reviewService.createReview(user.getId(), request);
+        }
+    }
+
+    @Test
+    void listingEndpointsRunOneSelectWithBoundedPayload() throws Exception {
+        assertCatalogCall("/api/products", 1);
+        assertCatalogCall("/api/products/category/laptops", 1);
+        assertCatalogCall("/api/products/search?query=laptop", 1);
+        assertCatalogCall("/api/products/categories", 1);
+        assertCatalogCall("/api/products/low-stock", 1);
+        assertCatalogCall("/api/products/out-of-stock", 1);
+        assertCatalogCall("/api/products/suggest?prefix=ma", 0);
+    }
+
+    @Test
+    void keysetPagesRunOneSelectAtAnyDepth() throws Exception {
+        JsonNode first = assertCatalogCall("/api/products/page?sort=PRICE_ASC&size=3", 1);
+        JsonNode second = assertCatalogCall("/api/products/page?sort=PRICE_ASC&size=3&cursor="
+                + first.get("nextCursor").asText(), 1);
+
+        assertThat(second.get("products")).hasSize(3);
+        assertThat(second.get("products").get(0).get("price").decimalValue())
+                .isGreaterThanOrEqualTo(first.get("products").get(2).get("price").decimalValue());
+    }
+
+    @Test
+    void detailAndStockViewsRunOneSelect() throws Exception {
+        JsonNode detail = assertCatalogCall("/api/products/1", 1);
+        assertCatalogCall("/api/products/1/stock", 1);
+
+        assertThat(detail.get("reviewCount").asInt()).isPositive();
+        assertThat(detail.has("reviews")).isFalse();
+    }
+
+    private JsonNode assertCatalogCall(String url, int expectedSelects) throws Exception {
+        SqlStatementCounter.reset();
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(SqlStatementCounter.selects()).as("SELECTs de %s", url).isEqualTo(expectedSelects);
+        assertThat(body).doesNotContain("\"reviews\"", "hibernateLazyInitializer");
+
+        JsonNode json = objectMapper.readTree(body);
+        JsonNode products = json.isArray() ? json : json.path("products");
+        int count = Math.max(products.isArray() ? products.size() : 1, 1);
+        assertThat(body.length()).as("bytes de %s", url).isLessThanOrEqualTo(count * MAX_BYTES_PER_PRODUCT);
+        return json;
+    }
+}
@@ -0,0 +1,85 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.Latencies;
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latencia del checkout según el tamaño del carrito. Con ids de secuencias agrupadas y
+ * los items insertados en batch, un carrito de 20 líneas no debe costar 20 veces uno de una.
+ */
+@Tag("perf")
+@SpringBootTest
+@ActiveProfiles("perf")
+class CheckoutPerfTests {
+
+    private static final int CHECKOUTS = 200;
+    private static final int LARGE_CART = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void largeCartsCostFarLessThanOneCheckoutPerLine() {
+        User user = userRepository.save(new User("Rendimiento", "checkout.perf@test.com", "secret"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < LARGE_CART; i++) {
+            products.add(new Product("Producto " + i, "Producto de prueba", new BigDecimal("10.00"),
+                    1_000_000, null, "pruebas"));
+        }
+        products = productRepository.saveAll(products);
+
+        measure(user, products.subList(0, 1));
+        measure(user, products);
+        Latencies single = measure(user, products.subList(0, 1));
+        Latencies large = measure(user, products);
+
+        System.out.printf("Checkout: 1 línea %s | %d líneas %s%n", single, LARGE_CART, large);
+        assertThat(large.micros(50)).isLessThan(single.micros(50) * 5);
+        assertThat(large.micros(99)).isLessThan(100_000.0);
+    }
+
+    private Latencies measure(User user, List<Product> products) {
+        CheckoutRequest request = checkout(products);
+        Latencies latencies = new Latencies(CHECKOUTS);
+        for (int i = 0; i < CHECKOUTS; i++) {
+            latencies.time(() -> orderService.createOrder(request, user));
+        }
+        return latencies;
+    }
+
+    private CheckoutRequest checkout(List<Product> products) {
+        List<CheckoutRequest.CartItemDto> items = products.stream()
+                .map(product -> new CheckoutRequest.CartItemDto(product.getId(), 1, product.getPrice()))
+                .toList();
+        BigDecimal total = products.stream().map(Product::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add);
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(items);
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, total));
+        return request;
+    }
+}
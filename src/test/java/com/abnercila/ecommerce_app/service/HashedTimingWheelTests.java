@@ -0,0 +1,55 @@
+package com.abnercila.ecommerce_app.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedTimingWheelTests {
+
+    private final Set<Long> expired = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch expirations = new CountDownLatch(2);
+    private final HashedTimingWheel wheel = new HashedTimingWheel(10, 8, this::onExpire);
+
+    @AfterEach
+    void stopWheel() {
+        wheel.stop();
+    }
+
+    @Test
+    void expiresDeadlinesBeyondOneRotationAndSkipsCancelled() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        wheel.start();
+        // 8 cubos de 10 ms: 250 ms da varias vueltas a la rueda
+        wheel.schedule(1, now + 30);
+        wheel.schedule(2, now + 250);
+        wheel.schedule(3, now + 60).cancel();
+
+        assertThat(expirations.await(5, TimeUnit.SECONDS)).isTrue();
+        long elapsed = System.currentTimeMillis() - now;
+
+        assertThat(expired).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(elapsed).isGreaterThanOrEqualTo(250 - 10);
+    }
+
+    @Test
+    void pastDeadlinesExpireOnTheNextTick() throws InterruptedException {
+        wheel.start();
+        wheel.schedule(7, System.currentTimeMillis() - 1_000);
+        wheel.schedule(8, System.currentTimeMillis() - 1);
+
+        assertThat(expirations.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(expired).containsExactlyInAnyOrder(7L, 8L);
+    }
+
+    private void onExpire(List<Long> ids) {
+        expired.addAll(ids);
+        ids.forEach(id -> expirations.countDown());
+    }
+}
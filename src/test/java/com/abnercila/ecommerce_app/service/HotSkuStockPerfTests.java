@@ -0,0 +1,106 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput de compras concurrentes sobre un solo producto, con y sin sub-contadores.
+ * Cada compra retiene el bloqueo de fila unos milisegundos, como el resto de un checkout,
+ * que es lo que serializa a los compradores de un producto en promoción.
+ */
+@Tag("perf")
+@SpringBootTest
+@ActiveProfiles("perf")
+class HotSkuStockPerfTests {
+
+    private static final int THREADS = 32;
+    private static final int PURCHASES_PER_THREAD = 25;
+    private static final int SHARDS = 8;
+    private static final long CHECKOUT_MILLIS = 2;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private HotSkuStockService hotSkuStockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void shardedCountersMultiplyCheckoutThroughputOnAHotProduct() throws InterruptedException {
+        int units = THREADS * PURCHASES_PER_THREAD;
+        Product plain = product(units);
+        Product hot = product(units);
+        hotSkuStockService.enableHotMode(hot.getId(), SHARDS);
+
+        double plainRate = purchasesPerSecond(plain.getId());
+        double hotRate = purchasesPerSecond(hot.getId());
+
+        System.out.printf("Hot SKU: %.0f compras/s en una fila, %.0f compras/s con %d sub-contadores%n",
+                plainRate, hotRate, SHARDS);
+        assertThat(hotSkuStockService.getStock(hot.getId())).isZero();
+        assertThat(productRepository.findById(plain.getId()).orElseThrow().getStock()).isZero();
+        assertThat(hotRate).isGreaterThan(plainRate * 2);
+    }
+
+    private double purchasesPerSecond(Long productId) throws InterruptedException {
+        AtomicInteger purchases = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < PURCHASES_PER_THREAD; i++) {
+                    Boolean bought = transactionTemplate.execute(status -> {
+                        boolean decremented = inventoryService.decrementStock(productId, 1);
+                        sleep(CHECKOUT_MILLIS);
+                        return decremented;
+                    });
+                    if (Boolean.TRUE.equals(bought)) {
+                        purchases.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        assertThat(purchases.get()).isEqualTo(THREADS * PURCHASES_PER_THREAD);
+        return purchases.get() / seconds;
+    }
+
+    private Product product(int stock) {
+        return productRepository.save(new Product("Promoción", "Producto en promoción",
+                new BigDecimal("10.00"), stock, null, "pruebas"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
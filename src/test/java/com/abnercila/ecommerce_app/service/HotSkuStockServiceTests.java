@@ -0,0 +1,86 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.ProductStockShard;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.ProductStockShardRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class HotSkuStockServiceTests {
+
+    @Autowired
+    private HotSkuStockService hotSkuStockService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockShardRepository shardRepository;
+
+    @Test
+    void enablingHotModeSpreadsStockAcrossShards() {
+        Long productId = hotProduct(10, 4);
+
+        assertThat(shardStocks(productId)).containsExactly(3, 3, 2, 2);
+        assertThat(productRepository.findById(productId).orElseThrow().getStock()).isZero();
+    }
+
+    @Test
+    void decrementLargerThanAnyShardTakesFromSeveral() {
+        Long productId = hotProduct(10, 4);
+
+        assertThat(inventoryService.decrementStock(productId, 7)).isTrue();
+
+        assertThat(hotSkuStockService.getStock(productId)).isEqualTo(3);
+        assertThat(shardStocks(productId)).allSatisfy(stock -> assertThat(stock).isNotNegative());
+    }
+
+    @Test
+    void decrementBeyondTotalStockLeavesShardsUntouched() {
+        Long productId = hotProduct(10, 4);
+
+        assertThat(inventoryService.decrementStock(productId, 11)).isFalse();
+        assertThatThrownBy(() -> inventoryService.decrementStock(Map.of(productId, 11)))
+                .hasMessageContaining("Stock insuficiente");
+
+        assertThat(shardStocks(productId)).containsExactly(3, 3, 2, 2);
+    }
+
+    @Test
+    void disablingHotModeConsolidatesShardsIntoTheProductRow() {
+        Long productId = hotProduct(10, 4);
+        inventoryService.decrementStock(Map.of(productId, 4));
+
+        Product product = hotSkuStockService.disableHotMode(productId);
+
+        assertThat(product.isHotSku()).isFalse();
+        assertThat(product.getStock()).isEqualTo(6);
+        assertThat(shardRepository.findByProductIdOrderByShardIndex(productId)).isEmpty();
+    }
+
+    private Long hotProduct(int stock, int shards) {
+        Product product = productRepository.save(new Product("Hot SKU", "Producto en promoción",
+                new BigDecimal("10.00"), stock, null, "pruebas"));
+        hotSkuStockService.enableHotMode(product.getId(), shards);
+        return product.getId();
+    }
+
+    private List<Integer> shardStocks(Long productId) {
+        return shardRepository.findByProductIdOrderByShardIndex(productId).stream()
+                .map(ProductStockShard::getStock)
+                .toList();
+    }
+}
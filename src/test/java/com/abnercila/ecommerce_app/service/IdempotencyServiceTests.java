@@ -0,0 +1,127 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.OrderResponse;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.IdempotencyKeyRepository;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class IdempotencyServiceTests {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentDuplicatesOnOneNodeCreateASingleOrder() throws InterruptedException {
+        Product product = product();
+        User user = userRepository.save(new User("Doble Click", "doble@test.com", "secret"));
+
+        Set<Long> orderIds = race(THREADS, i -> idempotencyService.checkout(checkout(product), user, "pago-1"));
+
+        assertSingleOrder(user, product, orderIds);
+    }
+
+    @Test
+    void concurrentDuplicatesAcrossNodesCreateASingleOrder() throws InterruptedException {
+        Product product = product();
+        User user = userRepository.save(new User("Dos Nodos", "nodos@test.com", "secret"));
+        // Otra instancia de la aplicación: no comparte el LRU ni las peticiones en curso
+        IdempotencyService otherNode = new IdempotencyService(orderService, idempotencyKeyRepository, 100);
+
+        Set<Long> orderIds = race(THREADS, i -> (i % 2 == 0 ? idempotencyService : otherNode)
+                .checkout(checkout(product), user, "pago-2"));
+
+        assertSingleOrder(user, product, orderIds);
+    }
+
+    private void assertSingleOrder(User user, Product product, Set<Long> orderIds) {
+        assertThat(orderIds).hasSize(1);
+        assertThat(orderRepository.findByUserOrderByCreatedAtDesc(user)).hasSize(1);
+        // Los checkouts que perdieron la carrera revirtieron su decremento
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isGreaterThanOrEqualTo(9);
+    }
+
+    /**
+     * Lanza las peticiones a la vez; todas deben responder sin error
+     */
+    private Set<Long> race(int requests, Request request) throws InterruptedException {
+        Set<Long> orderIds = ConcurrentHashMap.newKeySet();
+        Set<Throwable> errors = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+
+        for (int t = 0; t < requests; t++) {
+            int index = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    orderIds.add(request.send(index).getId());
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(errors).isEmpty();
+        return orderIds;
+    }
+
+    private Product product() {
+        return productRepository.save(new Product("Idempotente", "Producto de prueba",
+                new BigDecimal("10.00"), 10, null, "pruebas"));
+    }
+
+    private CheckoutRequest checkout(Product product) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(List.of(new CheckoutRequest.CartItemDto(product.getId(), 1, product.getPrice())));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, product.getPrice()));
+        return request;
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        OrderResponse send(int index);
+    }
+}
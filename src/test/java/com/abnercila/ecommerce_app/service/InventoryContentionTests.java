@@ -0,0 +1,133 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class InventoryContentionTests {
+
+    private static final int THREADS = 16;
+    private static final int UNITS = 5;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private HotSkuStockService hotSkuStockService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentDecrementsNeverOversell() throws InterruptedException {
+        Product product = lastUnits("Contención decremento");
+
+        int successes = race(THREADS, i -> inventoryService.decrementStock(product.getId(), 1));
+
+        assertThat(successes).isEqualTo(UNITS);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isZero();
+    }
+
+    @Test
+    void concurrentCheckoutsSellExactlyTheLastUnits() throws InterruptedException {
+        Product product = lastUnits("Contención checkout");
+        List<User> buyers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            buyers.add(userRepository.save(new User("Comprador " + i, "contencion" + i + "@test.com", "secret")));
+        }
+
+        int successes = race(THREADS, i -> {
+            orderService.createOrder(checkoutRequest(product), buyers.get(i));
+            return true;
+        });
+
+        assertThat(successes).isEqualTo(UNITS);
+        // Un cobro rechazado por la pasarela simulada devuelve su unidad al reponer el stock
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isNotNegative();
+    }
+
+    @Test
+    void concurrentDecrementsOnHotSkuNeverOversell() throws InterruptedException {
+        Product product = lastUnits("Contención hot SKU");
+        hotSkuStockService.enableHotMode(product.getId(), 4);
+
+        int successes = race(THREADS, i -> inventoryService.decrementStock(product.getId(), 1));
+
+        assertThat(successes).isEqualTo(UNITS);
+        assertThat(hotSkuStockService.getStock(product.getId())).isZero();
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isZero();
+    }
+
+    private Product lastUnits(String name) {
+        return productRepository.save(new Product(name, "Últimas unidades", new BigDecimal("10.00"),
+                UNITS, null, "pruebas"));
+    }
+
+    /**
+     * Lanza los intentos a la vez y cuenta los que compraron; una excepción cuenta como rechazo
+     */
+    private int race(int attempts, Attempt attempt) throws InterruptedException {
+        AtomicInteger successes = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(attempts);
+
+        for (int t = 0; t < attempts; t++) {
+            int index = t;
+            executor.submit((Callable<Void>) () -> {
+                start.await();
+                try {
+                    if (attempt.buy(index)) {
+                        successes.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    // Stock insuficiente: la compra se rechaza sin tocar el inventario
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        return successes.get();
+    }
+
+    private CheckoutRequest checkoutRequest(Product product) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(List.of(new CheckoutRequest.CartItemDto(product.getId(), 1, product.getPrice())));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, product.getPrice()));
+        return request;
+    }
+
+    @FunctionalInterface
+    private interface Attempt {
+        boolean buy(int index);
+    }
+}
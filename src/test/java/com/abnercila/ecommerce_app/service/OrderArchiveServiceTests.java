@@ -0,0 +1,118 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.BulkStatusRequest;
+import com.abnercila.ecommerce_app.dto.BulkStatusResponse;
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class OrderArchiveServiceTests {
+
+    // Plazo de reembolso configurado: 30 días
+    private static final int INSIDE_WINDOW_DAYS = 20;
+    private static final int PAST_WINDOW_DAYS = 40;
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private OrderArchiveService archiveService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderBulkStatusService bulkStatusService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deliveredOrderPastTheRefundWindowIsNotRefunded() throws InterruptedException {
+        Long orderId = settledOrder(Order.OrderStatus.DELIVERED, PAST_WINDOW_DAYS);
+
+        assertThatThrownBy(() -> orderService.refundOrder(orderId))
+                .hasMessageContaining("plazo de reembolso");
+        BulkStatusResponse bulk = bulkStatusService.apply(
+                new BulkStatusRequest(List.of(orderId), null, Order.OrderStatus.REFUNDED));
+        assertThat(bulk.getResults()).singleElement()
+                .extracting(BulkStatusResponse.Result::getOutcome)
+                .isEqualTo(BulkStatusResponse.Outcome.INVALID_TRANSITION);
+    }
+
+    @Test
+    void deliveredOrderStaysLiveUntilItsRefundWindowCloses() throws InterruptedException {
+        Long refundable = settledOrder(Order.OrderStatus.DELIVERED, INSIDE_WINDOW_DAYS);
+        Long expired = settledOrder(Order.OrderStatus.DELIVERED, PAST_WINDOW_DAYS);
+        Long cancelled = settledOrder(Order.OrderStatus.CANCELLED, INSIDE_WINDOW_DAYS);
+
+        // Antigüedad mínima por debajo del plazo de reembolso, y lotes de una orden
+        Object batchSize = ReflectionTestUtils.getField(archiveService, "batchSize");
+        ReflectionTestUtils.setField(archiveService, "minAgeDays", 10);
+        ReflectionTestUtils.setField(archiveService, "batchSize", 1);
+        try {
+            assertThat(archiveService.archive()).isGreaterThanOrEqualTo(2);
+        } finally {
+            ReflectionTestUtils.setField(archiveService, "minAgeDays", 90);
+            ReflectionTestUtils.setField(archiveService, "batchSize", batchSize);
+        }
+
+        assertThat(orderRepository.existsById(cancelled)).isFalse();
+        assertThat(orderRepository.existsById(expired)).isFalse();
+        assertThat(orderRepository.existsById(refundable)).isTrue();
+        assertThat(orderService.refundOrder(refundable).getStatus()).isEqualTo(Order.OrderStatus.REFUNDED.name());
+    }
+
+    // Orden con el cobro resuelto, llevada al estado indicado con su último cambio hace los días dados
+    private Long settledOrder(Order.OrderStatus status, int daysAgo) throws InterruptedException {
+        User user = userRepository.save(new User("Archivo", "archivo" + USERS.incrementAndGet() + "@test.com", "secret"));
+        Product product = productRepository.save(new Product("Archivable", "Producto de prueba",
+                new BigDecimal("10.00"), 10, null, "pruebas"));
+        Long orderId = orderService.createOrder(checkout(product), user).getId();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (orderRepository.findById(orderId).orElseThrow().getStatus() == Order.OrderStatus.PENDING
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        jdbcTemplate.update("UPDATE orders SET status = ?, updated_at = ? WHERE id = ?",
+                status.name(), Timestamp.valueOf(LocalDateTime.now().minusDays(daysAgo)), orderId);
+        return orderId;
+    }
+
+    private CheckoutRequest checkout(Product product) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(List.of(new CheckoutRequest.CartItemDto(product.getId(), 1, product.getPrice())));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, product.getPrice()));
+        return request;
+    }
+}
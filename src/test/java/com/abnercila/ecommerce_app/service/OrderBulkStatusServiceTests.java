@@ -0,0 +1,165 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.BulkStatusRequest;
+import com.abnercila.ecommerce_app.dto.BulkStatusResponse;
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class OrderBulkStatusServiceTests {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private OrderBulkStatusService bulkStatusService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pendingOrderCannotBeCancelledWhileItsChargeIsInFlight() throws InterruptedException {
+        Order order = paidOrder();
+        Order.OrderStatus charged = order.getStatus();
+        Order.PaymentStatus chargeResult = order.getPaymentStatus();
+        // Vuelve a dejar el cobro en vuelo: orden PENDING y fila del outbox sin procesar, fuera del alcance del sondeo
+        jdbcTemplate.update("UPDATE orders SET status = 'PENDING', payment_status = 'PENDING' WHERE id = ?", order.getId());
+        jdbcTemplate.update("UPDATE payment_outbox SET status = 'NEW', claimed_at = NULL, next_attempt_at = ? WHERE order_id = ?",
+                Timestamp.valueOf(LocalDateTime.now().plusHours(1)), order.getId());
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.getId(), Order.OrderStatus.CANCELLED))
+                .hasMessageContaining("procesando el pago");
+        BulkStatusResponse bulk = bulkStatusService.apply(
+                new BulkStatusRequest(List.of(order.getId()), null, Order.OrderStatus.CANCELLED));
+        assertThat(bulk.getResults()).singleElement()
+                .extracting(BulkStatusResponse.Result::getOutcome)
+                .isEqualTo(BulkStatusResponse.Outcome.INVALID_TRANSITION);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus()).isEqualTo(Order.OrderStatus.PENDING);
+
+        // El cobro termina: la pasarela repite el resultado de la misma clave y la orden lo refleja
+        jdbcTemplate.update("UPDATE payment_outbox SET next_attempt_at = ? WHERE order_id = ?",
+                Timestamp.valueOf(LocalDateTime.now()), order.getId());
+        Order settled = awaitPayment(order.getId());
+        assertThat(settled.getStatus()).isEqualTo(charged);
+        assertThat(settled.getPaymentStatus()).isEqualTo(chargeResult);
+    }
+
+    @Test
+    void resultsReportEachOutcomeInRequestOrder() throws InterruptedException {
+        Long confirmed = withStatus(paidOrder(), Order.OrderStatus.CONFIRMED);
+        Long processing = withStatus(paidOrder(), Order.OrderStatus.PROCESSING);
+        Long delivered = withStatus(paidOrder(), Order.OrderStatus.DELIVERED);
+        Long missing = -1L;
+
+        BulkStatusResponse response = bulkStatusService.apply(new BulkStatusRequest(
+                List.of(missing, delivered, confirmed, processing), null, Order.OrderStatus.PROCESSING));
+
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(BulkStatusResponse.Result::getOrderId)
+                .containsExactly(missing, delivered, confirmed, processing);
+        assertThat(response.getResults()).extracting(BulkStatusResponse.Result::getOutcome).containsExactly(
+                BulkStatusResponse.Outcome.NOT_FOUND,
+                BulkStatusResponse.Outcome.INVALID_TRANSITION,
+                BulkStatusResponse.Outcome.UPDATED,
+                BulkStatusResponse.Outcome.UNCHANGED);
+        assertThat(response.getResults()).extracting(BulkStatusResponse.Result::getPreviousStatus)
+                .containsExactly(null, "DELIVERED", "CONFIRMED", "PROCESSING");
+        assertThat(orderRepository.findById(confirmed).orElseThrow().getStatus()).isEqualTo(Order.OrderStatus.PROCESSING);
+        assertThat(orderRepository.findById(delivered).orElseThrow().getStatus()).isEqualTo(Order.OrderStatus.DELIVERED);
+    }
+
+    @Test
+    void statusSelectionIsCappedAtTheBatchSize() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            withStatus(paidOrder(), Order.OrderStatus.PROCESSING);
+        }
+        Object maxBatchSize = ReflectionTestUtils.getField(bulkStatusService, "maxBatchSize");
+        ReflectionTestUtils.setField(bulkStatusService, "maxBatchSize", 2);
+        try {
+            // Mismo estado de origen y destino: selecciona sin modificar órdenes de otros tests
+            BulkStatusResponse response = bulkStatusService.apply(
+                    new BulkStatusRequest(null, Order.OrderStatus.PROCESSING, Order.OrderStatus.PROCESSING));
+            assertThat(response.getResults()).hasSize(2)
+                    .extracting(BulkStatusResponse.Result::getOutcome)
+                    .containsOnly(BulkStatusResponse.Outcome.UNCHANGED);
+        } finally {
+            ReflectionTestUtils.setField(bulkStatusService, "maxBatchSize", maxBatchSize);
+        }
+    }
+
+    @Test
+    void requestMustNameOrdersOrAStatusButNotBoth() {
+        assertThatThrownBy(() -> bulkStatusService.apply(new BulkStatusRequest(
+                List.of(1L), Order.OrderStatus.CONFIRMED, Order.OrderStatus.PROCESSING)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bulkStatusService.apply(new BulkStatusRequest(
+                null, null, Order.OrderStatus.PROCESSING)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Long withStatus(Order order, Order.OrderStatus status) {
+        jdbcTemplate.update("UPDATE orders SET status = ? WHERE id = ?", status.name(), order.getId());
+        return order.getId();
+    }
+
+    // Orden cuyo cobro ya resolvió la etapa de pago
+    private Order paidOrder() throws InterruptedException {
+        User user = userRepository.save(new User("Masivo", "masivo" + USERS.incrementAndGet() + "@test.com", "secret"));
+        Product product = productRepository.save(new Product("Masivo", "Producto de prueba",
+                new BigDecimal("10.00"), 10, null, "pruebas"));
+        Long orderId = orderService.createOrder(checkout(product), user).getId();
+        return awaitPayment(orderId);
+    }
+
+    private Order awaitPayment(Long orderId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        while (order.getStatus() == Order.OrderStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            order = orderRepository.findById(orderId).orElseThrow();
+        }
+        assertThat(order.getStatus()).isNotEqualTo(Order.OrderStatus.PENDING);
+        return order;
+    }
+
+    private CheckoutRequest checkout(Product product) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(List.of(new CheckoutRequest.CartItemDto(product.getId(), 1, product.getPrice())));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, product.getPrice()));
+        return request;
+    }
+}
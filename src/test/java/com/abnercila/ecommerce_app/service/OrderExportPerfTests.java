@@ -0,0 +1,149 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exportación de 100k filas: throughput y memoria asignada por fila en el hilo que escribe.
+ * El heap retenido no se mide porque H2 en memoria guarda los datos y el resultado de la
+ * consulta en el mismo heap; la asignación por fila sí delata entidades o listas intermedias.
+ */
+@Tag("perf")
+@SpringBootTest
+@ActiveProfiles("perf")
+class OrderExportPerfTests {
+
+    // Rango aislado: solo contiene las órdenes generadas por este test
+    private static final LocalDateTime FROM = LocalDateTime.of(2002, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2002, 2, 1, 0, 0);
+    private static final int ORDERS = 20_000;
+    private static final int ITEMS_PER_ORDER = 5;
+    // Ids muy por encima de los que reparten las secuencias durante el test
+    private static final long ID_OFFSET = 9_000_000_000L;
+
+    private static final String ORDER_COLUMNS =
+            "version, user_id, status, total_amount, subtotal, shipping_cost, tax_amount, discount_amount, " +
+            "coupon_code, created_at, updated_at, estimated_delivery, shipping_name, shipping_email, shipping_phone, " +
+            "shipping_address, shipping_city, shipping_state, shipping_postal_code, shipping_country, " +
+            "payment_method, payment_status, payment_transaction_id, notes";
+
+    @Autowired
+    private OrderExportService exportService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportStreamsRowsWithBoundedAllocationPerRow() throws IOException {
+        generateOrders();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        CountingOutputStream warmUp = new CountingOutputStream();
+        exportService.export(warmUp, OrderExportService.Format.CSV, false, FROM, TO, null);
+
+        CountingOutputStream out = new CountingOutputStream();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        exportService.export(out, OrderExportService.Format.CSV, false, FROM, TO, null);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long allocatedPerRow = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / (ORDERS * ITEMS_PER_ORDER);
+
+        int rows = ORDERS * ITEMS_PER_ORDER;
+        System.out.printf("Exportación: %d filas, %d MB en %.2f s (%.0f filas/s), %d bytes asignados por fila%n",
+                rows, out.bytes >> 20, seconds, rows / seconds, allocatedPerRow);
+        assertThat(out.lines).isEqualTo(1 + rows);
+        assertThat(rows / seconds).isGreaterThan(20_000);
+        assertThat(allocatedPerRow).isLessThan(4 * 1024);
+    }
+
+    // Una orden real con sus items, clonada con INSERT ... SELECT sobre SYSTEM_RANGE de H2
+    private void generateOrders() {
+        User user = userRepository.save(new User("Exportación", "export.perf@test.com", "secret"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            products.add(new Product("Producto " + i, "Producto de prueba", new BigDecimal("10.00"),
+                    100, null, "pruebas"));
+        }
+        Long templateId = orderService.createOrder(checkout(productRepository.saveAll(products)), user).getId();
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(FROM.plusDays(1)), templateId);
+
+        jdbcTemplate.update("INSERT INTO orders (id, order_number, " + ORDER_COLUMNS + ") " +
+                "SELECT ? + r.X, CONCAT(o.order_number, '-', r.X), " + ORDER_COLUMNS.replaceAll("(\\w+)", "o.$1") +
+                " FROM orders o, SYSTEM_RANGE(1, ?) r WHERE o.id = ?", ID_OFFSET, ORDERS - 1, templateId);
+        List<Long> itemIds = jdbcTemplate.queryForList(
+                "SELECT id FROM order_items WHERE order_id = ? ORDER BY id", Long.class, templateId);
+        for (int k = 0; k < itemIds.size(); k++) {
+            jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, total_price, " +
+                    "product_name, product_image_url) SELECT ? + r.X * ? + ?, ? + r.X, i.product_id, i.quantity, " +
+                    "i.unit_price, i.total_price, i.product_name, i.product_image_url " +
+                    "FROM order_items i, SYSTEM_RANGE(1, ?) r WHERE i.id = ?",
+                    ID_OFFSET, ITEMS_PER_ORDER, k, ID_OFFSET, ORDERS - 1, itemIds.get(k));
+        }
+    }
+
+    private CheckoutRequest checkout(List<Product> products) {
+        BigDecimal total = products.stream().map(Product::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add);
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(products.stream()
+                .map(product -> new CheckoutRequest.CartItemDto(product.getId(), 1, product.getPrice()))
+                .toList());
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, total));
+        return request;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
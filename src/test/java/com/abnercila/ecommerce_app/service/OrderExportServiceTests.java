@@ -0,0 +1,155 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.OrderResponse;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderExportServiceTests {
+
+    // Rango aislado en el pasado: solo contiene las órdenes de este test
+    private static final LocalDateTime FROM = LocalDateTime.of(2001, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2001, 2, 1, 0, 0);
+
+    @Autowired
+    private OrderExportService exportService;
+
+    @Autowired
+    private OrderArchiveService archiveService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long liveOrderId;
+    private Long archivedOrderId;
+
+    // Una orden viva con dos items y otra archivada con un item, ambas de enero de 2001
+    @BeforeAll
+    void liveAndArchivedOrders() throws InterruptedException {
+        User user = userRepository.save(new User("Exportación", "export@test.com", "secret"));
+        Product first = product();
+        Product second = product();
+        OrderResponse live = orderService.createOrder(checkout(first, second), user);
+        OrderResponse archived = orderService.createOrder(checkout(first), user);
+        awaitPayments(live.getId(), archived.getId());
+
+        jdbcTemplate.update("UPDATE orders SET created_at = ?, status = 'CONFIRMED' WHERE id = ?",
+                Timestamp.valueOf(FROM.plusDays(10)), live.getId());
+        jdbcTemplate.update("UPDATE orders SET created_at = ?, updated_at = ?, status = 'CANCELLED' WHERE id = ?",
+                Timestamp.valueOf(FROM.plusDays(5)), Timestamp.valueOf(FROM.plusDays(6)), archived.getId());
+        archiveService.archive();
+
+        assertThat(orderRepository.existsById(archived.getId())).isFalse();
+        liveOrderId = live.getId();
+        archivedOrderId = archived.getId();
+    }
+
+    @Test
+    void csvHasOneRowPerItemAcrossLiveAndArchivedOrders() throws IOException {
+        List<String> lines = lines(export(OrderExportService.Format.CSV, false, null));
+
+        assertThat(lines.get(0)).startsWith("order_id,order_number");
+        assertThat(lines).hasSize(1 + 3);
+        assertThat(lines.subList(1, 4)).extracting(line -> Long.valueOf(line.substring(0, line.indexOf(','))))
+                .containsExactly(liveOrderId, liveOrderId, archivedOrderId);
+    }
+
+    @Test
+    void ndjsonAndGzipExportTheSameRows() throws IOException {
+        byte[] compressed = export(OrderExportService.Format.NDJSON, true, null);
+        List<String> lines = lines(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes());
+
+        assertThat(lines).hasSize(3);
+        JsonNode archivedRow = objectMapper.readTree(lines.get(2));
+        assertThat(archivedRow.get("order_id").asLong()).isEqualTo(archivedOrderId);
+        assertThat(archivedRow.get("status").asText()).isEqualTo("CANCELLED");
+    }
+
+    @Test
+    void statusFilterAppliesToTheArchiveToo() throws IOException {
+        assertThat(lines(export(OrderExportService.Format.NDJSON, false, Order.OrderStatus.CANCELLED))).hasSize(1);
+        assertThat(lines(export(OrderExportService.Format.NDJSON, false, Order.OrderStatus.CONFIRMED))).hasSize(2);
+    }
+
+    private byte[] export(OrderExportService.Format format, boolean gzip, Order.OrderStatus status) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(out, format, gzip, FROM, TO, status);
+        return out.toByteArray();
+    }
+
+    private List<String> lines(byte[] body) {
+        return Arrays.stream(new String(body, StandardCharsets.UTF_8).split("\n"))
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private void awaitPayments(Long... orderIds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (orderRepository.findAllById(List.of(orderIds)).stream()
+                .anyMatch(order -> order.getStatus() == Order.OrderStatus.PENDING)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private Product product() {
+        return productRepository.save(new Product("Exportable", "Producto de prueba",
+                new BigDecimal("10.00"), 10, null, "pruebas"));
+    }
+
+    private CheckoutRequest checkout(Product... products) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(Arrays.stream(products)
+                .map(p -> new CheckoutRequest.CartItemDto(p.getId(), 1, p.getPrice()))
+                .collect(Collectors.toList()));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, BigDecimal.ONE));
+        return request;
+    }
+}
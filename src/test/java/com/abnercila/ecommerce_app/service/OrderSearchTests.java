@@ -0,0 +1,85 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.OrderPageResponse;
+import com.abnercila.ecommerce_app.dto.OrderResponse;
+import com.abnercila.ecommerce_app.dto.OrderSearchCriteria;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class OrderSearchTests {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void emailSearchIgnoresCaseAndSurroundingSpaces() throws InterruptedException {
+        User user = userRepository.save(new User("Soporte", "busqueda@test.com", "secret"));
+        Product product = productRepository.save(new Product("Buscable", "Producto de prueba",
+                new BigDecimal("10.00"), 10, null, "pruebas"));
+        OrderResponse created = orderService.createOrder(checkout(product, " Cliente.Soporte@Example.COM "), user);
+        Order order = awaitPayment(created.getId());
+
+        assertThat(order.getShippingEmail()).isEqualTo("cliente.soporte@example.com");
+        assertThat(search(criteria("CLIENTE.soporte@example.com", null, null))).containsExactly(order.getId());
+        assertThat(search(criteria("cliente.soporte@example.com", order.getStatus(), order.getPaymentStatus())))
+                .containsExactly(order.getId());
+        assertThat(search(criteria("otro.cliente@example.com", null, null))).isEmpty();
+    }
+
+    private List<Long> search(OrderSearchCriteria criteria) {
+        OrderPageResponse page = orderService.searchOrders(criteria, null, 20);
+        return page.getOrders().stream().map(OrderResponse::getId).toList();
+    }
+
+    private OrderSearchCriteria criteria(String email, Order.OrderStatus status, Order.PaymentStatus paymentStatus) {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setEmail(email);
+        criteria.setStatus(status);
+        criteria.setPaymentStatus(paymentStatus);
+        return criteria;
+    }
+
+    private Order awaitPayment(Long orderId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        while (order.getStatus() == Order.OrderStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            order = orderRepository.findById(orderId).orElseThrow();
+        }
+        return order;
+    }
+
+    private CheckoutRequest checkout(Product product, String email) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(List.of(new CheckoutRequest.CartItemDto(product.getId(), 1, product.getPrice())));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", email, "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, product.getPrice()));
+        return request;
+    }
+}
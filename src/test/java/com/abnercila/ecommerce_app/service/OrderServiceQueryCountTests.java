@@ -0,0 +1,109 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.SqlStatementCounter;
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.OrderPageResponse;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.abnercila.ecommerce_app.SqlStatementCounter",
+        "spring.jpa.show-sql=false"
+})
+class OrderServiceQueryCountTests {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void checkoutRunsConstantNumberOfSelectsRegardlessOfCartSize() {
+        User user = userRepository.findByEmail("juan@email.com").orElseThrow();
+        List<Product> products = productRepository.findAll();
+        checkout(user, products.subList(0, 1));
+        int smallCartSelects = SqlStatementCounter.selects();
+        checkout(user, products.subList(0, 10));
+        int largeCartSelects = SqlStatementCounter.selects();
+
+        assertThat(largeCartSelects).isEqualTo(smallCartSelects);
+    }
+
+    @Test
+    void checkoutBatchesOrderItemInserts() {
+        User user = userRepository.findByEmail("juan@email.com").orElseThrow();
+        List<Product> products = productRepository.findAll();
+        checkout(user, products.subList(0, 1));
+        int smallCartStatements = SqlStatementCounter.total();
+        checkout(user, products.subList(0, 10));
+        int largeCartStatements = SqlStatementCounter.total();
+
+        assertThat(largeCartStatements).isEqualTo(smallCartStatements);
+    }
+
+    @Test
+    void orderHistoryPageRunsConstantNumberOfSelectsRegardlessOfItemsPerOrder() {
+        List<Product> products = productRepository.findAll();
+        User smallOrders = userRepository.save(new User("Pocos Items", "pocos@test.com", "secret"));
+        User largeOrders = userRepository.save(new User("Muchos Items", "muchos@test.com", "secret"));
+        for (int i = 0; i < 2; i++) {
+            orderService.createOrder(checkoutRequest(products.subList(5, 6)), smallOrders);
+            orderService.createOrder(checkoutRequest(products.subList(5, 11)), largeOrders);
+        }
+
+        int smallOrderSelects = historySelects(smallOrders);
+        int largeOrderSelects = historySelects(largeOrders);
+
+        assertThat(largeOrderSelects).isEqualTo(smallOrderSelects);
+    }
+
+    // Recorre el historial de a una orden por página, siguiendo el cursor
+    private int historySelects(User user) {
+        SqlStatementCounter.reset();
+        OrderPageResponse first = orderService.getUserOrdersPage(user, null, 1);
+        OrderPageResponse second = orderService.getUserOrdersPage(user, first.getNextCursor(), 1);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(second.getOrders()).hasSize(1);
+        assertThat(second.getOrders().get(0).getId()).isNotEqualTo(first.getOrders().get(0).getId());
+        return SqlStatementCounter.selects();
+    }
+
+    private void checkout(User user, List<Product> products) {
+        CheckoutRequest request = checkoutRequest(products);
+        SqlStatementCounter.reset();
+        orderService.createOrder(request, user);
+    }
+
+    private CheckoutRequest checkoutRequest(List<Product> products) {
+        List<CheckoutRequest.CartItemDto> cartItems = products.stream()
+                .map(p -> new CheckoutRequest.CartItemDto(p.getId(), 1, p.getPrice()))
+                .collect(Collectors.toList());
+
+        CheckoutRequest.ShippingInfoDto shipping = new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México");
+        CheckoutRequest.PaymentInfoDto payment = new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, new BigDecimal("1.00"));
+
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(cartItems);
+        request.setShippingInfo(shipping);
+        request.setPaymentInfo(payment);
+        return request;
+    }
+}
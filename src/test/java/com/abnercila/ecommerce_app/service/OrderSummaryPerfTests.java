@@ -0,0 +1,97 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.Latencies;
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listado de órdenes completo frente a la proyección de resumen de una misma cuenta:
+ * tamaño de la respuesta serializada y latencia de la consulta.
+ */
+@Tag("perf")
+@SpringBootTest
+@ActiveProfiles("perf")
+class OrderSummaryPerfTests {
+
+    private static final int ORDERS = 100;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int CALLS = 50;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void summaryIsSmallerAndFasterThanTheFullList() throws JsonProcessingException {
+        User user = userRepository.save(new User("Historial", "summary.perf@test.com", "secret"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            products.add(new Product("Producto " + i, "Producto de prueba", new BigDecimal("10.00"),
+                    10_000, null, "pruebas"));
+        }
+        CheckoutRequest request = checkout(productRepository.saveAll(products));
+        for (int i = 0; i < ORDERS; i++) {
+            orderService.createOrder(request, user);
+        }
+
+        int fullBytes = objectMapper.writeValueAsBytes(orderService.getUserOrders(user)).length;
+        int summaryBytes = objectMapper.writeValueAsBytes(orderService.getUserOrderSummaries(user)).length;
+        Latencies full = measure(() -> orderService.getUserOrders(user));
+        Latencies summary = measure(() -> orderService.getUserOrderSummaries(user));
+
+        System.out.printf("Órdenes: listado completo %d bytes %s | resumen %d bytes %s%n",
+                fullBytes, full, summaryBytes, summary);
+        assertThat(orderService.getUserOrderSummaries(user)).hasSize(ORDERS);
+        assertThat(summaryBytes * 3).isLessThan(fullBytes);
+        assertThat(summary.micros(50)).isLessThan(full.micros(50));
+    }
+
+    private Latencies measure(Runnable call) {
+        for (int i = 0; i < CALLS; i++) {
+            call.run();
+        }
+        Latencies latencies = new Latencies(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            latencies.time(call);
+        }
+        return latencies;
+    }
+
+    private CheckoutRequest checkout(List<Product> products) {
+        BigDecimal total = products.stream().map(Product::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add);
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(products.stream()
+                .map(product -> new CheckoutRequest.CartItemDto(product.getId(), 1, product.getPrice()))
+                .toList());
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, total));
+        return request;
+    }
+}
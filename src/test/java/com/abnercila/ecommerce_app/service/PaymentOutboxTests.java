@@ -0,0 +1,208 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.PaymentOutbox;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.PaymentOutboxRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest
+class PaymentOutboxTests {
+
+    // Los reclamos del test van una hora por delante para que el sondeo de fondo no los tome
+    private static final LocalDateTime LATER = LocalDateTime.now().plusHours(1);
+
+    @Autowired
+    private PaymentProcessor paymentProcessor;
+
+    @Autowired
+    private PaymentOutboxRepository outboxRepository;
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private RestockService restockService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> created = new ArrayList<>();
+
+    @AfterEach
+    void deleteEntries() {
+        outboxRepository.deleteAllById(created);
+    }
+
+    @Test
+    void staleClaimsKeepTheirKeyAndStopAtMaxAttempts() {
+        PaymentOutbox entry = entry("ORD-STALE");
+
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            assertThat(claim(entry.getId())).isEqualTo(1);
+            PaymentOutbox claimed = reload(entry);
+            assertThat(claimed.getAttempts()).isEqualTo(attempt);
+            // El reintento de un reclamo vencido repite la clave: la pasarela no cobra dos veces
+            assertThat(claimed.getIdempotencyKey()).isEqualTo("ORD-STALE-1");
+
+            expireClaim(claimed);
+            paymentProcessor.requeueStaleClaims();
+        }
+
+        PaymentOutbox exhausted = reload(entry);
+        assertThat(exhausted.getStatus()).isEqualTo(PaymentOutbox.OutboxStatus.FAILED);
+        assertThat(claim(entry.getId())).isZero();
+    }
+
+    @Test
+    void exhaustedClaimCancelsTheOrderAndReturnsItsStock() throws InterruptedException {
+        User user = userRepository.save(new User("Agotado", "agotado" + System.nanoTime() + "@test.com", "secret"));
+        Product product = productRepository.save(new Product("Agotado", "Producto de prueba",
+                new BigDecimal("10.00"), 10, null, "pruebas"));
+        Long orderId = orderService.createOrder(checkout(product, 3), user).getId();
+        Order settled = awaitPayment(orderId);
+        assumeTrue(settled.getStatus() == Order.OrderStatus.CONFIRMED, "La pasarela simulada rechazó el cobro");
+        // Vuelve a dejar el cobro en vuelo con su último intento reclamado por un worker que no terminó
+        jdbcTemplate.update("UPDATE orders SET status = 'PENDING', payment_status = 'PENDING' WHERE id = ?", orderId);
+        jdbcTemplate.update("UPDATE payment_outbox SET status = 'PROCESSING', attempts = 3, claimed_at = ? WHERE order_id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)), orderId);
+
+        paymentProcessor.requeueStaleClaims();
+
+        Order failed = orderRepository.findById(orderId).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(failed.getPaymentStatus()).isEqualTo(Order.PaymentStatus.FAILED);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM payment_outbox WHERE order_id = ?", String.class, orderId))
+                .isEqualTo("FAILED");
+        restockService.flush();
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isEqualTo(10);
+    }
+
+    @Test
+    void staleRequeueWaitsForBackoff() {
+        PaymentOutbox entry = entry("ORD-BACKOFF");
+        claim(entry.getId());
+        expireClaim(reload(entry));
+
+        paymentProcessor.requeueStaleClaims();
+
+        PaymentOutbox requeued = reload(entry);
+        assertThat(requeued.getStatus()).isEqualTo(PaymentOutbox.OutboxStatus.NEW);
+        assertThat(requeued.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(outboxRepository.findPendingIds(LocalDateTime.now(), PageRequest.of(0, 1000)))
+                .doesNotContain(entry.getId());
+        Integer early = transactionTemplate.execute(status -> outboxRepository.claim(entry.getId(), LocalDateTime.now()));
+        assertThat(early).isZero();
+    }
+
+    @Test
+    void transientFailureRetriesWithANewKey() {
+        PaymentOutbox entry = entry("ORD-RETRY");
+        claim(entry.getId());
+        transactionTemplate.executeWithoutResult(status ->
+                outboxRepository.requeue(entry.getId(), "Pasarela no disponible", LATER));
+
+        PaymentOutbox requeued = reload(entry);
+        assertThat(requeued.getStatus()).isEqualTo(PaymentOutbox.OutboxStatus.NEW);
+        assertThat(requeued.getIdempotencyKey()).isNull();
+
+        claim(entry.getId());
+        assertThat(reload(entry).getIdempotencyKey()).isEqualTo("ORD-RETRY-2");
+    }
+
+    @Test
+    void gatewayRepeatsTheResultOfAKnownKey() {
+        PaymentGateway.PaymentResult first = paymentGateway.charge("ORD-KEY", BigDecimal.TEN,
+                Order.PaymentMethod.CREDIT_CARD, "ORD-KEY-1");
+        PaymentGateway.PaymentResult replay = paymentGateway.charge("ORD-KEY", BigDecimal.TEN,
+                Order.PaymentMethod.CREDIT_CARD, "ORD-KEY-1");
+
+        assertThat(replay).isEqualTo(first);
+    }
+
+    private PaymentOutbox entry(String orderNumber) {
+        PaymentOutbox entry = new PaymentOutbox();
+        entry.setOrderId(-1L);
+        entry.setOrderNumber(orderNumber);
+        entry.setAmount(BigDecimal.TEN);
+        entry.setPaymentMethod(Order.PaymentMethod.CREDIT_CARD);
+        entry.setStatus(PaymentOutbox.OutboxStatus.NEW);
+        entry.setNextAttemptAt(LATER);
+        entry = outboxRepository.save(entry);
+        created.add(entry.getId());
+        return entry;
+    }
+
+    private int claim(Long id) {
+        Integer claimed = transactionTemplate.execute(status -> outboxRepository.claim(id, LATER.plusHours(1)));
+        return claimed != null ? claimed : 0;
+    }
+
+    // Simula un worker que sigue esperando a la pasarela más allá de stale-claim-minutes
+    private void expireClaim(PaymentOutbox entry) {
+        entry.setClaimedAt(LocalDateTime.now().minusHours(1));
+        outboxRepository.save(entry);
+    }
+
+    private PaymentOutbox reload(PaymentOutbox entry) {
+        return outboxRepository.findById(entry.getId()).orElseThrow();
+    }
+
+    private Order awaitPayment(Long orderId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        while (order.getStatus() == Order.OrderStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            order = orderRepository.findById(orderId).orElseThrow();
+        }
+        assertThat(order.getStatus()).isNotEqualTo(Order.OrderStatus.PENDING);
+        return order;
+    }
+
+    private CheckoutRequest checkout(Product product, int quantity) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(List.of(new CheckoutRequest.CartItemDto(product.getId(), quantity, product.getPrice())));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null,
+                product.getPrice().multiply(BigDecimal.valueOf(quantity))));
+        return request;
+    }
+}
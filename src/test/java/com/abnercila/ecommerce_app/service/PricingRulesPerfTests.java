@@ -0,0 +1,80 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.Latencies;
+import com.abnercila.ecommerce_app.model.ShippingTaxRule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Búsqueda de tarifa de envío e impuesto sobre una tabla compilada grande: países, estados
+ * y prefijos postales de 2 a 4 dígitos. La búsqueda no depende del número de reglas.
+ */
+@Tag("perf")
+class PricingRulesPerfTests {
+
+    private static final int COUNTRIES = 20;
+    private static final int STATES = 32;
+    private static final int PREFIXES_PER_COUNTRY = 2_000;
+    private static final int LOOKUPS = 500_000;
+    private static final PricingRules.Rate DEFAULT = new PricingRules.Rate(new BigDecimal("99.00"), new BigDecimal("0.16"));
+
+    private final Random random = new Random(7);
+
+    @Test
+    void lookupsStayFlatOverTensOfThousandsOfRules() {
+        List<ShippingTaxRule> rules = rules();
+        long started = System.nanoTime();
+        PricingRules table = PricingRules.compile(rules, DEFAULT);
+        long compileMillis = (System.nanoTime() - started) / 1_000_000;
+
+        String[][] destinations = new String[10_000][];
+        for (int i = 0; i < destinations.length; i++) {
+            destinations[i] = new String[]{"C" + random.nextInt(COUNTRIES + 2), "Estado " + random.nextInt(STATES + 4),
+                    String.format("%05d", random.nextInt(100_000))};
+        }
+        for (int i = 0; i < LOOKUPS; i++) {
+            String[] destination = destinations[i % destinations.length];
+            table.lookup(destination[0], destination[1], destination[2]);
+        }
+        Latencies latencies = new Latencies(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            String[] destination = destinations[i % destinations.length];
+            latencies.time(() -> table.lookup(destination[0], destination[1], destination[2]));
+        }
+
+        System.out.printf("PricingRules: %d reglas compiladas en %d ms, lookup %s%n",
+                table.size(), compileMillis, latencies);
+        assertThat(compileMillis).isLessThan(5_000);
+        assertThat(latencies.micros(99)).isLessThan(10.0);
+    }
+
+    private List<ShippingTaxRule> rules() {
+        List<ShippingTaxRule> rules = new ArrayList<>();
+        long id = 1;
+        for (int c = 0; c < COUNTRIES; c++) {
+            String country = "C" + c;
+            rules.add(rule(id++, country, null, null));
+            for (int s = 0; s < STATES; s++) {
+                rules.add(rule(id++, country, "Estado " + s, null));
+            }
+            for (int p = 0; p < PREFIXES_PER_COUNTRY; p++) {
+                int digits = 2 + random.nextInt(3);
+                String prefix = String.format("%0" + digits + "d", random.nextInt((int) Math.pow(10, digits)));
+                rules.add(rule(id++, country, null, prefix));
+            }
+        }
+        return rules;
+    }
+
+    private ShippingTaxRule rule(Long id, String country, String state, String postalPrefix) {
+        return new ShippingTaxRule(id, country, state, postalPrefix,
+                BigDecimal.valueOf(random.nextInt(300)), BigDecimal.valueOf(random.nextInt(20), 2), null);
+    }
+}
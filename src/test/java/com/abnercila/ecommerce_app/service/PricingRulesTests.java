@@ -0,0 +1,51 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.ShippingTaxRule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PricingRulesTests {
+
+    private static final PricingRules.Rate DEFAULT = new PricingRules.Rate(new BigDecimal("99.00"), new BigDecimal("0.16"));
+
+    private final PricingRules rules = PricingRules.compile(List.of(
+            rule(1L, "MX", null, null, "150.00", null),
+            rule(2L, "MX", "Baja California", null, null, "0.08"),
+            rule(3L, "MX", null, "22", "80.00", null),
+            rule(4L, "MX", null, "221", null, "0.00"),
+            rule(5L, "US", null, null, "250.00", "0.00")
+    ), DEFAULT);
+
+    @Test
+    void mostSpecificRuleWinsAndInheritsMissingValues() {
+        // Solo el país: envío propio, impuesto por defecto
+        assertThat(rules.lookup("mx", "Jalisco", "44100")).isEqualTo(rate("150.00", "0.16"));
+        // Estado: hereda el envío del país
+        assertThat(rules.lookup("MX", " baja california ", "21000")).isEqualTo(rate("150.00", "0.08"));
+        // Prefijo postal: gana sobre el estado y hereda del prefijo más corto
+        assertThat(rules.lookup("MX", "Baja California", "22-000")).isEqualTo(rate("80.00", "0.16"));
+        assertThat(rules.lookup("MX", "Baja California", "22150")).isEqualTo(rate("80.00", "0.00"));
+    }
+
+    @Test
+    void unknownDestinationsUseTheDefaultRate() {
+        assertThat(rules.lookup("CA", "Ontario", "M5V")).isEqualTo(DEFAULT);
+        assertThat(rules.lookup(null, null, null)).isEqualTo(DEFAULT);
+        assertThat(rules.lookup("US", null, null)).isEqualTo(rate("250.00", "0.00"));
+    }
+
+    private static PricingRules.Rate rate(String shipping, String tax) {
+        return new PricingRules.Rate(new BigDecimal(shipping), new BigDecimal(tax));
+    }
+
+    private static ShippingTaxRule rule(Long id, String country, String state, String postalPrefix,
+                                        String shippingCost, String taxRate) {
+        return new ShippingTaxRule(id, country, state, postalPrefix,
+                shippingCost == null ? null : new BigDecimal(shippingCost),
+                taxRate == null ? null : new BigDecimal(taxRate), null);
+    }
+}
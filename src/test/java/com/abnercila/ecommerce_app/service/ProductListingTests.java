@@ -0,0 +1,107 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.ProductCard;
+import com.abnercila.ecommerce_app.dto.ProductListCriteria;
+import com.abnercila.ecommerce_app.dto.ProductPageResponse;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class ProductListingTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private HotSkuStockService hotSkuStockService;
+
+    @Test
+    void filtersAndSortCarryAcrossPages() {
+        String category = "paginacion-" + System.nanoTime();
+        Product cheap = save("Cable", "5.00", 10, category);
+        Product outOfStock = save("Funda", "15.00", 0, category);
+        Product tieLow = save("Mouse", "20.00", 3, category);
+        Product tieHigh = save("Teclado", "20.00", 7, category);
+        Product mid = save("Bocina", "35.00", 1, category);
+        Product expensive = save("Monitor", "300.00", 2, category);
+        save("Audífonos", "25.00", 5, "otra-" + category);
+
+        ProductListCriteria criteria = new ProductListCriteria(category, new BigDecimal("10.00"), new BigDecimal("100.00"),
+                true, ProductListCriteria.SortBy.PRICE_ASC);
+        // A igual precio desempata el ID; la página de 2 corta justo entre los empatados
+        assertThat(allPages(criteria, 2)).containsExactly(tieLow.getId(), tieHigh.getId(), mid.getId());
+
+        criteria.setSort(ProductListCriteria.SortBy.PRICE_DESC);
+        criteria.setMinPrice(null);
+        assertThat(allPages(criteria, 1)).containsExactly(mid.getId(), tieHigh.getId(), tieLow.getId(), cheap.getId());
+
+        criteria.setInStock(false);
+        criteria.setMaxPrice(null);
+        criteria.setSort(ProductListCriteria.SortBy.NAME);
+        assertThat(allPages(criteria, 4)).containsExactly(mid.getId(), cheap.getId(), outOfStock.getId(),
+                expensive.getId(), tieLow.getId(), tieHigh.getId());
+    }
+
+    @Test
+    void inStockFilterCountsHotSkuShards() {
+        String category = "hot-" + System.nanoTime();
+        Product soldOut = save("Consola agotada", "500.00", 2, category);
+        Product available = save("Consola disponible", "500.00", 2, category);
+        hotSkuStockService.enableHotMode(soldOut.getId(), 2);
+        hotSkuStockService.enableHotMode(available.getId(), 2);
+        // Vacía los sub-contadores de uno de ellos: su columna stock ya estaba en 0
+        assertThat(hotSkuStockService.decrementStock(soldOut.getId(), 2)).isTrue();
+
+        ProductListCriteria criteria = new ProductListCriteria(category, null, null, true, ProductListCriteria.SortBy.NAME);
+        assertThat(allPages(criteria, 10)).containsExactly(available.getId());
+        criteria.setInStock(false);
+        assertThat(allPages(criteria, 10)).containsExactly(soldOut.getId(), available.getId());
+    }
+
+    @Test
+    void rejectsCursorIssuedForAnotherSort() {
+        String category = "cursor-" + System.nanoTime();
+        save("Cable", "5.00", 10, category);
+        save("Mouse", "20.00", 3, category);
+        ProductListCriteria criteria = new ProductListCriteria(category, null, null, false, ProductListCriteria.SortBy.PRICE_ASC);
+        String cursor = productService.listProducts(criteria, null, 1).getNextCursor();
+        assertThat(cursor).isNotNull();
+
+        criteria.setSort(ProductListCriteria.SortBy.NAME);
+        assertThatThrownBy(() -> productService.listProducts(criteria, cursor, 1))
+                .hasMessage("Cursor de paginación inválido");
+        assertThatThrownBy(() -> productService.listProducts(criteria, "no-es-un-cursor", 1))
+                .hasMessage("Cursor de paginación inválido");
+    }
+
+    // Recorre todas las páginas y devuelve los IDs en orden
+    private List<Long> allPages(ProductListCriteria criteria, int size) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductPageResponse page = productService.listProducts(criteria, cursor, size);
+            assertThat(page.getProducts()).hasSizeLessThanOrEqualTo(size);
+            page.getProducts().stream().map(ProductCard::getId).forEach(ids::add);
+            assertThat(page.isHasMore()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private Product save(String name, String price, int stock, String category) {
+        return productRepository.save(new Product(name, "Producto de prueba", new BigDecimal(price), stock, null, category));
+    }
+}
@@ -0,0 +1,144 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.Latencies;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Índice de búsqueda con un catálogo sintético de un millón de productos: tiempo de
+ * indexación y latencia de consultas de dos términos con el último como prefijo, que es
+ * lo que llega mientras el usuario escribe. Aparte, el costo de la corrección de errores
+ * de escritura: latencia por consulta y memoria por término del vocabulario.
+ */
+@Tag("perf")
+class ProductSearchIndexPerfTests {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int VOCABULARY = 50_000;
+    private static final int BRANDS = 2_000;
+    private static final int CATEGORIES = 500;
+    private static final int QUERIES = 100_000;
+    private static final int CORRECTIONS = 100_000;
+
+    private final Random random = new Random(21);
+    private final String[] vocabulary = vocabulary();
+
+    @Test
+    void searchStaysInMillisecondsOverAMillionProducts() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = usedHeap(runtime);
+        long started = System.nanoTime();
+        for (long id = 0; id < PRODUCTS; id++) {
+            index.upsert(id, "Marca" + random.nextInt(BRANDS) + " " + word() + " " + word(),
+                    word() + " " + word() + " " + word() + " " + word() + " " + word() + " " + word(),
+                    "Categoria" + random.nextInt(CATEGORIES));
+        }
+        long buildMillis = (System.nanoTime() - started) / 1_000_000;
+        long bytesPerProduct = (usedHeap(runtime) - heapBefore) / PRODUCTS;
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String last = word();
+            queries.add(switch (i % 3) {
+                case 0 -> word() + " " + last.substring(0, 3);
+                case 1 -> "categoria" + random.nextInt(CATEGORIES) + " " + last.substring(0, 4);
+                default -> "marca" + random.nextInt(BRANDS) + " " + last;
+            });
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            index.search(queries.get(i % queries.size()), 50);
+        }
+        Latencies latencies = new Latencies(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            String query = queries.get(i % queries.size());
+            latencies.time(() -> index.search(query, 50));
+        }
+
+        System.out.printf("ProductSearchIndex: %d productos indexados en %d ms, ~%d bytes por producto, búsqueda %s%n",
+                index.size(), buildMillis, bytesPerProduct, latencies);
+        assertThat(index.size()).isEqualTo(PRODUCTS);
+        assertThat(buildMillis).isLessThan(120_000);
+        assertThat(bytesPerProduct).isLessThan(2_048);
+        assertThat(latencies.micros(99)).isLessThan(5_000.0);
+    }
+
+    @Test
+    void correctionIsBoundedByTheTermNotTheVocabulary() {
+        // Un término distinto por producto: la memoria retenida es la de cada término con sus
+        // postings y sus variantes de borrado
+        ProductSearchIndex index = new ProductSearchIndex();
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = usedHeap(runtime);
+        for (int i = 0; i < VOCABULARY; i++) {
+            index.upsert((long) i, vocabulary[i], null, null);
+        }
+        long bytesPerTerm = (usedHeap(runtime) - heapBefore) / VOCABULARY;
+
+        List<String> typos = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String typo = typo(word());
+            typos.add(random.nextInt(3) == 0 ? typo(typo) : typo);
+        }
+        for (int i = 0; i < CORRECTIONS; i++) {
+            index.correct(typos.get(i % typos.size()));
+        }
+        Latencies latencies = new Latencies(CORRECTIONS);
+        int corrected = 0;
+        for (int i = 0; i < CORRECTIONS; i++) {
+            String typo = typos.get(i % typos.size());
+            long started = System.nanoTime();
+            String correction = index.correct(typo);
+            latencies.record(System.nanoTime() - started);
+            if (correction != null) {
+                corrected++;
+            }
+        }
+
+        System.out.printf("Corrección: %d términos, ~%d bytes por término, %d de %d corregidas, %s%n",
+                VOCABULARY, bytesPerTerm, corrected, CORRECTIONS, latencies);
+        assertThat(corrected).isGreaterThan(CORRECTIONS * 8 / 10);
+        assertThat(bytesPerTerm).isLessThan(16 * 1024);
+        assertThat(latencies.micros(99)).isLessThan(1_000.0);
+    }
+
+    // Un error de escritura: borra, cambia o inserta una letra
+    private String typo(String word) {
+        int at = 1 + random.nextInt(word.length() - 1);
+        char letter = (char) ('a' + random.nextInt(26));
+        return switch (random.nextInt(3)) {
+            case 0 -> word.substring(0, at) + word.substring(at + 1);
+            case 1 -> word.substring(0, at) + letter + word.substring(at + 1);
+            default -> word.substring(0, at) + letter + word.substring(at);
+        };
+    }
+
+    // Palabras aleatorias de 5 a 10 letras; con 50k no chocan con las stopwords
+    private String[] vocabulary() {
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 5 + random.nextInt(6);
+            for (int c = 0; c < length; c++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private long usedHeap(Runtime runtime) {
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private String word() {
+        return vocabulary[random.nextInt(vocabulary.length)];
+    }
+}
@@ -0,0 +1,54 @@
+package com.abnercila.ecommerce_app.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTests {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    {
+        index.upsert(1L, "Audífonos Bluetooth", "Audífonos inalámbricos con cancelación de ruido", "Audio");
+        index.upsert(2L, "Bocina portátil", "Bocina bluetooth resistente al agua", "Audio");
+        index.upsert(3L, "Teclado mecánico", "Teclado con switches azules", "Accesorios");
+    }
+
+    @Test
+    void foldsAccentsAndRanksNameMatchesFirst() {
+        assertThat(index.search("audifonos", 10)).extracting(ProductSearchIndex.Hit::productId).containsExactly(1L);
+        // "bluetooth" está en el nombre del 1 y solo en la descripción del 2
+        assertThat(index.search("BLUETOOTH", 10)).extracting(ProductSearchIndex.Hit::productId).containsExactly(1L, 2L);
+        // Todos los términos deben aparecer; el último cuenta como prefijo
+        assertThat(index.search("audio boc", 10)).extracting(ProductSearchIndex.Hit::productId).containsExactly(2L);
+        assertThat(index.search("teclado audio", 10)).isEmpty();
+    }
+
+    @Test
+    void appliesIncrementalChanges() {
+        index.upsert(3L, "Teclado inalámbrico", "Teclado bluetooth compacto", "Accesorios");
+        assertThat(index.search("mecanico", 10)).isEmpty();
+        assertThat(index.search("bluetooth", 10)).extracting(ProductSearchIndex.Hit::productId).contains(3L);
+
+        index.remove(1L);
+        assertThat(index.search("audifonos", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+    
+    @Test
+    void correctsMisspelledTermsWithinTwoEdits() {
+        index.upsert(4L, "MacBook Pro M3", "Laptop para profesionales", "Laptops");
+        index.upsert(5L, "Monitor 4K", "Monitor para diseño", "Monitores");
+        
+        assertThat(index.correct("macbok")).isEqualTo("macbook");
+        assertThat(index.correct("monitr")).isEqualTo("monitor");
+        // Transposición y un término correcto que se conserva
+        assertThat(index.correct("tecaldo mecanico")).isEqualTo("teclado mecanico");
+        // Nada que corregir, o demasiado lejos de cualquier término
+        assertThat(index.correct("teclado")).isNull();
+        assertThat(index.correct("refrigerador")).isNull();
+        
+        index.remove(4L);
+        assertThat(index.correct("macbok")).isNull();
+    }
+}
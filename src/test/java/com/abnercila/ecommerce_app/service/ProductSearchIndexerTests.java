@@ -0,0 +1,54 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ProductSearchIndexerTests {
+
+    @Autowired
+    private ProductSearchIndex index;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void committedChangesReachTheIndex() {
+        Product product = productRepository.save(new Product("Proyector zentrallux", "Proyector de prueba",
+                new BigDecimal("10.00"), 5, null, "pruebas"));
+        assertThat(index.search("zentrallux", 10)).extracting(ProductSearchIndex.Hit::productId)
+                .containsExactly(product.getId());
+
+        product.setName("Proyector quorvania");
+        productRepository.save(product);
+        assertThat(index.search("zentrallux", 10)).isEmpty();
+        assertThat(index.search("quorvania", 10)).extracting(ProductSearchIndex.Hit::productId)
+                .containsExactly(product.getId());
+
+        productRepository.deleteById(product.getId());
+        assertThat(index.search("quorvania", 10)).isEmpty();
+    }
+
+    @Test
+    void rolledBackChangesAreNotIndexed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.save(new Product("Proyector brelmoxa", "Proyector de prueba",
+                    new BigDecimal("10.00"), 5, null, "pruebas"));
+            productRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(index.search("brelmoxa", 10)).isEmpty();
+    }
+}
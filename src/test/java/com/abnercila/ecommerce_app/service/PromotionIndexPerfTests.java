@@ -0,0 +1,93 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.Latencies;
+import com.abnercila.ecommerce_app.model.Promotion;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Evaluación de carritos contra un índice chico y otro con cien veces más promociones de
+ * producto. El índice solo mira las de los productos y categorías del carrito y las de
+ * carrito cuyo umbral se alcanzó, así que el costo no crece con el catálogo de promociones.
+ */
+@Tag("perf")
+class PromotionIndexPerfTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+    private static final int PRODUCTS = 100_000;
+    private static final int CATEGORIES = 500;
+    private static final int CART_LINES = 10;
+    private static final int EVALUATIONS = 200_000;
+
+    private final Random random = new Random(11);
+
+    @Test
+    void cartEvaluationDoesNotScanEveryPromotion() {
+        List<List<PromotionIndex.Line>> carts = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            List<PromotionIndex.Line> lines = new ArrayList<>();
+            for (int l = 0; l < CART_LINES; l++) {
+                lines.add(new PromotionIndex.Line((long) random.nextInt(PRODUCTS),
+                        "Categoria " + random.nextInt(CATEGORIES), BigDecimal.valueOf(10 + random.nextInt(2_000))));
+            }
+            carts.add(lines);
+        }
+        PromotionIndex small = PromotionIndex.compile(promotions(1_000));
+        List<Promotion> promotions = promotions(100_000);
+        long started = System.nanoTime();
+        PromotionIndex large = PromotionIndex.compile(promotions);
+        long compileMillis = (System.nanoTime() - started) / 1_000_000;
+
+        measure(small, carts);
+        measure(large, carts);
+        Latencies smallLatencies = measure(small, carts);
+        Latencies largeLatencies = measure(large, carts);
+
+        System.out.printf("PromotionIndex: carrito de %d líneas, %d promociones %s | %d promociones (compiladas en %d ms) %s%n",
+                CART_LINES, small.size(), smallLatencies, large.size(), compileMillis, largeLatencies);
+        assertThat(compileMillis).isLessThan(5_000);
+        assertThat(largeLatencies.micros(50)).isLessThan(smallLatencies.micros(50) * 3);
+        assertThat(largeLatencies.micros(99)).isLessThan(100.0);
+    }
+
+    private Latencies measure(PromotionIndex index, List<List<PromotionIndex.Line>> carts) {
+        Latencies latencies = new Latencies(EVALUATIONS);
+        for (int i = 0; i < EVALUATIONS; i++) {
+            List<PromotionIndex.Line> cart = carts.get(i % carts.size());
+            latencies.time(() -> index.evaluate(cart, null, NOW));
+        }
+        return latencies;
+    }
+
+    // Promociones de producto variables; las de categoría y carrito son las mismas en ambos índices
+    private List<Promotion> promotions(int productPromotions) {
+        List<Promotion> promotions = new ArrayList<>();
+        long id = 1;
+        for (int i = 0; i < productPromotions; i++) {
+            promotions.add(promotion(id++, Promotion.Scope.PRODUCT, (long) random.nextInt(PRODUCTS), null, null));
+        }
+        for (int i = 0; i < 2_000; i++) {
+            promotions.add(promotion(id++, Promotion.Scope.CATEGORY, null, "Categoria " + random.nextInt(CATEGORIES), null));
+        }
+        for (int i = 0; i < 50; i++) {
+            promotions.add(promotion(id++, Promotion.Scope.CART, null, null, BigDecimal.valueOf(random.nextInt(50_000))));
+        }
+        return promotions;
+    }
+
+    private Promotion promotion(Long id, Promotion.Scope scope, Long productId, String category, BigDecimal minSubtotal) {
+        boolean percentage = random.nextBoolean();
+        return new Promotion(id, "Promo " + id, null,
+                percentage ? Promotion.DiscountType.PERCENTAGE : Promotion.DiscountType.FIXED_AMOUNT,
+                BigDecimal.valueOf(percentage ? 1 + random.nextInt(30) : 1 + random.nextInt(100)),
+                scope, productId, category, minSubtotal, null, 0, null, null, true);
+    }
+}
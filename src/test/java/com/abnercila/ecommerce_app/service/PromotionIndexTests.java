@@ -0,0 +1,67 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.model.Promotion;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PromotionIndexTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private final PromotionIndex index = PromotionIndex.compile(List.of(
+            promotion(1L, null, Promotion.Scope.PRODUCT, 1L, null, Promotion.DiscountType.PERCENTAGE, "10", null),
+            promotion(2L, null, Promotion.Scope.CATEGORY, null, "Laptops", Promotion.DiscountType.FIXED_AMOUNT, "50", null),
+            promotion(3L, null, Promotion.Scope.CART, null, null, Promotion.DiscountType.FIXED_AMOUNT, "20", "500"),
+            promotion(4L, null, Promotion.Scope.CART, null, null, Promotion.DiscountType.FIXED_AMOUNT, "100", "5000"),
+            promotion(5L, "verano10", Promotion.Scope.CART, null, null, Promotion.DiscountType.PERCENTAGE, "10", null),
+            promotion(6L, "AUDIO", Promotion.Scope.CATEGORY, null, "Audio", Promotion.DiscountType.PERCENTAGE, "5", null)
+    ));
+
+    @Test
+    void appliesBestLinePromotionAndReachedCartThreshold() {
+        // Producto 1 (Laptops, 1000): 10% = 100 gana a los 50 fijos de la categoría
+        // Producto 2 (Laptops, 200): solo la categoría, 50
+        // Subtotal 1200: alcanza el umbral de 500 pero no el de 5000
+        PromotionIndex.Result result = index.evaluate(List.of(
+                line(1L, "Laptops", "1000.00"),
+                line(2L, "Laptops", "200.00")), null, NOW);
+
+        assertThat(result.discount()).isEqualByComparingTo("170.00");
+        assertThat(result.applied()).extracting(Promotion::getId).containsExactly(1L, 2L, 3L);
+        assertThat(result.coupon()).isNull();
+    }
+
+    @Test
+    void couponAppliesOnTopOfAutomaticDiscounts() {
+        // Sin promociones automáticas de línea; carrito 600 - 20 = 580, cupón 10% = 58
+        PromotionIndex.Result result = index.evaluate(List.of(line(9L, "Monitores", "600.00")), " Verano10 ", NOW);
+
+        assertThat(result.discount()).isEqualByComparingTo("78.00");
+        assertThat(result.coupon().getId()).isEqualTo(5L);
+    }
+
+    @Test
+    void rejectsUnknownOrNonApplicableCoupons() {
+        List<PromotionIndex.Line> lines = List.of(line(9L, "Monitores", "600.00"));
+
+        assertThatThrownBy(() -> index.evaluate(lines, "NOEXISTE", NOW)).hasMessage("Cupón inválido o expirado");
+        assertThatThrownBy(() -> index.evaluate(lines, "AUDIO", NOW)).hasMessage("El cupón no aplica a los productos del carrito");
+    }
+
+    private static PromotionIndex.Line line(Long productId, String category, String amount) {
+        return new PromotionIndex.Line(productId, category, new BigDecimal(amount));
+    }
+
+    private static Promotion promotion(Long id, String code, Promotion.Scope scope, Long productId, String category,
+                                       Promotion.DiscountType type, String value, String minSubtotal) {
+        return new Promotion(id, "Promo " + id, code == null ? null : PromotionIndex.normalizeCode(code), type,
+                new BigDecimal(value), scope, productId, category,
+                minSubtotal == null ? null : new BigDecimal(minSubtotal), null, 0, null, null, true);
+    }
+}
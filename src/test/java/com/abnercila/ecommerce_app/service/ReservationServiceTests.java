@@ -0,0 +1,169 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.ReservationRequest;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.StockReservation;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.StockReservationRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class ReservationServiceTests {
+
+    private static final AtomicInteger buyers = new AtomicInteger();
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationLedger ledger;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User holder;
+    private User other;
+
+    @BeforeEach
+    void createBuyers() {
+        holder = buyer();
+        other = buyer();
+    }
+
+    @Test
+    void reservedUnitsAreOnlySoldToTheHolder() {
+        Product product = product(2);
+        Long reservationId = reservationService.reserve(holder, new ReservationRequest(product.getId(), 2, null)).getId();
+
+        assertThatThrownBy(() -> orderService.createOrder(checkout(product, 1, null), other))
+                .hasMessageContaining("Stock insuficiente");
+
+        orderService.createOrder(checkout(product, 2, reservationId), holder);
+
+        assertThat(stock(product)).isZero();
+        assertThat(ledger.held(product.getId())).isZero();
+        assertThat(status(reservationId)).isEqualTo(StockReservation.ReservationStatus.CONSUMED);
+    }
+
+    @Test
+    void holdStaysUntilTheConsumingCheckoutCommits() {
+        Product product = product(2);
+        Long reservationId = reservationService.reserve(holder, new ReservationRequest(product.getId(), 2, null)).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Integer> reserved = reservationService.consume(holder, List.of(reservationId),
+                    Map.of(product.getId(), 2));
+
+            // Entre consumir la reserva y decrementar, otro checkout sigue viendo las unidades apartadas
+            assertThat(ledger.held(product.getId())).isEqualTo(2);
+            assertThat(CompletableFuture.supplyAsync(() -> inventoryService.decrementStock(product.getId(), 1)).join())
+                    .isFalse();
+
+            inventoryService.decrementStock(Map.of(product.getId(), 2), reserved);
+        });
+
+        assertThat(stock(product)).isZero();
+        assertThat(ledger.held(product.getId())).isZero();
+    }
+
+    @Test
+    void reservationsMustMatchACartLine() {
+        Product reservedProduct = product(3);
+        Product otherProduct = product(3);
+        Long reservationId = reservationService.reserve(holder, new ReservationRequest(reservedProduct.getId(), 2, null)).getId();
+
+        assertThatThrownBy(() -> orderService.createOrder(checkout(otherProduct, 1, reservationId), holder))
+                .hasMessageContaining("no corresponde");
+        assertThatThrownBy(() -> orderService.createOrder(checkout(reservedProduct, 1, reservationId), holder))
+                .hasMessageContaining("superan la cantidad");
+
+        // El checkout rechazado no libera nada: la reserva sigue activa y apartada
+        assertThat(status(reservationId)).isEqualTo(StockReservation.ReservationStatus.ACTIVE);
+        assertThat(ledger.held(reservedProduct.getId())).isEqualTo(2);
+        assertThat(stock(otherProduct)).isEqualTo(3);
+
+        reservationService.release(holder, reservationId);
+        assertThat(ledger.held(reservedProduct.getId())).isZero();
+    }
+
+    @Test
+    void expiredReservationsReturnTheirUnits() throws InterruptedException {
+        Product product = product(2);
+        Long reservationId = reservationService.reserve(holder, new ReservationRequest(product.getId(), 2, 1)).getId();
+        assertThat(ledger.held(product.getId())).isEqualTo(2);
+
+        // El libro se libera después del commit que marca la reserva como EXPIRED
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((status(reservationId) != StockReservation.ReservationStatus.EXPIRED || ledger.held(product.getId()) > 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertThat(status(reservationId)).isEqualTo(StockReservation.ReservationStatus.EXPIRED);
+        assertThat(ledger.held(product.getId())).isZero();
+        assertThatThrownBy(() -> orderService.createOrder(checkout(product, 2, reservationId), holder))
+                .hasMessageContaining("expiraron");
+        orderService.createOrder(checkout(product, 2, null), other);
+    }
+
+    private User buyer() {
+        int n = buyers.incrementAndGet();
+        return userRepository.save(new User("Comprador " + n, "reserva" + n + "@test.com", "secret"));
+    }
+
+    private Product product(int stock) {
+        return productRepository.save(new Product("Reservable", "Producto con reservas",
+                new BigDecimal("10.00"), stock, null, "pruebas"));
+    }
+
+    private int stock(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    private StockReservation.ReservationStatus status(Long reservationId) {
+        return reservationRepository.findById(reservationId).orElseThrow().getStatus();
+    }
+
+    private CheckoutRequest checkout(Product product, int quantity, Long reservationId) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(List.of(new CheckoutRequest.CartItemDto(product.getId(), quantity, product.getPrice())));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, product.getPrice()));
+        request.setReservationIds(reservationId != null ? List.of(reservationId) : null);
+        return request;
+    }
+}
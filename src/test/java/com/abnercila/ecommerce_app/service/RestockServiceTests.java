@@ -0,0 +1,155 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.BulkStatusRequest;
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest
+class RestockServiceTests {
+
+    private static final int STOCK = 10;
+    private static final int QUANTITY = 3;
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private RestockService restockService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderBulkStatusService bulkStatusService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cancelledOrderIsRestockedExactlyOnce() throws InterruptedException {
+        User user = buyer();
+        Product product = product();
+        Order order = paidOrder(product, user);
+        if (order.getStatus() == Order.OrderStatus.CONFIRMED) {
+            orderService.cancelOrder(order.getId(), user);
+        }
+        // Repetir la cancelación por la vía masiva no vuelve a encolar la devolución
+        bulkStatusService.apply(new BulkStatusRequest(List.of(order.getId()), null, Order.OrderStatus.CANCELLED));
+
+        awaitRestock(order.getId());
+        restockService.flush();
+
+        assertThat(stockOf(product)).isEqualTo(STOCK);
+    }
+
+    @Test
+    void refundedOrderIsRestockedExactlyOnce() throws InterruptedException {
+        User user = buyer();
+        Product product = product();
+        Order order = paidOrder(product, user);
+        assumeTrue(order.getStatus() == Order.OrderStatus.CONFIRMED, "La pasarela simulada rechazó el cobro");
+        jdbcTemplate.update("UPDATE orders SET status = 'DELIVERED' WHERE id = ?", order.getId());
+
+        orderService.refundOrder(order.getId());
+
+        awaitRestock(order.getId());
+        restockService.flush();
+
+        assertThat(stockOf(product)).isEqualTo(STOCK);
+    }
+
+    @Test
+    void flushDrainsTheQueueInBatches() {
+        Product product = product();
+        Object batchSize = ReflectionTestUtils.getField(restockService, "batchSize");
+        ReflectionTestUtils.setField(restockService, "batchSize", 2);
+        try {
+            for (int i = 0; i < 5; i++) {
+                restockService.enqueue(product.getId(), 1);
+            }
+            restockService.flush();
+        } finally {
+            ReflectionTestUtils.setField(restockService, "batchSize", batchSize);
+        }
+
+        assertThat(stockOf(product)).isEqualTo(STOCK + 5);
+    }
+
+    // Aplica la cola hasta que no quedan devoluciones pendientes de la orden
+    private void awaitRestock(Long orderId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pendingRestocks(orderId) > 0 && System.currentTimeMillis() < deadline) {
+            restockService.flush();
+            Thread.sleep(50);
+        }
+        assertThat(pendingRestocks(orderId)).isZero();
+    }
+
+    private int pendingRestocks(Long orderId) {
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM restock_queue WHERE order_id = ?", Integer.class, orderId);
+        return rows != null ? rows : 0;
+    }
+
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    // Orden cuyo cobro ya resolvió la etapa de pago; un rechazo la deja cancelada
+    private Order paidOrder(Product product, User user) throws InterruptedException {
+        Long orderId = orderService.createOrder(checkout(product), user).getId();
+        long deadline = System.currentTimeMillis() + 10_000;
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        while (order.getStatus() == Order.OrderStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            order = orderRepository.findById(orderId).orElseThrow();
+        }
+        assertThat(order.getStatus()).isNotEqualTo(Order.OrderStatus.PENDING);
+        return order;
+    }
+
+    private User buyer() {
+        return userRepository.save(new User("Devolución", "devolucion" + USERS.incrementAndGet() + "@test.com", "secret"));
+    }
+
+    private Product product() {
+        return productRepository.save(new Product("Devolución", "Producto de prueba",
+                new BigDecimal("10.00"), STOCK, null, "pruebas"));
+    }
+
+    private CheckoutRequest checkout(Product product) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(List.of(new CheckoutRequest.CartItemDto(product.getId(), QUANTITY, product.getPrice())));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null,
+                product.getPrice().multiply(BigDecimal.valueOf(QUANTITY))));
+        return request;
+    }
+}
@@ -0,0 +1,114 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.OrderResponse;
+import com.abnercila.ecommerce_app.dto.SalesReportResponse;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.SalesRollup;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest
+class SalesRollupServiceTests {
+
+    @Autowired
+    private SalesRollupService rollupService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void confirmedOrdersAreRolledUpPerCategoryAndReversalsSubtract() throws InterruptedException {
+        User user = userRepository.save(new User("Rollups", "rollups@test.com", "secret"));
+        Product phone = product("rollup-celulares", "100.00");
+        Product accessory = product("rollup-accesorios", "20.00");
+
+        OrderResponse first = orderService.createOrder(checkout(phone, accessory), user);
+        OrderResponse second = orderService.createOrder(checkout(phone), user);
+        awaitConfirmed(first.getId(), second.getId());
+        rollupService.flush();
+
+        SalesReportResponse report = categories();
+        assertThat(row(report, "rollup-celulares").getUnits()).isEqualTo(2);
+        assertThat(row(report, "rollup-celulares").getOrderCount()).isEqualTo(2);
+        assertThat(row(report, "rollup-celulares").getRevenue()).isEqualByComparingTo("200.00");
+        assertThat(row(report, "rollup-accesorios").getOrderCount()).isEqualTo(1);
+
+        orderService.updateOrderStatus(second.getId(), Order.OrderStatus.CANCELLED);
+        rollupService.flush();
+
+        assertThat(row(categories(), "rollup-celulares").getUnits()).isEqualTo(1);
+        assertThat(row(categories(), "rollup-celulares").getRevenue()).isEqualByComparingTo("100.00");
+    }
+
+    private SalesReportResponse categories() {
+        LocalDateTime now = LocalDateTime.now();
+        return rollupService.getReport(now.minusDays(2), now.plusHours(2), SalesRollup.Dimension.CATEGORY);
+    }
+
+    private SalesReportResponse.Row row(SalesReportResponse report, String category) {
+        return report.getRows().stream()
+                .filter(row -> row.getKey().equals(category))
+                .findFirst().orElseThrow();
+    }
+
+    // Con la pasarela simulada un cobro puede rechazarse; el test necesita ambos confirmados
+    private void awaitConfirmed(Long... orderIds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            List<Order.OrderStatus> statuses = orderRepository.findAllById(List.of(orderIds)).stream()
+                    .map(Order::getStatus)
+                    .collect(Collectors.toList());
+            if (statuses.stream().noneMatch(status -> status == Order.OrderStatus.PENDING)) {
+                assumeTrue(
+                        statuses.stream().allMatch(status -> status == Order.OrderStatus.CONFIRMED),
+                        "La pasarela simulada rechazó un cobro");
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Los cobros no se procesaron a tiempo");
+    }
+
+    private Product product(String category, String price) {
+        return productRepository.save(new Product("Producto " + category, "Producto de prueba",
+                new BigDecimal(price), 10, null, category));
+    }
+
+    private CheckoutRequest checkout(Product... products) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(Arrays.stream(products)
+                .map(p -> new CheckoutRequest.CartItemDto(p.getId(), 1, p.getPrice()))
+                .collect(Collectors.toList()));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, BigDecimal.ONE));
+        return request;
+    }
+}
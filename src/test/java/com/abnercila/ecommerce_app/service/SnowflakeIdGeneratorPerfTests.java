@@ -0,0 +1,68 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.Latencies;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput del generador Snowflake con varios hilos compitiendo por el mismo AtomicLong.
+ * Al agotarse la secuencia se toma el milisegundo siguiente, así que el ritmo lo marca el
+ * CAS y no el reloj; los límites son holgados para que una máquina de CI no dé falsos fallos.
+ */
+@Tag("perf")
+class SnowflakeIdGeneratorPerfTests {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 500_000;
+
+    @Test
+    void concurrentGenerationSustainsMillionsOfIdsPerSecond() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        generate(generator);
+
+        long started = System.nanoTime();
+        generate(generator);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double idsPerSecond = THREADS * IDS_PER_THREAD / seconds;
+
+        Latencies latencies = new Latencies(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            latencies.time(generator::nextOrderNumber);
+        }
+
+        System.out.printf("Snowflake: %.1f M ids/s con %d hilos, nextOrderNumber %s%n",
+                idsPerSecond / 1e6, THREADS, latencies);
+        assertThat(idsPerSecond).isGreaterThan(1_000_000);
+        assertThat(latencies.micros(99)).isLessThan(20.0);
+    }
+
+    private void generate(SnowflakeIdGenerator generator) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                long last = 0;
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    long id = generator.nextId();
+                    // Cada hilo ve ids estrictamente crecientes
+                    if (id <= last) {
+                        throw new IllegalStateException("Id repetido o decreciente: " + id);
+                    }
+                    last = id;
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+    }
+}
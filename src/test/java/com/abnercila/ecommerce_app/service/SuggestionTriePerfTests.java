@@ -0,0 +1,81 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.Latencies;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rendimiento del trie de sugerencias con un catálogo sintético. Corre con mvn test -Pperf;
+ * los límites son holgados para que una máquina de CI no dé falsos fallos y atrapan
+ * regresiones de orden de magnitud (un recorrido lineal, una copia por consulta).
+ */
+@Tag("perf")
+class SuggestionTriePerfTests {
+
+    private static final int PRODUCTS = 200_000;
+    private static final int LOOKUPS = 200_000;
+    private static final String[] TYPES = {"audifonos", "laptop", "monitor", "teclado", "mouse", "celular",
+            "tablet", "camara", "bocina", "reloj", "impresora", "router", "cargador", "funda", "pantalla"};
+
+    private final Random random = new Random(42);
+
+    @Test
+    void lookupsStayInMicrosecondsOverALargeCatalog() {
+        List<SuggestionTrie.Entry> entries = catalog();
+
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = usedHeap(runtime);
+        long started = System.nanoTime();
+        SuggestionTrie trie = SuggestionTrie.compile(entries, 10);
+        long compileMillis = (System.nanoTime() - started) / 1_000_000;
+        long retainedBytes = usedHeap(runtime) - heapBefore;
+
+        List<String> prefixes = prefixes(entries);
+        for (int i = 0; i < LOOKUPS; i++) {
+            trie.suggest(prefixes.get(i % prefixes.size()), 10);
+        }
+        Latencies latencies = new Latencies(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            String prefix = prefixes.get(i % prefixes.size());
+            latencies.time(() -> trie.suggest(prefix, 10));
+        }
+
+        System.out.printf("SuggestionTrie: %d productos, %d nodos, compilado en %d ms, ~%d MB retenidos, %s%n",
+                PRODUCTS, trie.nodeCount(), compileMillis, retainedBytes >> 20, latencies);
+        assertThat(compileMillis).isLessThan(30_000);
+        assertThat(retainedBytes).isLessThan(150L << 20);
+        assertThat(latencies.micros(99)).isLessThan(50.0);
+    }
+
+    private List<SuggestionTrie.Entry> catalog() {
+        List<SuggestionTrie.Entry> entries = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            String name = "Marca" + random.nextInt(500) + " " + type + " " + Long.toString(random.nextLong() & 0xffffffL, 36);
+            entries.add(new SuggestionTrie.Entry(name, type, (long) i, random.nextInt(1_000)));
+        }
+        return entries;
+    }
+
+    // Prefijos de 1 a 6 caracteres tomados de palabras reales del catálogo
+    private List<String> prefixes(List<SuggestionTrie.Entry> entries) {
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String[] words = entries.get(random.nextInt(entries.size())).text().toLowerCase().split(" ");
+            String word = words[random.nextInt(words.length)];
+            prefixes.add(word.substring(0, 1 + random.nextInt(Math.min(word.length(), 6))));
+        }
+        return prefixes;
+    }
+
+    private long usedHeap(Runtime runtime) {
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,41 @@
+package com.abnercila.ecommerce_app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTests {
+
+    private final SuggestionTrie trie = SuggestionTrie.compile(List.of(
+            new SuggestionTrie.Entry("Sony WH-1000XM5", "audifonos", 1L, 40),
+            new SuggestionTrie.Entry("Sony Bravia 55\"", "televisores", 2L, 5),
+            new SuggestionTrie.Entry("Samsung Galaxy S24", "celulares", 3L, 90),
+            new SuggestionTrie.Entry("Audífonos Sony básicos", "audifonos", 4L, 10),
+            new SuggestionTrie.Entry("audifonos", "audifonos", null, 50)
+    ), 2);
+
+    @Test
+    void returnsTopKByPopularityForAnyWordPrefix() {
+        assertThat(texts("s")).containsExactly("Samsung Galaxy S24", "Sony WH-1000XM5");
+        assertThat(texts("SONY")).containsExactly("Sony WH-1000XM5", "Audífonos Sony básicos");
+        assertThat(texts("sony br")).containsExactly("Sony Bravia 55\"");
+        assertThat(texts("sony b")).containsExactly("Audífonos Sony básicos", "Sony Bravia 55\"");
+        assertThat(texts("1000")).containsExactly("Sony WH-1000XM5");
+        // Acentos y mayúsculas no importan; la categoría compite por popularidad
+        assertThat(texts("AUDÍ")).containsExactly("audifonos", "Audífonos Sony básicos");
+    }
+
+    @Test
+    void unknownPrefixesAndLimitsAreRespected() {
+        assertThat(texts("xbox")).isEmpty();
+        assertThat(texts("  ")).isEmpty();
+        assertThat(trie.suggest("s", 1)).hasSize(1);
+        assertThat(SuggestionTrie.compile(List.of(), 5).suggest("a", 5)).isEmpty();
+    }
+
+    private List<String> texts(String prefix) {
+        return trie.suggest(prefix, 10).stream().map(SuggestionTrie.Entry::text).toList();
+    }
+}
@@ -0,0 +1,137 @@
+package com.abnercila.ecommerce_app.service;
+
+import com.abnercila.ecommerce_app.dto.CheckoutRequest;
+import com.abnercila.ecommerce_app.dto.UserOrderStatsResponse;
+import com.abnercila.ecommerce_app.model.Order;
+import com.abnercila.ecommerce_app.model.Product;
+import com.abnercila.ecommerce_app.model.User;
+import com.abnercila.ecommerce_app.repository.OrderRepository;
+import com.abnercila.ecommerce_app.repository.ProductRepository;
+import com.abnercila.ecommerce_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class UserOrderStatsServiceTests {
+
+    @Autowired
+    private UserOrderStatsService statsService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deltasTrackCheckoutsAndTransitionsLikeAFullRebuild() throws InterruptedException {
+        User user = userRepository.save(new User("Estadísticas", "stats@test.com", "secret"));
+        Product product = product();
+        for (int i = 0; i < 3; i++) {
+            orderService.createOrder(checkout(product), user);
+        }
+        List<Order> orders = awaitPayments(user);
+        Order confirmed = orders.stream()
+                .filter(order -> order.getStatus() == Order.OrderStatus.CONFIRMED)
+                .findFirst().orElseThrow();
+        orderService.updateOrderStatus(confirmed.getId(), Order.OrderStatus.PROCESSING);
+        orderService.updateOrderStatus(confirmed.getId(), Order.OrderStatus.SHIPPED);
+
+        UserOrderStatsResponse incremental = statsService.getStats(user.getId());
+        BigDecimal spent = orderRepository.findByUserOrderByCreatedAtDesc(user).stream()
+                .filter(order -> order.getStatus() != Order.OrderStatus.CANCELLED)
+                .map(Order::getTotalAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertThat(incremental.getOrderCount()).isEqualTo(3);
+        assertThat(incremental.getOrdersByStatus().get("SHIPPED")).isEqualTo(1);
+        assertThat(incremental.getOrdersByStatus().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(3);
+        assertThat(incremental.getTotalSpent()).isEqualByComparingTo(spent);
+
+        statsService.reconcile();
+        assertThat(statsService.getStats(user.getId())).isEqualTo(incremental);
+    }
+
+    @Test
+    void reconcileRepairsDrift() throws InterruptedException {
+        User user = userRepository.save(new User("Desviación", "drift@test.com", "secret"));
+        orderService.createOrder(checkout(product()), user);
+        awaitPayments(user);
+        UserOrderStatsResponse expected = statsService.getStats(user.getId());
+
+        jdbcTemplate.update("UPDATE user_order_stats SET order_count = 99, total_spent = 0 WHERE user_id = ?", user.getId());
+        statsService.reconcile();
+
+        assertThat(statsService.getStats(user.getId())).isEqualTo(expected);
+    }
+
+    @Test
+    void concurrentFirstOrdersOfANewUserAllCount() throws InterruptedException {
+        User user = userRepository.save(new User("Primera Compra", "primera@test.com", "secret"));
+        Product product = product();
+        int threads = 6;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                return orderService.createOrder(checkout(product), user);
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(orderRepository.findByUserOrderByCreatedAtDesc(user)).hasSize(threads);
+        assertThat(statsService.getStats(user.getId()).getOrderCount()).isEqualTo(threads);
+    }
+
+    // Espera a que el worker de pagos resuelva todas las órdenes del usuario
+    private List<Order> awaitPayments(User user) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
+        while (orders.stream().anyMatch(order -> order.getStatus() == Order.OrderStatus.PENDING)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
+        }
+        assertThat(orders).noneMatch(order -> order.getStatus() == Order.OrderStatus.PENDING);
+        return orders;
+    }
+
+    private Product product() {
+        return productRepository.save(new Product("Estadística", "Producto de prueba",
+                new BigDecimal("10.00"), 100, null, "pruebas"));
+    }
+
+    private CheckoutRequest checkout(Product product) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCartItems(List.of(new CheckoutRequest.CartItemDto(product.getId(), 1, product.getPrice())));
+        request.setShippingInfo(new CheckoutRequest.ShippingInfoDto(
+                "Juan Pérez", "juan@email.com", "5551234567", "Av. Reforma 123",
+                "Ciudad de México", "CDMX", "06600", "México"));
+        request.setPaymentInfo(new CheckoutRequest.PaymentInfoDto(
+                "CREDIT_CARD", null, null, null, null, null, null, null, product.getPrice()));
+        return request;
+    }
+}